@@ -1,43 +1,43 @@
 package mousemaster;
 
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public record Combo(ComboPrecondition precondition, ComboSequence sequence) {
 
+    private static final Pattern whitespacePattern = Pattern.compile("\\s+");
+    private static final Pattern keySetSeparatorPattern = Pattern.compile("\\s*\\|\\s*");
+
     public static List<Combo> of(String string, ComboMoveDuration defaultMoveDuration,
                            Map<String, Alias> aliases) {
-        Matcher mustRemainUnpressedKeySetMatcher =
-                Pattern.compile("\\^\\{([^{}]+)\\}\\s*").matcher(string);
+        KeySetBlock mustRemainUnpressedKeySetBlock = findKeySetBlock(string, '^');
         Set<Key> mustRemainUnpressedKeySet;
         String mustRemainPressedAndSequenceString;
         String mustRemainUnpressedKeySetString;
-        if (mustRemainUnpressedKeySetMatcher.find()) {
-            mustRemainUnpressedKeySetString = mustRemainUnpressedKeySetMatcher.group(1);
+        if (mustRemainUnpressedKeySetBlock != null) {
+            mustRemainUnpressedKeySetString = mustRemainUnpressedKeySetBlock.content();
             mustRemainUnpressedKeySet = parseMustRemainUnpressedKeySet(mustRemainUnpressedKeySetString, aliases);
             mustRemainPressedAndSequenceString =
-                    string.substring(mustRemainUnpressedKeySetMatcher.end());
+                    string.substring(mustRemainUnpressedKeySetBlock.endIndex());
         }
         else {
             mustRemainUnpressedKeySetString = null;
             mustRemainUnpressedKeySet = Set.of();
             mustRemainPressedAndSequenceString = string;
         }
-        Matcher mustRemainPressedKeySetsMatcher = Pattern.compile("_\\{([^{}]+)\\}\\s*")
-                                                         .matcher(
-                                                                 mustRemainPressedAndSequenceString);
+        KeySetBlock mustRemainPressedKeySetsBlock =
+                findKeySetBlock(mustRemainPressedAndSequenceString, '_');
         Set<Set<Key>> mustRemainPressedKeySets;
         String sequenceString;
         String mustRemainPressedKeySetsString;
-        if (mustRemainPressedKeySetsMatcher.find()) {
-            mustRemainPressedKeySetsString = mustRemainPressedKeySetsMatcher.group(1);
+        if (mustRemainPressedKeySetsBlock != null) {
+            mustRemainPressedKeySetsString = mustRemainPressedKeySetsBlock.content();
             mustRemainPressedKeySets =
                     parseMustRemainPressedKeySets(mustRemainPressedKeySetsString,
                             aliases);
             sequenceString = mustRemainPressedAndSequenceString.substring(
-                    mustRemainPressedKeySetsMatcher.end());
+                    mustRemainPressedKeySetsBlock.endIndex());
         }
         else {
             mustRemainPressedKeySetsString = null;
@@ -100,9 +100,46 @@ public record Combo(ComboPrecondition precondition, ComboSequence sequence) {
         return new Combo(precondition, sequence);
     }
 
+    /**
+     * Finds the first {@code <prefix>{<content>}} (content is not empty and does not
+     * contain braces), in a single pass.
+     * @return null if there is none.
+     */
+    private static KeySetBlock findKeySetBlock(String string, char prefix) {
+        for (int prefixIndex = string.indexOf(prefix); prefixIndex != -1;
+             prefixIndex = string.indexOf(prefix, prefixIndex + 1)) {
+            int contentBeginIndex = prefixIndex + 2;
+            if (contentBeginIndex > string.length() ||
+                string.charAt(prefixIndex + 1) != '{')
+                continue;
+            int contentEndIndex = contentBeginIndex;
+            while (contentEndIndex < string.length() &&
+                   string.charAt(contentEndIndex) != '{' &&
+                   string.charAt(contentEndIndex) != '}')
+                contentEndIndex++;
+            if (contentEndIndex == contentBeginIndex ||
+                contentEndIndex == string.length() ||
+                string.charAt(contentEndIndex) != '}')
+                continue;
+            int endIndex = contentEndIndex + 1;
+            while (endIndex < string.length() &&
+                   Character.isWhitespace(string.charAt(endIndex)))
+                endIndex++;
+            return new KeySetBlock(
+                    string.substring(contentBeginIndex, contentEndIndex), endIndex);
+        }
+        return null;
+    }
+
+    /**
+     * @param endIndex index following the closing brace and the whitespaces after it.
+     */
+    private record KeySetBlock(String content, int endIndex) {
+    }
+
     private static Set<Key> parseMustRemainUnpressedKeySet(String keySetString,
                                                            Map<String, Alias> aliases) {
-        String[] keyStrings = keySetString.split("\\s+");
+        String[] keyStrings = whitespacePattern.split(keySetString);
         return Arrays.stream(keyStrings)
                      .map(keyString -> expandAlias(keyString, aliases))
                      .flatMap(Collection::stream)
@@ -118,7 +155,7 @@ public record Combo(ComboPrecondition precondition, ComboSequence sequence) {
 
     private static Set<Set<Key>> parseMustRemainPressedKeySets(String keySetsString,
                                                                Map<String, Alias> aliases) {
-        String[] keySetStrings = keySetsString.split("\\s*\\|\\s*");
+        String[] keySetStrings = keySetSeparatorPattern.split(keySetsString);
         Set<Set<Key>> mustRemainPressedKeySets = Arrays.stream(keySetStrings)
                                       .map(complexKeySetString -> parseMustRemainPressedKeySet(
                                               complexKeySetString, aliases))
@@ -134,7 +171,7 @@ public record Combo(ComboPrecondition precondition, ComboSequence sequence) {
         // rightctrl up*down -> (rightctrl, up), (rightctrl, down), (rightctrl, up, down)
         boolean containsEmptyKeySet = false;
         List<Set<Set<Key>>> combinations = new ArrayList<>();
-        String[] split = keySetString.split("\\s+");
+        String[] split = whitespacePattern.split(keySetString);
         for (String complexKeyString : split) {
             if (complexKeyString.equals("none"))
                 containsEmptyKeySet = true;
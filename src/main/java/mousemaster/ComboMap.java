@@ -18,6 +18,7 @@ public record ComboMap(Map<Combo, List<Command>> commandsByCombo) {
         private Map<Combo, List<Command>> startWheel = new HashMap<>();
         private Map<Combo, List<Command>> stopWheel = new HashMap<>();
         private Map<Combo, List<Command>> snap = new HashMap<>();
+        private Map<Combo, List<Command>> snapToEdge = new HashMap<>();
         private Map<Combo, List<Command>> shrinkGrid = new HashMap<>();
         private Map<Combo, List<Command>> moveGrid = new HashMap<>();
         private Map<Combo, List<Command>> moveToGridCenter = new HashMap<>();
@@ -25,6 +26,9 @@ public record ComboMap(Map<Combo, List<Command>> commandsByCombo) {
         private Map<Combo, List<Command>> clearPositionHistory = new HashMap<>();
         private Map<Combo, List<Command>> cycleNextPosition = new HashMap<>();
         private Map<Combo, List<Command>> cyclePreviousPosition = new HashMap<>();
+        private Map<Combo, List<Command>> savePositionToRegister = new HashMap<>();
+        private Map<Combo, List<Command>> jumpToRegister = new HashMap<>();
+        private Map<Combo, List<Command>> jumpToNearestPosition = new HashMap<>();
 
         public ComboMapBuilder add(Combo combo, Command command) {
             Map<Combo, List<Command>> map = switch (command) {
@@ -68,6 +72,11 @@ public record ComboMap(Map<Combo, List<Command>> commandsByCombo) {
                 case Command.SnapLeft snapLeft -> snap;
                 case Command.SnapRight snapRight -> snap;
 
+                case Command.SnapToEdgeUp snapToEdgeUp -> snapToEdge;
+                case Command.SnapToEdgeDown snapToEdgeDown -> snapToEdge;
+                case Command.SnapToEdgeLeft snapToEdgeLeft -> snapToEdge;
+                case Command.SnapToEdgeRight snapToEdgeRight -> snapToEdge;
+
                 case Command.ShrinkGridUp shrinkGridUp -> shrinkGrid;
                 case Command.ShrinkGridDown shrinkGridDown -> shrinkGrid;
                 case Command.ShrinkGridLeft shrinkGridLeft -> shrinkGrid;
@@ -84,6 +93,14 @@ public record ComboMap(Map<Combo, List<Command>> commandsByCombo) {
                 case Command.ClearPositionHistory clearPositionHistory_ -> clearPositionHistory;
                 case Command.CycleNextPosition cycleNextPosition_ -> cycleNextPosition;
                 case Command.CyclePreviousPosition cyclePreviousPosition_ -> cyclePreviousPosition;
+
+                case Command.SavePositionToRegister savePositionToRegister_ -> savePositionToRegister;
+                case Command.JumpToRegister jumpToRegister_ -> jumpToRegister;
+
+                case Command.JumpToNearestPositionUp jumpToNearestPositionUp -> jumpToNearestPosition;
+                case Command.JumpToNearestPositionDown jumpToNearestPositionDown -> jumpToNearestPosition;
+                case Command.JumpToNearestPositionLeft jumpToNearestPositionLeft -> jumpToNearestPosition;
+                case Command.JumpToNearestPositionRight jumpToNearestPositionRight -> jumpToNearestPosition;
                 // @formatter:on
             };
             map.computeIfAbsent(combo, combo1 -> new ArrayList<>()).add(command);
@@ -100,6 +117,7 @@ public record ComboMap(Map<Combo, List<Command>> commandsByCombo) {
             add(commandsByCombo, startWheel);
             add(commandsByCombo, stopWheel);
             add(commandsByCombo, snap);
+            add(commandsByCombo, snapToEdge);
             add(commandsByCombo, shrinkGrid);
             add(commandsByCombo, moveGrid);
             add(commandsByCombo, moveToGridCenter);
@@ -107,6 +125,9 @@ public record ComboMap(Map<Combo, List<Command>> commandsByCombo) {
             add(commandsByCombo, clearPositionHistory);
             add(commandsByCombo, cycleNextPosition);
             add(commandsByCombo, cyclePreviousPosition);
+            add(commandsByCombo, savePositionToRegister);
+            add(commandsByCombo, jumpToRegister);
+            add(commandsByCombo, jumpToNearestPosition);
             return commandsByCombo;
         }
 
@@ -0,0 +1,20 @@
+package mousemaster;
+
+import jdk.jfr.*;
+
+/**
+ * The duration is the time spent matching the key event against the combos of the mode.
+ */
+@Name("mousemaster.ComboMatched")
+@Label("Combo Matched")
+@Category("Mousemaster")
+@StackTrace(false)
+public class ComboMatchedEvent extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Combos")
+    String combos;
+
+}
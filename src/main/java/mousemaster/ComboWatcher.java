@@ -4,20 +4,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class ComboWatcher implements ModeListener {
 
     private static final Logger logger = LoggerFactory.getLogger(ComboWatcher.class);
 
     private final CommandRunner commandRunner;
-    private final Set<Key> mustRemainPressedComboPreconditionKeys;
-    private final Set<Key> mustRemainUnpressedComboPreconditionKeys;
+    private Set<Key> mustRemainPressedComboPreconditionKeys;
+    private Set<Key> mustRemainUnpressedComboPreconditionKeys;
     private Mode currentMode;
     private boolean modeJustTimedOut;
     private ComboPreparation comboPreparation;
     private ComboMoveDuration previousComboMoveDuration;
+    /**
+     * Longest min or (finite) max duration of the combo moves of the current mode.
+     */
+    private Duration longestComboMoveDuration = Duration.ZERO;
     private List<ComboWaitingForLastMoveToComplete> combosWaitingForLastMoveToComplete = new ArrayList<>();
 
     private Set<Key> currentlyPressedComboSequenceKeys = new HashSet<>();
@@ -34,7 +40,20 @@ public class ComboWatcher implements ModeListener {
         this.comboPreparation = ComboPreparation.empty();
     }
 
+    public void setComboPreconditionKeys(Set<Key> mustRemainUnpressedComboPreconditionKeys,
+                                         Set<Key> mustRemainPressedComboPreconditionKeys) {
+        this.mustRemainUnpressedComboPreconditionKeys =
+                mustRemainUnpressedComboPreconditionKeys;
+        this.mustRemainPressedComboPreconditionKeys =
+                mustRemainPressedComboPreconditionKeys;
+    }
+
     public void update(double delta) {
+        // Idle ticks: no combo is waiting, nothing is allocated.
+        if (combosWaitingForLastMoveToComplete.isEmpty())
+            return;
+        ComboMatchedEvent comboMatchedEvent = new ComboMatchedEvent();
+        comboMatchedEvent.begin();
         // For a given waiting combo, we know that its precondition has to be satisfied still, because otherwise it
         // would mean that currentlyPressedComboPreconditionKeys has changed. But when currentlyPressedComboPreconditionKeys is changed,
         // combosWaitingForLastMoveToComplete is always reset.
@@ -44,9 +63,12 @@ public class ComboWatcher implements ModeListener {
             if (comboWaitingForLastMoveToComplete.remainingWait < 0)
                 completeCombos.add(comboWaitingForLastMoveToComplete);
         }
-        List<Command> commandsToRun = longestComboCommandsLastAndDeduplicate(completeCombos.stream()
-                                                                                           .map(ComboWaitingForLastMoveToComplete::comboAndCommands)
-                                                                                           .toList());
+        List<ComboAndCommands> completeComboAndCommands =
+                completeCombos.stream()
+                              .map(ComboWaitingForLastMoveToComplete::comboAndCommands)
+                              .toList();
+        commitComboMatchedEvent(comboMatchedEvent, completeComboAndCommands);
+        List<Command> commandsToRun = longestComboCommandsLastAndDeduplicate(completeComboAndCommands);
         if (!commandsToRun.isEmpty()) {
             logger.debug(
                     "Completed combos that were waiting for last move to complete, currentMode = " +
@@ -111,8 +133,75 @@ public class ComboWatcher implements ModeListener {
                 PressKeyEventProcessing.unhandled();
     }
 
+    /**
+     * Dry run of keyEvent(press): the combo preparation, the pressed keys and the
+     * waiting combos are left untouched and no command is run.
+     * The answer can be wrong when the press is preceded by events that have not been
+     * processed yet, or when the commands the press triggers change the mode.
+     */
+    public boolean pressWouldBeEaten(KeyEvent event) {
+        Set<Key> currentlyPressedComboPreconditionKeys =
+                this.currentlyPressedComboPreconditionKeys;
+        if (mustRemainUnpressedComboPreconditionKeys.contains(event.key()) ||
+            mustRemainPressedComboPreconditionKeys.contains(event.key())) {
+            currentlyPressedComboPreconditionKeys =
+                    new HashSet<>(currentlyPressedComboPreconditionKeys);
+            currentlyPressedComboPreconditionKeys.add(event.key());
+        }
+        KeyEvent previousEvent = comboPreparation.events().isEmpty() ? null :
+                comboPreparation.events().getLast();
+        ComboPreparation comboPreparation = ComboPreparation.empty();
+        if (previousEvent == null ||
+            previousComboMoveDuration.satisfied(previousEvent.time(), event.time()))
+            comboPreparation.events().addAll(this.comboPreparation.events());
+        comboPreparation.events().add(event);
+        return processKeyEventForCurrentMode(event, false, comboPreparation,
+                currentlyPressedComboPreconditionKeys, true).mustBeEaten();
+    }
+
+    /**
+     * pressWouldBeEaten only depends on the time of the press through the durations of
+     * the combo moves, measured from the last event of the combo preparation: once the
+     * longest of these durations has passed, the time of the press does not matter
+     * anymore.
+     * @return null if the time of the press does not matter.
+     */
+    public Instant pressWouldBeEatenTimeSensitiveUntil() {
+        if (comboPreparation.events().isEmpty())
+            return null;
+        return comboPreparation.events().getLast().time().plus(longestComboMoveDuration);
+    }
+
+    private static Duration longestComboMoveDuration(Mode mode) {
+        Duration longestComboMoveDuration = Duration.ZERO;
+        for (Combo combo : mode.comboMap().commandsByCombo().keySet()) {
+            for (ComboMove move : combo.sequence().moves()) {
+                ComboMoveDuration duration = move.duration();
+                if (duration.min().compareTo(longestComboMoveDuration) > 0)
+                    longestComboMoveDuration = duration.min();
+                if (duration.max() != null &&
+                    duration.max().compareTo(longestComboMoveDuration) > 0)
+                    longestComboMoveDuration = duration.max();
+            }
+        }
+        return longestComboMoveDuration;
+    }
+
     private PressKeyEventProcessing processKeyEventForCurrentMode(KeyEvent event,
                                                                   boolean ignoreSwitchModeCommands) {
+        return processKeyEventForCurrentMode(event, ignoreSwitchModeCommands,
+                comboPreparation, currentlyPressedComboPreconditionKeys, false);
+    }
+
+    private PressKeyEventProcessing processKeyEventForCurrentMode(KeyEvent event,
+                                                                  boolean ignoreSwitchModeCommands,
+                                                                  ComboPreparation comboPreparation,
+                                                                  Set<Key> currentlyPressedComboPreconditionKeys,
+                                                                  boolean dryRun) {
+        // Dry runs never commit the event.
+        ComboMatchedEvent comboMatchedEvent = dryRun ? null : new ComboMatchedEvent();
+        if (comboMatchedEvent != null)
+            comboMatchedEvent.begin();
         boolean mustBeEaten = false;
         boolean partOfComboSequence = false;
         List<ComboAndCommands> comboAndCommandsToRun = new ArrayList<>();
@@ -205,7 +294,7 @@ public class ComboWatcher implements ModeListener {
             }
             boolean preparationComplete =
                     matchingMoveCount == combo.sequence().moves().size();
-            if (!preparationComplete)
+            if (!preparationComplete || dryRun)
                 continue;
             List<Command> commands = entry.getValue();
             if (ignoreSwitchModeCommands &&
@@ -233,6 +322,11 @@ public class ComboWatcher implements ModeListener {
                 comboAndCommandsToRun.add(comboAndCommands);
             }
         }
+        if (dryRun)
+            return partOfComboSequence ?
+                    PressKeyEventProcessing.partOfComboSequence(mustBeEaten) :
+                    PressKeyEventProcessing.unhandled();
+        commitComboMatchedEvent(comboMatchedEvent, comboAndCommandsToRun);
         if (newComboDuration != null)
             previousComboMoveDuration = newComboDuration;
         List<Command> commandsToRun =
@@ -253,6 +347,21 @@ public class ComboWatcher implements ModeListener {
         return PressKeyEventProcessing.unhandled();
     }
 
+    private void commitComboMatchedEvent(ComboMatchedEvent comboMatchedEvent,
+                                         List<ComboAndCommands> matchedComboAndCommands) {
+        if (matchedComboAndCommands.isEmpty())
+            return;
+        comboMatchedEvent.end();
+        if (!comboMatchedEvent.shouldCommit())
+            return;
+        comboMatchedEvent.mode = currentMode.name();
+        comboMatchedEvent.combos = matchedComboAndCommands.stream()
+                                                          .map(ComboAndCommands::combo)
+                                                          .map(Combo::toString)
+                                                          .collect(Collectors.joining(", "));
+        comboMatchedEvent.commit();
+    }
+
     private static final List<? extends Class<? extends Command>> commandOrder =
             List.of(
                     Command.SwitchMode.class
@@ -306,12 +415,21 @@ public class ComboWatcher implements ModeListener {
     @Override
     public void modeChanged(Mode newMode) {
         currentMode = newMode;
+        longestComboMoveDuration = longestComboMoveDuration(newMode);
         if (modeJustTimedOut) {
             modeJustTimedOut = false;
             processKeyEventForCurrentMode(null, false);
         }
     }
 
+    @Override
+    public void modeReloaded(Mode reloadedMode) {
+        currentMode = reloadedMode;
+        longestComboMoveDuration = longestComboMoveDuration(reloadedMode);
+        // The combos waiting for their last move may not exist anymore.
+        breakComboPreparation();
+    }
+
     @Override
     public void modeTimedOut() {
         modeJustTimedOut = true;
@@ -40,6 +40,10 @@ public sealed interface Command {
     record SnapDown() implements Command {}
     record SnapLeft() implements Command {}
     record SnapRight() implements Command {}
+    record SnapToEdgeUp() implements Command {}
+    record SnapToEdgeDown() implements Command {}
+    record SnapToEdgeLeft() implements Command {}
+    record SnapToEdgeRight() implements Command {}
 
     record ShrinkGridUp() implements Command {}
     record ShrinkGridDown() implements Command {}
@@ -58,4 +62,12 @@ public sealed interface Command {
     record CycleNextPosition() implements Command {}
     record CyclePreviousPosition() implements Command {}
 
+    record SavePositionToRegister(String registerName) implements Command {}
+    record JumpToRegister(String registerName) implements Command {}
+
+    record JumpToNearestPositionUp() implements Command {}
+    record JumpToNearestPositionDown() implements Command {}
+    record JumpToNearestPositionLeft() implements Command {}
+    record JumpToNearestPositionRight() implements Command {}
+
 }
@@ -61,6 +61,10 @@ public class CommandRunner {
             case SnapDown snapDown -> gridManager.snapDown();
             case SnapLeft snapLeft -> gridManager.snapLeft();
             case SnapRight snapRight -> gridManager.snapRight();
+            case SnapToEdgeUp snapToEdgeUp -> gridManager.snapToEdgeUp();
+            case SnapToEdgeDown snapToEdgeDown -> gridManager.snapToEdgeDown();
+            case SnapToEdgeLeft snapToEdgeLeft -> gridManager.snapToEdgeLeft();
+            case SnapToEdgeRight snapToEdgeRight -> gridManager.snapToEdgeRight();
 
             case ShrinkGridUp shrinkGridUp -> gridManager.shrinkGridUp();
             case ShrinkGridDown shrinkGridDown -> gridManager.shrinkGridDown();
@@ -78,6 +82,14 @@ public class CommandRunner {
             case ClearPositionHistory clearPositionHistory -> hintManager.clearPositionHistory();
             case CycleNextPosition cycleNextPosition -> hintManager.cycleNextPosition();
             case CyclePreviousPosition cyclePreviousPosition -> hintManager.cyclePreviousPosition();
+
+            case SavePositionToRegister savePositionToRegister -> hintManager.savePositionToRegister(savePositionToRegister.registerName());
+            case JumpToRegister jumpToRegister -> hintManager.jumpToRegister(jumpToRegister.registerName());
+
+            case JumpToNearestPositionUp jumpToNearestPositionUp -> hintManager.jumpToNearestPositionUp();
+            case JumpToNearestPositionDown jumpToNearestPositionDown -> hintManager.jumpToNearestPositionDown();
+            case JumpToNearestPositionLeft jumpToNearestPositionLeft -> hintManager.jumpToNearestPositionLeft();
+            case JumpToNearestPositionRight jumpToNearestPositionRight -> hintManager.jumpToNearestPositionRight();
             // @formatter:on
         }
     }
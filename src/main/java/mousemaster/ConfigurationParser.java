@@ -11,15 +11,16 @@ import mousemaster.Mouse.MouseBuilder;
 import mousemaster.Wheel.WheelBuilder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -29,6 +30,7 @@ import static mousemaster.Command.*;
 
 public class ConfigurationParser {
 
+    private static final Pattern whitespacePattern = Pattern.compile("\\s+");
     private static final Map<String, Property<?>> defaultPropertyByName;
 
     static {
@@ -43,8 +45,13 @@ public class ConfigurationParser {
                                                .maxVelocity(750)
                                                .acceleration(1000)
                                                .smoothJumpEnabled(false)
-                                               .smoothJumpVelocity(10000);
-        WheelBuilder wheel = new WheelBuilder().initialVelocity(1000).maxVelocity(1000).acceleration(500);
+                                               .smoothJumpVelocity(10000)
+                                               .smoothJumpEasing(Easing.SMOOTHERSTEP);
+        WheelBuilder wheel = new WheelBuilder().initialVelocity(1000)
+                                               .maxVelocity(1000)
+                                               .acceleration(500)
+                                               .momentumEnabled(false)
+                                               .momentumFriction(4);
         GridConfigurationBuilder grid =
                 new GridConfigurationBuilder();
         grid.synchronization(Synchronization.MOUSE_AND_GRID_CENTER_UNSYNCHRONIZED)
@@ -74,6 +81,7 @@ public class ConfigurationParser {
                 .fontHexColor("#FFFFFF")
                 .selectedPrefixFontHexColor("#8FA6C4")
                 .boxHexColor("#204E8A")
+                .labelStrategy(HintLabelStrategy.FIXED_LENGTH)
                 .swallowHintEndKeyPress(true)
                 .savePositionAfterSelection(false);
         HintMeshType.HintMeshTypeBuilder hintMeshTypeBuilder = hintMesh.type();
@@ -82,7 +90,11 @@ public class ConfigurationParser {
                            .gridMaxColumnCount(26)
                            // 72 is the right value for getting AA -> ZZ hints in a 1920x1080 screen.
                            .gridCellWidth(72)
-                           .gridCellHeight(40);
+                           .gridCellHeight(40)
+                           .zoomGridRowCount(4)
+                           .zoomGridColumnCount(6)
+                           .zoomGridDepth(3)
+                           .maxTargetCount(676);
         HintGridArea.HintGridAreaBuilder hintGridAreaBuilder =
                 hintMesh.type().gridArea();
         hintGridAreaBuilder.type(HintGridAreaType.ACTIVE_SCREEN)
@@ -121,19 +133,36 @@ public class ConfigurationParser {
                 new Property<>("start-wheel", Map.of()),
                 new Property<>("stop-wheel", Map.of()),
                 new Property<>("snap", Map.of()),
+                new Property<>("snap-to-edge", Map.of()),
                 new Property<>("shrink-grid", Map.of()),
                 new Property<>("move-grid", Map.of()),
                 new Property<>("move-grid-to-center", Map.of()),
                 new Property<>("save-position", Map.of()),
                 new Property<>("clear", Map.of()),
                 new Property<>("cycle-next", Map.of()),
-                new Property<>("cycle-previous", Map.of())
+                new Property<>("cycle-previous", Map.of()),
+                new Property<>("save-position-to-register", Map.of()),
+                new Property<>("jump-to-register", Map.of()),
+                new Property<>("jump-to-nearest-position", Map.of())
         ).collect(Collectors.toMap(property -> property.propertyKey.propertyName, Function.identity()));
         // @formatter:on
     }
 
     public static Configuration parse(Path path) throws IOException {
         List<String> lines = Files.readAllLines(path);
+        AtomicInteger lineNumber = new AtomicInteger();
+        try {
+            return parse(lines, lineNumber);
+        } catch (IllegalArgumentException e) {
+            // 0 once all lines have been read: the error is not about a specific line.
+            if (lineNumber.get() == 0)
+                throw e;
+            throw new IllegalArgumentException(
+                    "Line " + lineNumber.get() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Configuration parse(List<String> lines, AtomicInteger lineNumber) {
         ComboMoveDuration defaultComboMoveDuration =
                 new ComboMoveDuration(Duration.ZERO, Duration.ofMillis(150));
         KeyboardLayout keyboardLayout = null;
@@ -145,17 +174,17 @@ public class ConfigurationParser {
         Set<String> modeReferences = new HashSet<>();
         Map<String, Set<String>> referencedModesByReferencerMode = new HashMap<>();
         Map<PropertyKey, Set<PropertyKey>> childPropertiesByParentProperty = new HashMap<>();
-        Pattern linePattern = Pattern.compile("(.+?)=(.+)");
         Set<String> visitedPropertyKeys = new HashSet<>();
         for (String line : lines) {
+            lineNumber.incrementAndGet();
             if (line.startsWith("#") || line.isBlank())
                 continue;
-            Matcher lineMatcher = linePattern.matcher(line);
-            if (!lineMatcher.matches())
+            int equalsSignIndex = line.indexOf('=');
+            if (equalsSignIndex <= 0 || equalsSignIndex == line.length() - 1)
                 throw new IllegalArgumentException("Invalid property " + line +
                                                    ": expected <property key>=<property value>");
-            String propertyKey = lineMatcher.group(1).strip();
-            String propertyValue = lineMatcher.group(2).strip();
+            String propertyKey = line.substring(0, equalsSignIndex).strip();
+            String propertyValue = line.substring(equalsSignIndex + 1).strip();
             if (propertyKey.isEmpty())
                 throw new IllegalArgumentException(
                         "Invalid property " + line + ": property key cannot be blank");
@@ -187,16 +216,15 @@ public class ConfigurationParser {
                 // For now, key-alias must be defined at the beginning of the file, before they are used.
                 String aliasName = propertyKey.substring("key-alias.".length());
                 // List and not Set because hint.selection-keys=hintkeys needs ordering.
-                List<Key> keys = Arrays.stream(propertyValue.split("\\s+"))
+                List<Key> keys = Arrays.stream(whitespacePattern.split(propertyValue))
                                        .map(Key::ofName)
                                        .toList();
                 aliases.put(aliasName, new Alias(aliasName, keys));
             }
-            Pattern modeKeyPattern = Pattern.compile("([^.]+-mode)\\.([^.]+)(\\.([^.]+))?");
-            Matcher keyMatcher = modeKeyPattern.matcher(propertyKey);
-            if (!keyMatcher.matches())
+            ModePropertyKey modePropertyKey = parseModePropertyKey(propertyKey);
+            if (modePropertyKey == null)
                 continue;
-            String modeName = keyMatcher.group(1);
+            String modeName = modePropertyKey.modeName();
             if (!modeName.endsWith("-mode"))
                 throw new IllegalArgumentException(
                         "Invalid mode name in property key " + propertyKey +
@@ -213,9 +241,8 @@ public class ConfigurationParser {
             ModeBuilder mode =
                     modeByName.computeIfAbsent(modeName,
                             modeName1 -> new ModeBuilder(modeName1, propertyByKey));
-            String group2 = keyMatcher.group(2);
             ComboMoveDuration finalDefaultComboMoveDuration = defaultComboMoveDuration;
-            switch (group2) {
+            switch (modePropertyKey.propertyName()) {
                 case "stop-commands-from-previous-mode" ->
                         mode.stopCommandsFromPreviousMode.parseReferenceOr(propertyKey,
                                 propertyValue, builder -> builder.set(
@@ -240,15 +267,15 @@ public class ConfigurationParser {
                             }, childPropertiesByParentProperty, nonRootPropertyKeys);
                 }
                 case "mouse" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.mouse.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid mouse property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "initial-velocity" -> mode.mouse.builder.initialVelocity(
                                     Double.parseDouble(propertyValue));
                             case "max-velocity" -> mode.mouse.builder.maxVelocity(
@@ -259,42 +286,48 @@ public class ConfigurationParser {
                                     Boolean.parseBoolean(propertyValue));
                             case "smooth-jump-velocity" -> mode.mouse.builder.smoothJumpVelocity(
                                     Double.parseDouble(propertyValue));
+                            case "smooth-jump-easing" -> mode.mouse.builder.smoothJumpEasing(
+                                    parseEasing(propertyKey, propertyValue));
                             default -> throw new IllegalArgumentException(
                                     "Invalid mouse property key: " + propertyKey);
                         }
                     }
                 }
                 case "wheel" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.wheel.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid wheel property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "acceleration" -> mode.wheel.builder.acceleration(
                                     Double.parseDouble(propertyValue));
                             case "initial-velocity" -> mode.wheel.builder.initialVelocity(
                                     Double.parseDouble(propertyValue));
                             case "max-velocity" -> mode.wheel.builder.maxVelocity(
                                     Double.parseDouble(propertyValue));
+                            case "momentum-enabled" -> mode.wheel.builder.momentumEnabled(
+                                    Boolean.parseBoolean(propertyValue));
+                            case "momentum-friction" -> mode.wheel.builder.momentumFriction(
+                                    Double.parseDouble(propertyValue));
                             default -> throw new IllegalArgumentException(
                                     "Invalid wheel property key: " + propertyKey);
                         }
                     }
                 }
                 case "grid" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.grid.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid grid property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "area" -> mode.grid.builder.area()
                                                             .type(parseGridAreaType(
                                                                     propertyKey,
@@ -357,16 +390,16 @@ public class ConfigurationParser {
                     }
                 }
                 case "hint" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.hintMesh.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid hint property key: " + propertyKey);
                     else {
                         mode.hintMesh.builder.enabled(true);
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "enabled" -> mode.hintMesh.builder.enabled(
                                     Boolean.parseBoolean(propertyValue));
                             case "visible" -> mode.hintMesh.builder.visible(
@@ -413,8 +446,37 @@ public class ConfigurationParser {
                                                                                              propertyValue,
                                                                                              1,
                                                                                              10_000));
+                            case "zoom-grid-row-count" -> mode.hintMesh.builder.type()
+                                                                               .zoomGridRowCount(
+                                                                                       parseUnsignedInteger(
+                                                                                               propertyKey,
+                                                                                               propertyValue,
+                                                                                               1, 10));
+                            case "zoom-grid-column-count" -> mode.hintMesh.builder.type()
+                                                                                  .zoomGridColumnCount(
+                                                                                          parseUnsignedInteger(
+                                                                                                  propertyKey,
+                                                                                                  propertyValue,
+                                                                                                  1, 10));
+                            case "zoom-grid-depth" -> mode.hintMesh.builder.type()
+                                                                           .zoomGridDepth(
+                                                                                   parseUnsignedInteger(
+                                                                                           propertyKey,
+                                                                                           propertyValue,
+                                                                                           1, 10));
+                            case "external-targets-path" -> mode.hintMesh.builder.type()
+                                                                                 .externalTargetsPath(
+                                                                                         propertyValue);
+                            case "max-target-count" -> mode.hintMesh.builder.type()
+                                                                            .maxTargetCount(
+                                                                                    parseUnsignedInteger(
+                                                                                            propertyKey,
+                                                                                            propertyValue,
+                                                                                            1, 10_000));
                             case "selection-keys" -> mode.hintMesh.builder.selectionKeys(
                                     parseHintKeys(propertyKey, propertyValue, aliases));
+                            case "label-strategy" -> mode.hintMesh.builder.labelStrategy(
+                                    parseHintLabelStrategy(propertyKey, propertyValue));
                             case "undo" ->
                                     mode.hintMesh.builder.undoKey(Key.ofName(propertyValue));
                             case "font-name" -> mode.hintMesh.builder.fontName(propertyValue);
@@ -450,15 +512,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "to" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.to.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid to (mode switch) property key: " + propertyKey);
                     else {
-                        String newModeName = keyMatcher.group(4);
+                        String newModeName = modePropertyKey.subPropertyName();
                         modeReferences.add(checkModeReference(newModeName));
                         referencedModesByReferencerMode.computeIfAbsent(modeName,
                                 modeName_ -> new HashSet<>()).add(newModeName);
@@ -468,16 +530,16 @@ public class ConfigurationParser {
                     }
                 }
                 case "timeout" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.timeout.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid timeout property key: " + propertyKey);
                     else {
                         mode.timeout.builder.enabled(true);
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "enabled" -> mode.timeout.builder.enabled(
                                     Boolean.parseBoolean(propertyValue));
                             case "duration-millis" -> mode.timeout.builder.duration(
@@ -499,16 +561,16 @@ public class ConfigurationParser {
                     }
                 }
                 case "indicator" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.indicator.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid indicator property key: " + propertyKey);
                     else {
                         mode.indicator.builder.enabled(true);
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "enabled" -> mode.indicator.builder.enabled(
                                     Boolean.parseBoolean(propertyValue));
                             case "size" -> mode.indicator.builder.size(
@@ -531,16 +593,16 @@ public class ConfigurationParser {
                     }
                 }
                 case "hide-cursor" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.hideCursor.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid hide-cursor property key: " + propertyKey);
                     else {
                         mode.hideCursor.builder.enabled(true);
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             case "enabled" -> mode.hideCursor.builder.enabled(
                                     Boolean.parseBoolean(propertyValue));
                             case "idle-duration-millis" ->
@@ -552,15 +614,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "start-move" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.startMove.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid start-move property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.startMove.builder, propertyValue, new StartMoveUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.startMove.builder, propertyValue, new StartMoveDown(), defaultComboMoveDuration, aliases);
@@ -571,15 +633,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "stop-move" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.stopMove.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid stop-move property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.stopMove.builder, propertyValue, new StopMoveUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.stopMove.builder, propertyValue, new StopMoveDown(), defaultComboMoveDuration, aliases);
@@ -590,15 +652,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "press" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.press.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid press property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "left" -> setCommand(mode.comboMap.press.builder, propertyValue, new PressLeft(), defaultComboMoveDuration, aliases);
                             case "middle" -> setCommand(mode.comboMap.press.builder, propertyValue, new PressMiddle(), defaultComboMoveDuration, aliases);
@@ -608,15 +670,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "release" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.release.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid release property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "left" -> setCommand(mode.comboMap.release.builder, propertyValue, new ReleaseLeft(), defaultComboMoveDuration, aliases);
                             case "middle" -> setCommand(mode.comboMap.release.builder, propertyValue, new ReleaseMiddle(), defaultComboMoveDuration, aliases);
@@ -626,15 +688,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "toggle" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.toggle.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid toggle property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "left" -> setCommand(mode.comboMap.toggle.builder, propertyValue, new ToggleLeft(), defaultComboMoveDuration, aliases);
                             case "middle" -> setCommand(mode.comboMap.toggle.builder, propertyValue, new ToggleMiddle(), defaultComboMoveDuration, aliases);
@@ -644,15 +706,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "start-wheel" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.startWheel.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid start-wheel property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.startWheel.builder, propertyValue, new StartWheelUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.startWheel.builder, propertyValue, new StartWheelDown(), defaultComboMoveDuration, aliases);
@@ -663,15 +725,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "stop-wheel" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.stopWheel.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid stop-wheel property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.stopWheel.builder, propertyValue, new StopWheelUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.stopWheel.builder, propertyValue, new StopWheelDown(), defaultComboMoveDuration, aliases);
@@ -682,15 +744,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "snap" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.snap.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid snap property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.snap.builder, propertyValue, new SnapUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.snap.builder, propertyValue, new SnapDown(), defaultComboMoveDuration, aliases);
@@ -700,16 +762,37 @@ public class ConfigurationParser {
                         }
                     }
                 }
+                case "snap-to-edge" -> {
+                    if (modePropertyKey.subPropertyName() == null)
+                        mode.comboMap.snapToEdge.parsePropertyReference(propertyKey,
+                                propertyValue, childPropertiesByParentProperty,
+                                nonRootPropertyKeys);
+                    else if (modePropertyKey.subPropertyName().isEmpty())
+                        throw new IllegalArgumentException(
+                                "Invalid snap-to-edge property key: " + propertyKey);
+                    else {
+                        switch (modePropertyKey.subPropertyName()) {
+                            // @formatter:off
+                            case "up" -> setCommand(mode.comboMap.snapToEdge.builder, propertyValue, new SnapToEdgeUp(), defaultComboMoveDuration, aliases);
+                            case "down" -> setCommand(mode.comboMap.snapToEdge.builder, propertyValue, new SnapToEdgeDown(), defaultComboMoveDuration, aliases);
+                            case "left" -> setCommand(mode.comboMap.snapToEdge.builder, propertyValue, new SnapToEdgeLeft(), defaultComboMoveDuration, aliases);
+                            case "right" -> setCommand(mode.comboMap.snapToEdge.builder, propertyValue, new SnapToEdgeRight(), defaultComboMoveDuration, aliases);
+                            // @formatter:on
+                            default -> throw new IllegalArgumentException(
+                                    "Invalid snap-to-edge property key: " + propertyKey);
+                        }
+                    }
+                }
                 case "shrink-grid" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.shrinkGrid.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid shrink-grid property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.shrinkGrid.builder, propertyValue, new ShrinkGridUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.shrinkGrid.builder, propertyValue, new ShrinkGridDown(), defaultComboMoveDuration, aliases);
@@ -720,15 +803,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "move-grid" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.comboMap.moveGrid.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid move-grid property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "up" -> setCommand(mode.comboMap.moveGrid.builder, propertyValue, new MoveGridUp(), defaultComboMoveDuration, aliases);
                             case "down" -> setCommand(mode.comboMap.moveGrid.builder, propertyValue, new MoveGridDown(), defaultComboMoveDuration, aliases);
@@ -739,15 +822,15 @@ public class ConfigurationParser {
                     }
                 }
                 case "position-history" -> {
-                    if (keyMatcher.group(3) == null)
+                    if (modePropertyKey.subPropertyName() == null)
                         mode.wheel.parsePropertyReference(propertyKey, propertyValue,
                                 childPropertiesByParentProperty,
                                 nonRootPropertyKeys);
-                    else if (keyMatcher.group(4) == null)
+                    else if (modePropertyKey.subPropertyName().isEmpty())
                         throw new IllegalArgumentException(
                                 "Invalid position-history property key: " + propertyKey);
                     else {
-                        switch (keyMatcher.group(4)) {
+                        switch (modePropertyKey.subPropertyName()) {
                             // @formatter:off
                             case "save-position" -> setCommand(mode.comboMap.savePosition.builder, propertyValue, new SavePosition(), defaultComboMoveDuration, aliases);
                             case "clear" -> setCommand(mode.comboMap.clearPositionHistory.builder, propertyValue, new ClearPositionHistory(), defaultComboMoveDuration, aliases);
@@ -759,6 +842,59 @@ public class ConfigurationParser {
                         }
                     }
                 }
+                case "save-position-to-register" -> {
+                    if (modePropertyKey.subPropertyName() == null)
+                        mode.comboMap.savePositionToRegister.parsePropertyReference(
+                                propertyKey, propertyValue,
+                                childPropertiesByParentProperty, nonRootPropertyKeys);
+                    else if (modePropertyKey.subPropertyName().isEmpty())
+                        throw new IllegalArgumentException(
+                                "Invalid save-position-to-register property key: " +
+                                propertyKey);
+                    else
+                        setRegisterCommands(mode.comboMap.savePositionToRegister.builder,
+                                propertyKey, propertyValue,
+                                modePropertyKey.subPropertyName(),
+                                SavePositionToRegister::new, defaultComboMoveDuration,
+                                aliases);
+                }
+                case "jump-to-register" -> {
+                    if (modePropertyKey.subPropertyName() == null)
+                        mode.comboMap.jumpToRegister.parsePropertyReference(propertyKey,
+                                propertyValue, childPropertiesByParentProperty,
+                                nonRootPropertyKeys);
+                    else if (modePropertyKey.subPropertyName().isEmpty())
+                        throw new IllegalArgumentException(
+                                "Invalid jump-to-register property key: " + propertyKey);
+                    else
+                        setRegisterCommands(mode.comboMap.jumpToRegister.builder,
+                                propertyKey, propertyValue,
+                                modePropertyKey.subPropertyName(), JumpToRegister::new,
+                                defaultComboMoveDuration, aliases);
+                }
+                case "jump-to-nearest-position" -> {
+                    if (modePropertyKey.subPropertyName() == null)
+                        mode.comboMap.jumpToNearestPosition.parsePropertyReference(
+                                propertyKey, propertyValue,
+                                childPropertiesByParentProperty, nonRootPropertyKeys);
+                    else if (modePropertyKey.subPropertyName().isEmpty())
+                        throw new IllegalArgumentException(
+                                "Invalid jump-to-nearest-position property key: " +
+                                propertyKey);
+                    else {
+                        switch (modePropertyKey.subPropertyName()) {
+                            // @formatter:off
+                            case "up" -> setCommand(mode.comboMap.jumpToNearestPosition.builder, propertyValue, new JumpToNearestPositionUp(), defaultComboMoveDuration, aliases);
+                            case "down" -> setCommand(mode.comboMap.jumpToNearestPosition.builder, propertyValue, new JumpToNearestPositionDown(), defaultComboMoveDuration, aliases);
+                            case "left" -> setCommand(mode.comboMap.jumpToNearestPosition.builder, propertyValue, new JumpToNearestPositionLeft(), defaultComboMoveDuration, aliases);
+                            case "right" -> setCommand(mode.comboMap.jumpToNearestPosition.builder, propertyValue, new JumpToNearestPositionRight(), defaultComboMoveDuration, aliases);
+                            // @formatter:on
+                            default -> throw new IllegalArgumentException(
+                                    "Invalid jump-to-nearest-position property key: " +
+                                    propertyKey);
+                        }
+                    }
+                }
                 // @formatter:off
                 case "move-to-grid-center" -> {
                     mode.comboMap.moveToGridCenter.parseReferenceOr(propertyKey, propertyValue,
@@ -770,6 +906,7 @@ public class ConfigurationParser {
                         "Invalid mode property key: " + propertyKey);
             }
         }
+        lineNumber.set(0);
         // Verify mode name references are valid.
         for (String modeNameReference : modeReferences) {
             if (modeNameReference.equals(Mode.PREVIOUS_MODE_FROM_HISTORY_STACK_IDENTIFIER))
@@ -819,6 +956,32 @@ public class ConfigurationParser {
                 new ModeMap(modes));
     }
 
+    /**
+     * Single pass over {@code <mode name>.<property name>[.<sub property name>]}, where the
+     * mode name ends with -mode.
+     * @return null if the property key is not a mode property key.
+     */
+    private static ModePropertyKey parseModePropertyKey(String propertyKey) {
+        int firstDotIndex = propertyKey.indexOf('.');
+        if (firstDotIndex <= "-mode".length() ||
+            !propertyKey.startsWith("-mode", firstDotIndex - "-mode".length()))
+            return null;
+        int secondDotIndex = propertyKey.indexOf('.', firstDotIndex + 1);
+        int propertyNameEndIndex =
+                secondDotIndex == -1 ? propertyKey.length() : secondDotIndex;
+        if (propertyNameEndIndex == firstDotIndex + 1)
+            return null;
+        String modeName = propertyKey.substring(0, firstDotIndex);
+        String propertyName =
+                propertyKey.substring(firstDotIndex + 1, propertyNameEndIndex);
+        if (secondDotIndex == -1)
+            return new ModePropertyKey(modeName, propertyName, null);
+        if (propertyKey.indexOf('.', secondDotIndex + 1) != -1)
+            return null;
+        return new ModePropertyKey(modeName, propertyName,
+                propertyKey.substring(secondDotIndex + 1));
+    }
+
     private static void checkMissingProperties(ModeBuilder mode) {
         if (mode.timeout.builder.enabled() &&
             (mode.timeout.builder.duration() == null ||
@@ -856,6 +1019,30 @@ public class ConfigurationParser {
             case POSITION_HISTORY -> {
                 // No op.
             }
+            case ZOOM_GRID -> {
+                if (hintMeshType.zoomGridRowCount() == null ||
+                    hintMeshType.zoomGridColumnCount() == null ||
+                    hintMeshType.zoomGridDepth() == null)
+                    throw new IllegalArgumentException(
+                            "Definition of hint for " + mode.modeName +
+                            " is incomplete: expected " +
+                            List.of("zoom-grid-row-count", "zoom-grid-column-count",
+                                    "zoom-grid-depth"));
+            }
+            case EXTERNAL_TARGETS -> {
+                if (hintMeshType.externalTargetsPath() == null ||
+                    hintMeshType.maxTargetCount() == null)
+                    throw new IllegalArgumentException(
+                            "Definition of hint for " + mode.modeName +
+                            " is incomplete: expected " +
+                            List.of("external-targets-path", "max-target-count"));
+            }
+            case DETECTED_TARGETS -> {
+                if (hintMeshType.maxTargetCount() == null)
+                    throw new IllegalArgumentException(
+                            "Definition of hint for " + mode.modeName +
+                            " is incomplete: expected " + List.of("max-target-count"));
+            }
         }
         HintGridArea.HintGridAreaBuilder hintGridArea = hintMeshType.gridArea();
         switch (hintGridArea.type()) {
@@ -982,7 +1169,7 @@ public class ConfigurationParser {
         Alias alias = aliases.get(propertyValue);
         if (alias != null)
             return List.copyOf(alias.keys());
-        String[] split = propertyValue.split("\\s+");
+        String[] split = whitespacePattern.split(propertyValue);
         if (split.length <= 1)
             // Even 1 key is not enough because we use fixed-length hints.
             throw new IllegalArgumentException(
@@ -997,10 +1184,14 @@ public class ConfigurationParser {
             case "grid" -> HintMeshType.HintMeshTypeType.GRID;
             case "position-history" ->
                     HintMeshType.HintMeshTypeType.POSITION_HISTORY;
+            case "zoom-grid" -> HintMeshType.HintMeshTypeType.ZOOM_GRID;
+            case "external-targets" -> HintMeshType.HintMeshTypeType.EXTERNAL_TARGETS;
+            case "detected-targets" -> HintMeshType.HintMeshTypeType.DETECTED_TARGETS;
             default -> throw new IllegalArgumentException(
                     "Invalid property value in " + propertyKey + "=" + propertyValue +
                     ": type should be one of " +
-                    List.of("grid", "position-history"));
+                    List.of("grid", "position-history", "zoom-grid",
+                            "external-targets", "detected-targets"));
         };
     }
 
@@ -1016,6 +1207,18 @@ public class ConfigurationParser {
         };
     }
 
+    private static HintLabelStrategy parseHintLabelStrategy(String propertyKey,
+                                                            String propertyValue) {
+        return switch (propertyValue) {
+            case "fixed-length" -> HintLabelStrategy.FIXED_LENGTH;
+            case "frequency-weighted" -> HintLabelStrategy.FREQUENCY_WEIGHTED;
+            default -> throw new IllegalArgumentException(
+                    "Invalid property value in " + propertyKey + "=" + propertyValue +
+                    ": expected one of " +
+                    List.of("fixed-length", "frequency-weighted"));
+        };
+    }
+
     private static ActiveScreenHintGridAreaCenter parseActiveScreenHintGridAreaCenter(
             String propertyKey, String propertyValue) {
         return switch (propertyValue) {
@@ -1052,6 +1255,19 @@ public class ConfigurationParser {
         };
     }
 
+    private static Easing parseEasing(String propertyKey, String propertyValue) {
+        return switch (propertyValue) {
+            case "linear" -> Easing.LINEAR;
+            case "smoothstep" -> Easing.SMOOTHSTEP;
+            case "smootherstep" -> Easing.SMOOTHERSTEP;
+            case "ease-out-cubic" -> Easing.EASE_OUT_CUBIC;
+            default -> throw new IllegalArgumentException(
+                    "Invalid property value in " + propertyKey + "=" + propertyValue +
+                    ": expected one of " + List.of("linear", "smoothstep",
+                            "smootherstep", "ease-out-cubic"));
+        };
+    }
+
     private static ComboMoveDuration parseComboMoveDuration(String propertyKey, String propertyValue) {
         String[] split = propertyValue.split("-");
         if (split.length != 2)
@@ -1089,6 +1305,57 @@ public class ConfigurationParser {
                            .add(command);
     }
 
+    /**
+     * If the register name is an alias, there is one register per key of the alias, and
+     * each register is used with its key:
+     * keys=a b c
+     * mode.save-position-to-register.keys=+leftshift +keys
+     * is the same as
+     * mode.save-position-to-register.a=+leftshift +a
+     * mode.save-position-to-register.b=+leftshift +b
+     * ...
+     */
+    private static void setRegisterCommands(Map<Combo, List<Command>> commandsByCombo,
+                                            String propertyKey, String multiComboString,
+                                            String registerName,
+                                            Function<String, Command> commandFactory,
+                                            ComboMoveDuration defaultComboMoveDuration,
+                                            Map<String, Alias> aliases) {
+        Alias alias = aliases.get(registerName);
+        if (alias == null) {
+            checkRegisterName(propertyKey, registerName);
+            setCommand(commandsByCombo, multiComboString,
+                    commandFactory.apply(registerName), defaultComboMoveDuration,
+                    aliases);
+            return;
+        }
+        for (Key key : alias.keys()) {
+            checkRegisterName(propertyKey, key.name());
+            Map<String, Alias> singleKeyAliases = new HashMap<>(aliases);
+            singleKeyAliases.put(alias.name(), new Alias(alias.name(), List.of(key)));
+            setCommand(commandsByCombo, multiComboString,
+                    commandFactory.apply(key.name()), defaultComboMoveDuration,
+                    singleKeyAliases);
+        }
+    }
+
+    private static void checkRegisterName(String propertyKey, String registerName) {
+        if (registerName.getBytes(StandardCharsets.UTF_8).length >
+            PositionHistory.maxRegisterNameByteCount)
+            throw new IllegalArgumentException(
+                    "Invalid property key " + propertyKey + ": register name " +
+                    registerName + " is longer than " +
+                    PositionHistory.maxRegisterNameByteCount + " bytes");
+    }
+
+    /**
+     * @param subPropertyName null if there is no sub property, empty if the property key
+     *                        ends with a dot.
+     */
+    private record ModePropertyKey(String modeName, String propertyName,
+                                   String subPropertyName) {
+    }
+
     /**
      * Dependency tree.
      */
@@ -1159,6 +1426,8 @@ public class ConfigurationParser {
                         builder.smoothJumpEnabled(parent.smoothJumpEnabled());
                     if (builder.smoothJumpVelocity() == null)
                         builder.smoothJumpVelocity(parent.smoothJumpVelocity());
+                    if (builder.smoothJumpEasing() == null)
+                        builder.smoothJumpEasing(parent.smoothJumpEasing());
                 }
             };
             wheel = new Property<>("wheel", modeName, propertyByKey, new WheelBuilder()) {
@@ -1171,6 +1440,10 @@ public class ConfigurationParser {
                         builder.maxVelocity(parent.maxVelocity());
                     if (builder.acceleration() == null)
                         builder.acceleration(parent.acceleration());
+                    if (builder.momentumEnabled() == null)
+                        builder.momentumEnabled(parent.momentumEnabled());
+                    if (builder.momentumFriction() == null)
+                        builder.momentumFriction(parent.momentumFriction());
                 }
             };
             grid = new Property<>("grid", modeName, propertyByKey,
@@ -1230,8 +1503,20 @@ public class ConfigurationParser {
                         builder.type().gridCellWidth(parent.type().gridCellWidth());
                     if (builder.type().gridCellHeight() == null)
                         builder.type().gridCellHeight(parent.type().gridCellHeight());
+                    if (builder.type().zoomGridRowCount() == null)
+                        builder.type().zoomGridRowCount(parent.type().zoomGridRowCount());
+                    if (builder.type().zoomGridColumnCount() == null)
+                        builder.type().zoomGridColumnCount(parent.type().zoomGridColumnCount());
+                    if (builder.type().zoomGridDepth() == null)
+                        builder.type().zoomGridDepth(parent.type().zoomGridDepth());
+                    if (builder.type().externalTargetsPath() == null)
+                        builder.type().externalTargetsPath(parent.type().externalTargetsPath());
+                    if (builder.type().maxTargetCount() == null)
+                        builder.type().maxTargetCount(parent.type().maxTargetCount());
                     if (builder.selectionKeys() == null)
                         builder.selectionKeys(parent.selectionKeys());
+                    if (builder.labelStrategy() == null)
+                        builder.labelStrategy(parent.labelStrategy());
                     if (builder.undoKey() == null)
                         builder.undoKey(parent.undoKey());
                     if (builder.fontName() == null)
@@ -1324,6 +1609,7 @@ public class ConfigurationParser {
         Property<Map<Combo, List<Command>>> startWheel;
         Property<Map<Combo, List<Command>>> stopWheel;
         Property<Map<Combo, List<Command>>> snap;
+        Property<Map<Combo, List<Command>>> snapToEdge;
         Property<Map<Combo, List<Command>>> shrinkGrid;
         Property<Map<Combo, List<Command>>> moveGrid;
         Property<Map<Combo, List<Command>>> moveToGridCenter;
@@ -1331,6 +1617,9 @@ public class ConfigurationParser {
         Property<Map<Combo, List<Command>>> clearPositionHistory;
         Property<Map<Combo, List<Command>>> cycleNextPosition;
         Property<Map<Combo, List<Command>>> cyclePreviousPosition;
+        Property<Map<Combo, List<Command>>> savePositionToRegister;
+        Property<Map<Combo, List<Command>>> jumpToRegister;
+        Property<Map<Combo, List<Command>>> jumpToNearestPosition;
 
         public ComboMapConfigurationBuilder(String modeName,
                                             Map<PropertyKey, Property<?>> propertyByKey) {
@@ -1343,6 +1632,7 @@ public class ConfigurationParser {
             startWheel = new ComboMapProperty("start-wheel", modeName, propertyByKey);
             stopWheel = new ComboMapProperty("stop-wheel", modeName, propertyByKey);
             snap = new ComboMapProperty("snap", modeName, propertyByKey);
+            snapToEdge = new ComboMapProperty("snap-to-edge", modeName, propertyByKey);
             shrinkGrid = new ComboMapProperty("shrink-grid", modeName, propertyByKey);
             moveGrid = new ComboMapProperty("move-grid", modeName, propertyByKey);
             moveToGridCenter = new ComboMapProperty("move-grid-to-center", modeName, propertyByKey);
@@ -1350,6 +1640,9 @@ public class ConfigurationParser {
             clearPositionHistory = new ComboMapProperty("clear", modeName, propertyByKey);
             cycleNextPosition = new ComboMapProperty("cycle-next", modeName, propertyByKey);
             cyclePreviousPosition = new ComboMapProperty("cycle-previous", modeName, propertyByKey);
+            savePositionToRegister = new ComboMapProperty("save-position-to-register", modeName, propertyByKey);
+            jumpToRegister = new ComboMapProperty("jump-to-register", modeName, propertyByKey);
+            jumpToNearestPosition = new ComboMapProperty("jump-to-nearest-position", modeName, propertyByKey);
         }
 
         private static class ComboMapProperty extends Property<Map<Combo, List<Command>>> {
@@ -1378,6 +1671,7 @@ public class ConfigurationParser {
             add(commandsByCombo, startWheel.builder);
             add(commandsByCombo, stopWheel.builder);
             add(commandsByCombo, snap.builder);
+            add(commandsByCombo, snapToEdge.builder);
             add(commandsByCombo, shrinkGrid.builder);
             add(commandsByCombo, moveGrid.builder);
             add(commandsByCombo, moveToGridCenter.builder);
@@ -1385,6 +1679,9 @@ public class ConfigurationParser {
             add(commandsByCombo, clearPositionHistory.builder);
             add(commandsByCombo, cycleNextPosition.builder);
             add(commandsByCombo, cyclePreviousPosition.builder);
+            add(commandsByCombo, savePositionToRegister.builder);
+            add(commandsByCombo, jumpToRegister.builder);
+            add(commandsByCombo, jumpToNearestPosition.builder);
             return commandsByCombo;
         }
 
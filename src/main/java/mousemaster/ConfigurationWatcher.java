@@ -0,0 +1,85 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watches the configuration file and parses it on its own (virtual) thread, so that the
+ * main loop never waits for I/O or parsing.
+ * Editors often write a file in several steps: a change is only parsed once the file
+ * has not been modified for the debounce duration.
+ */
+public class ConfigurationWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationWatcher.class);
+    private static final Duration debounceDuration = Duration.ofMillis(100);
+
+    private final Path configurationPath;
+    private final WatchService watchService;
+    /**
+     * Latest successfully parsed configuration not yet taken by the main loop.
+     */
+    private final AtomicReference<Configuration> pendingConfiguration =
+            new AtomicReference<>();
+
+    public ConfigurationWatcher(Path configurationPath) throws IOException {
+        this.configurationPath = configurationPath;
+        watchService = FileSystems.getDefault().newWatchService();
+        configurationPath.toAbsolutePath()
+                         .getParent()
+                         .register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("configuration-watcher").start(this::watch);
+    }
+
+    /**
+     * @return null if the configuration has not changed since the last call.
+     */
+    public Configuration pollConfiguration() {
+        return pendingConfiguration.getAndSet(null);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!configurationFileModified(watchService.take()))
+                    continue;
+                WatchKey key;
+                while ((key = watchService.poll(debounceDuration.toMillis(),
+                        TimeUnit.MILLISECONDS)) != null)
+                    configurationFileModified(key);
+                logger.info("Configuration file " + configurationPath + " has changed");
+                try {
+                    pendingConfiguration.set(ConfigurationParser.parse(configurationPath));
+                } catch (Exception e) {
+                    logger.error(
+                            "Unable to load configuration file " + configurationPath, e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.info("Stopped watching configuration file " + configurationPath);
+        }
+    }
+
+    private boolean configurationFileModified(WatchKey key) {
+        boolean configurationFileModified = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path && path.getFileName()
+                                                            .toString()
+                                                            .equals(configurationPath.getFileName()
+                                                                                     .toString()))
+                configurationFileModified = true;
+        }
+        key.reset();
+        return configurationFileModified;
+    }
+
+}
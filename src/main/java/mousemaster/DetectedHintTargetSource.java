@@ -0,0 +1,61 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Targets found by {@link TargetDetector} in a screenshot of the screen, on a new thread.
+ */
+public class DetectedHintTargetSource implements HintTargetSource {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(DetectedHintTargetSource.class);
+
+    private final Rectangle screenRectangle;
+    private volatile boolean closed;
+
+    public DetectedHintTargetSource(Rectangle screenRectangle) {
+        this.screenRectangle = screenRectangle;
+    }
+
+    @Override
+    public void open(Consumer<Point> targetConsumer) {
+        Thread thread = new Thread(() -> detect(targetConsumer), "hint-target-detection");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void detect(Consumer<Point> targetConsumer) {
+        try {
+            long captureBeginNanoTime = System.nanoTime();
+            int[] pixels = WindowsScreenCapture.capture(screenRectangle);
+            long detectionBeginNanoTime = System.nanoTime();
+            List<Point> targets = TargetDetector.detect(pixels, screenRectangle.width(),
+                    screenRectangle.height());
+            logger.debug("Detected " + targets.size() + " hint targets in " +
+                         LatencyHistogram.formatNanos(
+                                 System.nanoTime() - detectionBeginNanoTime) +
+                         " (capture " + LatencyHistogram.formatNanos(
+                    detectionBeginNanoTime - captureBeginNanoTime) + ")");
+            for (Point target : targets) {
+                if (closed)
+                    return;
+                targetConsumer.accept(new Point(screenRectangle.x() + target.x(),
+                        screenRectangle.y() + target.y()));
+            }
+        } catch (Throwable e) {
+            // Including an Error, e.g. a JNA structure that is not registered for
+            // reflection in the native image (see reflect-config.json).
+            logger.error("Unable to detect hint targets", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+}
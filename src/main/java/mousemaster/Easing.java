@@ -0,0 +1,39 @@
+package mousemaster;
+
+/**
+ * Maps the linear progress of a smooth jump (0 to 1) to an eased progress (0 to 1).
+ */
+public enum Easing {
+
+    LINEAR {
+        @Override
+        public double apply(double progress) {
+            return progress;
+        }
+    },
+    SMOOTHSTEP {
+        @Override
+        public double apply(double progress) {
+            return progress * progress * (3 - 2 * progress);
+        }
+    },
+    /**
+     * Ken Perlin's smootherstep.
+     */
+    SMOOTHERSTEP {
+        @Override
+        public double apply(double progress) {
+            return progress * progress * progress * (progress * (progress * 6 - 15) + 10);
+        }
+    },
+    EASE_OUT_CUBIC {
+        @Override
+        public double apply(double progress) {
+            double remaining = 1 - progress;
+            return 1 - remaining * remaining * remaining;
+        }
+    };
+
+    public abstract double apply(double progress);
+
+}
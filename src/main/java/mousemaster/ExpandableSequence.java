@@ -2,45 +2,88 @@ package mousemaster;
 
 import java.time.Duration;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public record ExpandableSequence(List<ComboAliasMove> moves) {
 
+    private static final Pattern whitespacePattern = Pattern.compile("\\s+");
+
     static ExpandableSequence parseSequence(String movesString,
                                             ComboMoveDuration defaultMoveDuration,
                                             Map<String, Alias> aliases) {
-        String[] moveStrings = movesString.split("\\s+");
-        List<ComboAliasMove> moves = new ArrayList<>();
-        for (String moveString : moveStrings) {
-            // +leftctrl
-            // +leftctrl-0-250
-            // +leftctrl-1000
-            Matcher matcher = Pattern.compile("([+\\-#])([^-]+?)(-(\\d+)(-(\\d+))?)?")
-                                     .matcher(moveString);
-            if (!matcher.matches())
-                throw new IllegalArgumentException("Invalid move: " + moveString);
-            boolean press = !moveString.startsWith("-");
-            ComboMoveDuration moveDuration;
-            if (matcher.group(3) == null)
-                moveDuration = defaultMoveDuration;
-            else
-                moveDuration = new ComboMoveDuration(
-                        Duration.ofMillis(Integer.parseUnsignedInt(matcher.group(4))),
-                        matcher.group(6) == null ? null : Duration.ofMillis(
-                                Integer.parseUnsignedInt(matcher.group(6))));
-            String aliasName = matcher.group(2);
-            ComboAliasMove move;
-            if (press) {
-                boolean eventMustBeEaten = moveString.startsWith("+");
-                move = new ComboAliasMove.PressComboAliasMove(aliasName, eventMustBeEaten,
-                        moveDuration);
+        String[] moveStrings = whitespacePattern.split(movesString);
+        List<ComboAliasMove> moves = new ArrayList<>(moveStrings.length);
+        for (String moveString : moveStrings)
+            moves.add(parseMove(moveString, defaultMoveDuration));
+        return new ExpandableSequence(moves);
+    }
+
+    /**
+     * Single pass over the move string:
+     * +leftctrl
+     * +leftctrl-0-250
+     * +leftctrl-1000
+     * (+ can also be - for a release, or # for a press that is not eaten).
+     */
+    private static ComboAliasMove parseMove(String moveString,
+                                            ComboMoveDuration defaultMoveDuration) {
+        if (moveString.isEmpty() || "+-#".indexOf(moveString.charAt(0)) == -1)
+            throw invalidMove(moveString, 0, "expected +, - or #");
+        int aliasNameEndIndex = moveString.indexOf('-', 1);
+        if (aliasNameEndIndex == -1)
+            aliasNameEndIndex = moveString.length();
+        if (aliasNameEndIndex == 1)
+            throw invalidMove(moveString, 1, "expected a key or alias name");
+        String aliasName = moveString.substring(1, aliasNameEndIndex);
+        ComboMoveDuration moveDuration;
+        if (aliasNameEndIndex == moveString.length())
+            moveDuration = defaultMoveDuration;
+        else {
+            int minDurationBeginIndex = aliasNameEndIndex + 1;
+            int minDurationEndIndex = digitsEndIndex(moveString, minDurationBeginIndex);
+            if (minDurationEndIndex == minDurationBeginIndex)
+                throw invalidMove(moveString, minDurationBeginIndex,
+                        "expected a minimum duration in milliseconds");
+            Duration maxDuration = null;
+            if (minDurationEndIndex != moveString.length()) {
+                if (moveString.charAt(minDurationEndIndex) != '-')
+                    throw invalidMove(moveString, minDurationEndIndex, "expected -");
+                int maxDurationBeginIndex = minDurationEndIndex + 1;
+                int maxDurationEndIndex = digitsEndIndex(moveString, maxDurationBeginIndex);
+                if (maxDurationEndIndex == maxDurationBeginIndex)
+                    throw invalidMove(moveString, maxDurationBeginIndex,
+                            "expected a maximum duration in milliseconds");
+                if (maxDurationEndIndex != moveString.length())
+                    throw invalidMove(moveString, maxDurationEndIndex,
+                            "unexpected character");
+                maxDuration = Duration.ofMillis(Integer.parseUnsignedInt(moveString,
+                        maxDurationBeginIndex, maxDurationEndIndex, 10));
             }
-            else
-                move = new ComboAliasMove.ReleaseComboAliasMove(aliasName, moveDuration);
-            moves.add(move);
+            moveDuration = new ComboMoveDuration(
+                    Duration.ofMillis(Integer.parseUnsignedInt(moveString,
+                            minDurationBeginIndex, minDurationEndIndex, 10)),
+                    maxDuration);
         }
-        return new ExpandableSequence(moves);
+        return switch (moveString.charAt(0)) {
+            case '-' -> new ComboAliasMove.ReleaseComboAliasMove(aliasName, moveDuration);
+            default -> new ComboAliasMove.PressComboAliasMove(aliasName,
+                    moveString.charAt(0) == '+', moveDuration);
+        };
+    }
+
+    private static int digitsEndIndex(String string, int beginIndex) {
+        int index = beginIndex;
+        while (index < string.length() && string.charAt(index) >= '0' &&
+               string.charAt(index) <= '9')
+            index++;
+        return index;
+    }
+
+    private static IllegalArgumentException invalidMove(String moveString, int index,
+                                                        String reason) {
+        return new IllegalArgumentException(
+                "Invalid move: " + moveString + " (column " + (index + 1) + ": " +
+                reason + ")");
     }
 
     public List<ComboSequence> expand(Map<String, Alias> aliases) {
@@ -0,0 +1,86 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Targets read from a file or a named pipe, written by another program (e.g. a UI
+ * element detector). One target per line, in screen coordinates: x y
+ * The file is read on a new thread until its end, or until the source is closed: closing
+ * interrupts the thread, which closes the (interruptible) file channel and ends a read
+ * that is blocked waiting for the next line of a pipe.
+ */
+public class ExternalHintTargetSource implements HintTargetSource {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(ExternalHintTargetSource.class);
+
+    private static final Pattern whitespacePattern = Pattern.compile("\\s+");
+
+    private final Path path;
+    private Thread thread;
+    private volatile boolean closed;
+
+    public ExternalHintTargetSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void open(Consumer<Point> targetConsumer) {
+        thread = new Thread(() -> read(targetConsumer),
+                "hint-targets-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void read(Consumer<Point> targetConsumer) {
+        // Unlike the stream of Files.newInputStream, a stream over a FileChannel is
+        // interruptible.
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Channels.newInputStream(FileChannel.open(path)),
+                StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            String line;
+            while (!closed && (line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty())
+                    continue;
+                String[] split = whitespacePattern.split(line);
+                try {
+                    if (split.length != 2)
+                        throw new NumberFormatException();
+                    Point target = new Point(Integer.parseInt(split[0]),
+                            Integer.parseInt(split[1]));
+                    if (!closed)
+                        targetConsumer.accept(target);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid hint target at line " + lineNumber +
+                                " of " + path + ": expected <x> <y>, got " + line);
+                }
+            }
+        } catch (IOException e) {
+            // ClosedByInterruptException if the source was closed.
+            if (!closed)
+                logger.error("Unable to read hint targets from " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null)
+            thread.interrupt();
+    }
+
+}
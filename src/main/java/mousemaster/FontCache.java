@@ -0,0 +1,75 @@
+package mousemaster;
+
+import java.util.*;
+
+/**
+ * Installed font families are enumerated once, when first needed. Fonts (and the size of
+ * the texts drawn with them) are kept for the most recently used (name, size, DPI), the
+ * least recently used font is deleted when there are too many.
+ * Everything is forgotten when the installed fonts change (WM_FONTCHANGE).
+ * @param <F> font handle
+ */
+public class FontCache<F> {
+
+    private final FontProvider<F> fontProvider;
+    private final int maxFontCount;
+    private Set<String> fontFamilyNames;
+    private final LinkedHashMap<FontKey, CachedFont<F>> fontByKey =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    public FontCache(FontProvider<F> fontProvider, int maxFontCount) {
+        this.fontProvider = fontProvider;
+        this.maxFontCount = maxFontCount;
+    }
+
+    public synchronized boolean fontExists(String fontName) {
+        if (fontFamilyNames == null)
+            fontFamilyNames = Set.copyOf(fontProvider.fontFamilyNames());
+        return fontFamilyNames.contains(fontName.toLowerCase(Locale.ENGLISH));
+    }
+
+    public synchronized F font(FontKey fontKey) {
+        return cachedFont(fontKey).font();
+    }
+
+    public synchronized TextSize textSize(FontKey fontKey, String text) {
+        CachedFont<F> cachedFont = cachedFont(fontKey);
+        return cachedFont.textSizeByText()
+                         .computeIfAbsent(text,
+                                 text1 -> fontProvider.textSize(cachedFont.font(), text1));
+    }
+
+    private CachedFont<F> cachedFont(FontKey fontKey) {
+        CachedFont<F> cachedFont = fontByKey.get(fontKey);
+        if (cachedFont != null)
+            return cachedFont;
+        cachedFont = new CachedFont<>(fontProvider.createFont(fontKey), new HashMap<>());
+        fontByKey.put(fontKey, cachedFont);
+        if (fontByKey.size() > maxFontCount) {
+            Iterator<CachedFont<F>> iterator = fontByKey.values().iterator();
+            fontProvider.deleteFont(iterator.next().font());
+            iterator.remove();
+        }
+        return cachedFont;
+    }
+
+    public synchronized void invalidate() {
+        fontFamilyNames = null;
+        for (CachedFont<F> cachedFont : fontByKey.values())
+            fontProvider.deleteFont(cachedFont.font());
+        fontByKey.clear();
+    }
+
+    /**
+     * @param size in points.
+     */
+    public record FontKey(String name, int size, int dpi) {
+    }
+
+    public record TextSize(int width, int height) {
+    }
+
+    private record CachedFont<F>(F font, Map<String, TextSize> textSizeByText) {
+    }
+
+}
@@ -0,0 +1,22 @@
+package mousemaster;
+
+import java.util.Set;
+
+/**
+ * Operating system side of {@link FontCache}.
+ * @param <F> font handle
+ */
+public interface FontProvider<F> {
+
+    /**
+     * @return lower case names of all installed font families.
+     */
+    Set<String> fontFamilyNames();
+
+    F createFont(FontCache.FontKey fontKey);
+
+    FontCache.TextSize textSize(F font, String text);
+
+    void deleteFont(F font);
+
+}
@@ -0,0 +1,215 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Prefix-free hint labels that are shorter for the hints where selections happen more
+ * often: k-ary Huffman codes, k being the number of selection keys.
+ * Selected hint positions are recorded in a heat map of square cells, and each new
+ * selection weighs a little more than the previous one so that old selections fade out.
+ * Labels are only recomputed (in the background) when the heat map has shifted
+ * noticeably since the labels were computed, so that they do not change after every
+ * selection.
+ */
+public class FrequencyWeightedHintLabels {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(FrequencyWeightedHintLabels.class);
+
+    private static final int heatCellSize = 64;
+    /**
+     * The weight of a selection halves after 200 newer selections.
+     */
+    private static final double selectionWeightGrowth = Math.pow(2, 1d / 200);
+    /**
+     * Minimum total variation distance between the heat map and the heat map the labels
+     * were computed with, for the labels to be recomputed.
+     */
+    private static final double minHeatShift = 0.1;
+    /**
+     * Part of the weight of each hint that does not depend on the heat map, so that hints
+     * that were never selected still get reasonably short labels.
+     */
+    private static final double baseWeight = 0.2;
+
+    private final Map<Long, Double> heatByCell = new HashMap<>();
+    private double selectionWeight = 1;
+    private double totalHeat;
+    /**
+     * Normalized heat map the labels were computed with.
+     */
+    private Map<Long, Double> labelsHeatByCell = Map.of();
+    private volatile Labels labels;
+    private volatile boolean recomputing;
+
+    public void recordSelection(int x, int y) {
+        heatByCell.merge(cell(x, y), selectionWeight, Double::sum);
+        totalHeat += selectionWeight;
+        selectionWeight *= selectionWeightGrowth;
+        if (selectionWeight > 1e100) {
+            heatByCell.replaceAll((cell, heat) -> heat / selectionWeight);
+            totalHeat /= selectionWeight;
+            selectionWeight = 1;
+        }
+        Labels labels = this.labels;
+        if (labels == null || recomputing || heatShift() < minHeatShift)
+            return;
+        recomputing = true;
+        double[] weights = weights(labels.points());
+        labelsHeatByCell = normalizedHeatByCell();
+        CompletableFuture.runAsync(() -> {
+            this.labels = new Labels(labels.points(), labels.keys(),
+                    huffmanKeySequences(weights, labels.keys()));
+            logAverageKeystrokes(weights, this.labels);
+        }).whenComplete((result, e) -> {
+            if (e != null)
+                logger.error("Unable to recompute hint labels", e);
+            recomputing = false;
+        });
+    }
+
+    /**
+     * @return the labels of the hints, in the same order as the points.
+     */
+    public List<List<Key>> keySequences(List<Point> points, List<Key> keys) {
+        Labels labels = this.labels;
+        if (labels != null && labels.points().equals(points) &&
+            labels.keys().equals(keys))
+            return labels.keySequences();
+        double[] weights = weights(points);
+        labelsHeatByCell = normalizedHeatByCell();
+        labels = new Labels(List.copyOf(points), List.copyOf(keys),
+                huffmanKeySequences(weights, keys));
+        this.labels = labels;
+        logAverageKeystrokes(weights, labels);
+        return labels.keySequences();
+    }
+
+    private double[] weights(List<Point> points) {
+        double[] weights = new double[points.size()];
+        for (int pointIndex = 0; pointIndex < points.size(); pointIndex++) {
+            Point point = points.get(pointIndex);
+            double heat = totalHeat == 0 ? 0 :
+                    heatByCell.getOrDefault(cell(point.x(), point.y()), 0d) / totalHeat;
+            weights[pointIndex] = heat + baseWeight / points.size();
+        }
+        return weights;
+    }
+
+    private Map<Long, Double> normalizedHeatByCell() {
+        Map<Long, Double> normalizedHeatByCell = new HashMap<>(heatByCell);
+        normalizedHeatByCell.replaceAll((cell, heat) -> heat / totalHeat);
+        return normalizedHeatByCell;
+    }
+
+    /**
+     * Total variation distance between the heat map and the heat map the labels were
+     * computed with.
+     */
+    private double heatShift() {
+        double shift = 0;
+        for (Map.Entry<Long, Double> entry : heatByCell.entrySet())
+            shift += Math.abs(entry.getValue() / totalHeat -
+                              labelsHeatByCell.getOrDefault(entry.getKey(), 0d));
+        for (Map.Entry<Long, Double> entry : labelsHeatByCell.entrySet()) {
+            if (!heatByCell.containsKey(entry.getKey()))
+                shift += entry.getValue();
+        }
+        return shift / 2;
+    }
+
+    private static long cell(int x, int y) {
+        return (long) Math.floorDiv(x, heatCellSize) << 32 |
+               Math.floorDiv(y, heatCellSize) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Compares the average number of keystrokes per selection with the one of
+     * fixed-length labels. It is an estimate: it assumes selections follow the heat map.
+     */
+    private void logAverageKeystrokes(double[] weights, Labels labels) {
+        int hintCount = weights.length;
+        int keyCount = labels.keys().size();
+        int fixedLength = hintCount == 1 ? 1 :
+                (int) Math.ceil(Math.log(hintCount) / Math.log(keyCount));
+        double totalWeight = 0;
+        double totalKeystrokes = 0;
+        for (int hintIndex = 0; hintIndex < hintCount; hintIndex++) {
+            totalWeight += weights[hintIndex];
+            totalKeystrokes +=
+                    weights[hintIndex] * labels.keySequences().get(hintIndex).size();
+        }
+        logger.info(String.format(
+                "Computed frequency-weighted labels for %d hints: an estimated %.2f keystrokes per selection on average, %d with fixed-length labels",
+                hintCount, totalKeystrokes / totalWeight, fixedLength));
+    }
+
+    /**
+     * The heaviest child of each node gets the first key.
+     */
+    static List<List<Key>> huffmanKeySequences(double[] weights, List<Key> keys) {
+        int hintCount = weights.length;
+        int keyCount = keys.size();
+        if (hintCount == 1)
+            return List.of(List.of(keys.getFirst()));
+        PriorityQueue<HuffmanNode> queue = new PriorityQueue<>(
+                Comparator.comparingDouble(HuffmanNode::weight)
+                          .thenComparingInt(HuffmanNode::order));
+        int order = 0;
+        for (int hintIndex = 0; hintIndex < hintCount; hintIndex++)
+            queue.add(new HuffmanNode(weights[hintIndex], order++, hintIndex, List.of()));
+        // Padding leaves so that every node has exactly keyCount children.
+        int paddingLeafCount = (keyCount - 1 - (hintCount - 1) % (keyCount - 1)) %
+                               (keyCount - 1);
+        for (int paddingLeafIndex = 0;
+             paddingLeafIndex < paddingLeafCount; paddingLeafIndex++)
+            queue.add(new HuffmanNode(0, order++, -1, List.of()));
+        while (queue.size() > 1) {
+            List<HuffmanNode> children = new ArrayList<>(keyCount);
+            double weight = 0;
+            for (int childIndex = 0; childIndex < keyCount; childIndex++) {
+                HuffmanNode child = queue.poll();
+                children.add(child);
+                weight += child.weight();
+            }
+            Collections.reverse(children);
+            queue.add(new HuffmanNode(weight, order++, -1, children));
+        }
+        List<List<Key>> keySequences = new ArrayList<>(
+                Collections.nCopies(hintCount, null));
+        assignKeySequences(queue.poll(), new ArrayList<>(), keys, keySequences);
+        return keySequences;
+    }
+
+    private static void assignKeySequences(HuffmanNode node, List<Key> keySequence,
+                                           List<Key> keys,
+                                           List<List<Key>> keySequences) {
+        if (node.children().isEmpty()) {
+            if (node.hintIndex() != -1)
+                keySequences.set(node.hintIndex(), List.copyOf(keySequence));
+            return;
+        }
+        for (int childIndex = 0; childIndex < node.children().size(); childIndex++) {
+            keySequence.add(keys.get(childIndex));
+            assignKeySequences(node.children().get(childIndex), keySequence, keys,
+                    keySequences);
+            keySequence.removeLast();
+        }
+    }
+
+    /**
+     * @param hintIndex -1 for internal and padding nodes.
+     */
+    private record HuffmanNode(double weight, int order, int hintIndex,
+                               List<HuffmanNode> children) {
+    }
+
+    private record Labels(List<Point> points, List<Key> keys,
+                          List<List<Key>> keySequences) {
+    }
+
+}
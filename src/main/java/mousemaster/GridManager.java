@@ -11,14 +11,17 @@ public class GridManager implements MousePositionListener, ModeListener {
 
     private final ScreenManager screenManager;
     private final MouseController mouseController;
+    private final ScreenEdgeMapCache screenEdgeMapCache;
     private List<GridListener> listeners;
     private Grid grid;
     private int mouseX, mouseY;
     private Mode currentMode;
 
-    public GridManager(ScreenManager screenManager, MouseController mouseController) {
+    public GridManager(ScreenManager screenManager, MouseController mouseController,
+                       ScreenEdgeMapCache screenEdgeMapCache) {
         this.screenManager = screenManager;
         this.mouseController = mouseController;
+        this.screenEdgeMapCache = screenEdgeMapCache;
     }
 
     public void setListeners(List<GridListener> listeners) {
@@ -201,6 +204,57 @@ public class GridManager implements MousePositionListener, ModeListener {
         listeners.forEach(GridListener::snappedToGrid);
     }
 
+    public void snapToEdgeUp() {
+        snapToEdge(false, false);
+    }
+
+    public void snapToEdgeDown() {
+        snapToEdge(false, true);
+    }
+
+    public void snapToEdgeLeft() {
+        snapToEdge(true, false);
+    }
+
+    public void snapToEdgeRight() {
+        snapToEdge(true, true);
+    }
+
+    /**
+     * Moves the mouse to the next edge (a change of contrast, like the border of a button
+     * or of a text field) of the active screen. The edge map is refreshed in the
+     * background when a mode with snap-to-edge commands is entered and after each snap,
+     * for the next one. If the first edge map of the screen is not ready yet, nothing
+     * happens.
+     */
+    private void snapToEdge(boolean horizontal, boolean forward) {
+        if (mouseController.jumping(horizontal, forward))
+            return;
+        Rectangle screenRectangle = screenManager.activeScreen().rectangle();
+        ScreenEdgeMap edgeMap = screenEdgeMapCache.edgeMap(screenRectangle);
+        if (edgeMap == null)
+            return;
+        Point edge = edgeMap.nextEdge(mouseX, mouseY, horizontal, forward);
+        screenEdgeMapCache.refresh(screenRectangle);
+        if (edge == null)
+            return;
+        moveMouseTo(edge.x(), edge.y());
+        listeners.forEach(GridListener::snappedToGrid);
+    }
+
+    private static boolean hasSnapToEdgeCommand(Mode mode) {
+        for (List<Command> commands : mode.comboMap().commandsByCombo().values()) {
+            for (Command command : commands) {
+                if (command instanceof Command.SnapToEdgeUp ||
+                    command instanceof Command.SnapToEdgeDown ||
+                    command instanceof Command.SnapToEdgeLeft ||
+                    command instanceof Command.SnapToEdgeRight)
+                    return true;
+            }
+        }
+        return false;
+    }
+
     private int mouseColumnX(int mouseColumn, int cellWidth) {
         int x;
         if (mouseColumn <= 0)
@@ -246,6 +300,9 @@ public class GridManager implements MousePositionListener, ModeListener {
 
     @Override
     public void modeChanged(Mode newMode) {
+        // The screen may have changed since the last snap.
+        if (hasSnapToEdgeCommand(newMode))
+            screenEdgeMapCache.refresh(screenManager.activeScreen().rectangle());
         GridConfiguration gridConfiguration = newMode.grid();
         GridBuilder gridBuilder = //
                 new GridBuilder().rowCount(gridConfiguration.rowCount())
@@ -0,0 +1,14 @@
+package mousemaster;
+
+public enum HintLabelStrategy {
+
+    /**
+     * All hints have labels of the same length.
+     */
+    FIXED_LENGTH,
+    /**
+     * See {@link FrequencyWeightedHintLabels}.
+     */
+    FREQUENCY_WEIGHTED
+
+}
@@ -4,10 +4,14 @@ import mousemaster.HintGridArea.ActiveScreenHintGridArea;
 import mousemaster.HintGridArea.ActiveWindowHintGridArea;
 import mousemaster.HintGridArea.AllScreensHintGridArea;
 import mousemaster.HintMesh.HintMeshBuilder;
+import mousemaster.HintMeshType.HintZoomGrid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class HintManager implements ModeListener, MousePositionListener {
@@ -16,28 +20,62 @@ public class HintManager implements ModeListener, MousePositionListener {
 
     private final ScreenManager screenManager;
     private final MouseController mouseController;
+    private final StateStore stateStore;
+    private final Overlay overlay;
     private ModeController modeController;
     private List<PositionHistoryListener> positionHistoryListeners;
     private HintMesh hintMesh;
     private Set<Key> selectionKeySubset;
+    /**
+     * When the hint mesh was last shown with an empty focused key sequence.
+     */
+    private long hintMeshShownNanoTime;
     private final Map<HintMeshTypeAndSelectionKeys, HintMesh>
             previousHintMeshByTypeAndSelectionKeys = new HashMap<>();
     private int mouseX, mouseY;
     private Mode currentMode;
-    private final List<Point> positionHistory = new ArrayList<>();
-    private final int maxPositionHistorySize;
+    private final PositionHistory positionHistory;
+    private final FrequencyWeightedHintLabels frequencyWeightedHintLabels;
+    private int positionCycleIndex = 0;
     /**
-     * Used for deterministic hint key sequences.
+     * Cells of each zoom level when the hint mesh is a zoom grid. The hints are the cells
+     * of the last level.
      */
-    private int positionIdCount = 0;
-    private final Map<Point, Integer> idByPosition = new HashMap<>();
-    private int positionCycleIndex = 0;
+    private final List<List<Rectangle>> zoomGridCellsByLevel = new ArrayList<>();
+    private int zoomGridLastLevel;
+    /**
+     * Open while the hint mesh type is a {@link HintMeshType.HintTargets}.
+     */
+    private HintTargetSource hintTargetSource;
+    private HintMeshType.HintTargets hintTargetSourceType;
+    private Function<HintMeshType.HintTargets, HintTargetSource> hintTargetSourceFactory =
+            this::newHintTargetSource;
+    /**
+     * Filled by the source (possibly on another thread), drained on each update.
+     */
+    private Queue<Point> receivedHintTargets;
+    private final List<Point> hintTargets = new ArrayList<>();
 
-    public HintManager(int maxPositionHistorySize, ScreenManager screenManager,
-                       MouseController mouseController) {
-        this.maxPositionHistorySize = maxPositionHistorySize;
+    public HintManager(PositionHistory positionHistory,
+                       FrequencyWeightedHintLabels frequencyWeightedHintLabels,
+                       ScreenManager screenManager, MouseController mouseController,
+                       StateStore stateStore, Overlay overlay) {
+        this.positionHistory = positionHistory;
+        this.frequencyWeightedHintLabels = frequencyWeightedHintLabels;
+        positionCycleIndex = Math.max(0, positionHistory.size() - 1);
         this.screenManager = screenManager;
         this.mouseController = mouseController;
+        this.stateStore = stateStore;
+        this.overlay = overlay;
+    }
+
+    /**
+     * Replaces the sources of the hint target types, e.g. with a source that does not
+     * need a screen or another program.
+     */
+    void setHintTargetSourceFactory(
+            Function<HintMeshType.HintTargets, HintTargetSource> hintTargetSourceFactory) {
+        this.hintTargetSourceFactory = hintTargetSourceFactory;
     }
 
     public void setPositionHistoryListener(
@@ -61,31 +99,32 @@ public class HintManager implements ModeListener, MousePositionListener {
     public void modeChanged(Mode newMode) {
         HintMeshConfiguration hintMeshConfiguration = newMode.hintMesh();
         if (!hintMeshConfiguration.enabled()) {
+            closeHintTargetSource();
             currentMode = newMode;
             previousHintMeshByTypeAndSelectionKeys.clear();
-            WindowsOverlay.hideHintMesh();
+            overlay.hideHintMesh();
+            stateStore.keyProcessingChanged();
             return;
         }
         if (!hintMeshConfiguration.visible()) {
             // This makes the behavior of the hint different depending on whether it is visible.
             // An alternative would be a setting like hint.reset-focused-key-sequence-history=true.
             previousHintMeshByTypeAndSelectionKeys.clear();
-            WindowsOverlay.hideHintMesh();
+            overlay.hideHintMesh();
         }
         HintMesh newHintMesh = buildHintMesh(hintMeshConfiguration);
         if (currentMode != null && newMode.hintMesh().equals(currentMode.hintMesh()) &&
             newHintMesh.equals(hintMesh))
             return;
-        selectionKeySubset = newHintMesh.hints()
-                                        .stream()
-                                        .map(Hint::keySequence)
-                                        .flatMap(Collection::stream)
-                                        .collect(Collectors.toSet());
+        selectionKeySubset = hintKeys(newHintMesh.hints());
         currentMode = newMode;
         hintMesh = newHintMesh;
+        stateStore.keyProcessingChanged();
+        if (hintMesh.focusedKeySequence().isEmpty())
+            hintMeshShownNanoTime = System.nanoTime();
         previousHintMeshByTypeAndSelectionKeys.put(
                 hintMeshConfiguration.typeAndSelectionKeys(), hintMesh);
-        WindowsOverlay.setHintMesh(hintMesh);
+        overlay.setHintMesh(hintMesh);
     }
 
     private HintMesh buildHintMesh(HintMeshConfiguration hintMeshConfiguration) {
@@ -99,6 +138,9 @@ public class HintManager implements ModeListener, MousePositionListener {
                         hintMeshConfiguration.selectedPrefixFontHexColor())
                 .boxHexColor(hintMeshConfiguration.boxHexColor());
         HintMeshType type = hintMeshConfiguration.typeAndSelectionKeys().type();
+        zoomGridCellsByLevel.clear();
+        if (!(type instanceof HintMeshType.HintTargets))
+            closeHintTargetSource();
         if (type instanceof HintMeshType.HintGrid hintGrid) {
             List<FixedSizeHintGrid> fixedSizeHintGrids = new ArrayList<>();
             if (hintGrid.area() instanceof ActiveScreenHintGridArea activeScreenHintGridArea) {
@@ -113,15 +155,7 @@ public class HintManager implements ModeListener, MousePositionListener {
                         hintGrid.cellHeight()));
             }
             else if (hintGrid.area() instanceof AllScreensHintGridArea allScreensHintGridArea) {
-                List<Screen> sortedScreens = //
-                        screenManager.screens()
-                                     .stream()
-                                     .sorted(Comparator.comparing(
-                                                               (Screen s) -> s.rectangle().x())
-                                                       .thenComparing(
-                                                               s -> s.rectangle().y()))
-                                     .toList();
-                for (Screen screen : sortedScreens) {
+                for (Screen screen : sortedScreens()) {
                     Point gridCenter = screen.rectangle().center();
                     fixedSizeHintGrids.add(
                             screenFixedSizeHintGrid(allScreensHintGridArea, screen,
@@ -173,10 +207,47 @@ public class HintManager implements ModeListener, MousePositionListener {
                 hints.addAll(buildHints(fixedSizeHintGrid, selectionKeySubset, hintLength,
                         beginHintIndex));
             }
+            if (hintMeshConfiguration.labelStrategy() ==
+                HintLabelStrategy.FREQUENCY_WEIGHTED)
+                hints = frequencyWeightedHints(hints, selectionKeySubset);
             hintMesh.hints(hints);
         }
+        else if (type instanceof HintZoomGrid hintZoomGrid) {
+            List<Rectangle> cells;
+            zoomGridLastLevel = hintZoomGrid.depth() - 1;
+            if (hintZoomGrid.area() instanceof ActiveScreenHintGridArea)
+                cells = zoomGridCells(screenManager.activeScreen().rectangle(),
+                        hintZoomGrid);
+            else if (hintZoomGrid.area() instanceof AllScreensHintGridArea) {
+                List<Screen> sortedScreens = sortedScreens();
+                if (sortedScreens.size() == 1)
+                    cells = zoomGridCells(sortedScreens.getFirst().rectangle(),
+                            hintZoomGrid);
+                else {
+                    // First level: one cell per screen.
+                    cells = sortedScreens.stream().map(Screen::rectangle).toList();
+                    zoomGridLastLevel++;
+                }
+            }
+            else if (hintZoomGrid.area() instanceof ActiveWindowHintGridArea)
+                cells = zoomGridCells(
+                        WindowsOverlay.activeWindowRectangle(1, 1, 0, 0, 0, 0),
+                        hintZoomGrid);
+            else
+                throw new IllegalStateException();
+            zoomGridCellsByLevel.add(cells);
+            hintMesh.hints(zoomGridHints(cells,
+                    hintMeshConfiguration.typeAndSelectionKeys().selectionKeys()));
+        }
+        else if (type instanceof HintMeshType.HintTargets hintTargetsType) {
+            if (!hintTargetsType.equals(hintTargetSourceType))
+                openHintTargetSource(hintTargetsType);
+            hintMesh.hints(targetHints(hintTargets, List.of(), hintTargetsType,
+                    hintMeshConfiguration.typeAndSelectionKeys().selectionKeys()));
+        }
         else {
             int hintCount = positionHistory.size();
+            int maxPositionHistorySize = positionHistory.maxSize();
             List<Hint> hints = new ArrayList<>(hintCount);
             List<Key> selectionKeySubset = maxPositionHistorySize >=
                                            hintMeshConfiguration.typeAndSelectionKeys()
@@ -188,9 +259,10 @@ public class HintManager implements ModeListener, MousePositionListener {
                                          .subList(0, maxPositionHistorySize);
             int hintLength = (int) Math.ceil(Math.log(maxPositionHistorySize) /
                                              Math.log(selectionKeySubset.size()));
-            for (Point point : positionHistory) {
+            for (int positionIndex = 0; positionIndex < hintCount; positionIndex++) {
+                Point point = positionHistory.get(positionIndex);
                 List<Key> keySequence = hintKeySequence(selectionKeySubset, hintLength,
-                        idByPosition.get(point) % maxPositionHistorySize);
+                        positionHistory.id(positionIndex) % maxPositionHistorySize);
                 hints.add(new Hint(point.x(), point.y(), keySequence));
             }
             hintMesh.hints(hints);
@@ -206,6 +278,176 @@ public class HintManager implements ModeListener, MousePositionListener {
         return hintMesh.build();
     }
 
+    private List<Hint> frequencyWeightedHints(List<Hint> hints,
+                                              List<Key> selectionKeySubset) {
+        List<Point> points = new ArrayList<>(hints.size());
+        for (Hint hint : hints)
+            points.add(new Point(hint.centerX(), hint.centerY()));
+        List<List<Key>> keySequences =
+                frequencyWeightedHintLabels.keySequences(points, selectionKeySubset);
+        List<Hint> frequencyWeightedHints = new ArrayList<>(hints.size());
+        for (int hintIndex = 0; hintIndex < hints.size(); hintIndex++) {
+            Hint hint = hints.get(hintIndex);
+            frequencyWeightedHints.add(new Hint(hint.centerX(), hint.centerY(),
+                    keySequences.get(hintIndex)));
+        }
+        return frequencyWeightedHints;
+    }
+
+    private void openHintTargetSource(HintMeshType.HintTargets hintTargetsType) {
+        closeHintTargetSource();
+        hintTargetSource = hintTargetSourceFactory.apply(hintTargetsType);
+        hintTargetSourceType = hintTargetsType;
+        // A new queue for each source: targets of a closed source that are received late
+        // end up in a queue that is no longer read.
+        Queue<Point> receivedHintTargets = new ConcurrentLinkedQueue<>();
+        this.receivedHintTargets = receivedHintTargets;
+        hintTargets.clear();
+        hintTargetSource.open(receivedHintTargets::add);
+    }
+
+    private HintTargetSource newHintTargetSource(HintMeshType.HintTargets hintTargetsType) {
+        return switch (hintTargetsType) {
+            case HintMeshType.HintExternalTargets hintExternalTargets ->
+                    new ExternalHintTargetSource(Path.of(hintExternalTargets.path()));
+            case HintMeshType.HintDetectedTargets hintDetectedTargets ->
+                    new DetectedHintTargetSource(
+                            screenManager.activeScreen().rectangle());
+        };
+    }
+
+    public void closeHintTargetSource() {
+        if (hintTargetSource == null)
+            return;
+        hintTargetSource.close();
+        hintTargetSource = null;
+        hintTargetSourceType = null;
+        receivedHintTargets = null;
+        hintTargets.clear();
+    }
+
+    /**
+     * Adds the targets received since the last update to the hint mesh.
+     */
+    public void update(double delta) {
+        if (hintTargetSource == null || hintMesh == null ||
+            !hintTargetSourceType.equals(hintMesh.type()) ||
+            receivedHintTargets.isEmpty())
+            return;
+        List<Point> newTargets = new ArrayList<>();
+        Point target;
+        while (hintTargets.size() + newTargets.size() <
+               hintTargetSourceType.maxTargetCount() &&
+               (target = receivedHintTargets.poll()) != null)
+            newTargets.add(target);
+        if (newTargets.isEmpty())
+            return;
+        hintMesh = hintMesh.builder()
+                           .hints(targetHints(newTargets, hintMesh.hints(),
+                                   hintTargetSourceType, currentMode.hintMesh()
+                                                                    .typeAndSelectionKeys()
+                                                                    .selectionKeys()))
+                           .build();
+        hintTargets.addAll(newTargets);
+        selectionKeySubset = hintKeys(hintMesh.hints());
+        stateStore.keyProcessingChanged();
+        previousHintMeshByTypeAndSelectionKeys.put(
+                currentMode.hintMesh().typeAndSelectionKeys(), hintMesh);
+        overlay.setHintMesh(hintMesh);
+    }
+
+    /**
+     * @return the existing hints followed by the hints of the new targets.
+     */
+    private static List<Hint> targetHints(List<Point> newTargets,
+                                          List<Hint> existingHints,
+                                          HintMeshType.HintTargets hintTargetsType,
+                                          List<Key> selectionKeys) {
+        int maxTargetCount = hintTargetsType.maxTargetCount();
+        List<Key> selectionKeySubset = maxTargetCount < selectionKeys.size() ?
+                selectionKeys.subList(0, maxTargetCount) : selectionKeys;
+        int hintLength = maxTargetCount == 1 ? 1 : (int) Math.ceil(
+                Math.log(maxTargetCount) / Math.log(selectionKeySubset.size()));
+        List<Hint> hints = new ArrayList<>(existingHints.size() + newTargets.size());
+        hints.addAll(existingHints);
+        for (Point target : newTargets)
+            hints.add(new Hint(target.x(), target.y(),
+                    hintKeySequence(selectionKeySubset, hintLength, hints.size())));
+        return hints;
+    }
+
+    private List<Screen> sortedScreens() {
+        return screenManager.screens()
+                            .stream()
+                            .sorted(Comparator.comparing((Screen s) -> s.rectangle().x())
+                                              .thenComparing(s -> s.rectangle().y()))
+                            .toList();
+    }
+
+    private static List<Rectangle> zoomGridCells(Rectangle area,
+                                                 HintZoomGrid hintZoomGrid) {
+        int rowCount = hintZoomGrid.rowCount();
+        int columnCount = hintZoomGrid.columnCount();
+        List<Rectangle> cells = new ArrayList<>(rowCount * columnCount);
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            int cellY = area.y() + area.height() * rowIndex / rowCount;
+            int cellHeight = area.y() + area.height() * (rowIndex + 1) / rowCount - cellY;
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                int cellX = area.x() + area.width() * columnIndex / columnCount;
+                int cellWidth =
+                        area.x() + area.width() * (columnIndex + 1) / columnCount - cellX;
+                cells.add(new Rectangle(cellX, cellY, cellWidth, cellHeight));
+            }
+        }
+        return cells;
+    }
+
+    private static List<Hint> zoomGridHints(List<Rectangle> cells,
+                                            List<Key> selectionKeys) {
+        List<Key> selectionKeySubset = cells.size() < selectionKeys.size() ?
+                selectionKeys.subList(0, cells.size()) : selectionKeys;
+        int hintLength = cells.size() == 1 ? 1 : (int) Math.ceil(
+                Math.log(cells.size()) / Math.log(selectionKeySubset.size()));
+        List<Hint> hints = new ArrayList<>(cells.size());
+        for (int cellIndex = 0; cellIndex < cells.size(); cellIndex++) {
+            Point cellCenter = cells.get(cellIndex).center();
+            hints.add(new Hint(cellCenter.x(), cellCenter.y(),
+                    hintKeySequence(selectionKeySubset, hintLength, cellIndex)));
+        }
+        return hints;
+    }
+
+    private boolean zoomGridCanZoomIn() {
+        return hintMesh.type() instanceof HintZoomGrid &&
+               zoomGridCellsByLevel.size() - 1 < zoomGridLastLevel;
+    }
+
+    private void zoomIn(Hint hint) {
+        HintZoomGrid hintZoomGrid = (HintZoomGrid) hintMesh.type();
+        Rectangle cell =
+                zoomGridCellsByLevel.getLast().get(hintMesh.hints().indexOf(hint));
+        zoomGridCellsByLevel.add(zoomGridCells(cell, hintZoomGrid));
+        showZoomGridLastLevel();
+    }
+
+    private void showZoomGridLastLevel() {
+        hintMesh = hintMesh.builder()
+                           .hints(zoomGridHints(zoomGridCellsByLevel.getLast(),
+                                   currentMode.hintMesh()
+                                              .typeAndSelectionKeys()
+                                              .selectionKeys()))
+                           .focusedKeySequence(List.of())
+                           .build();
+        selectionKeySubset = hintKeys(hintMesh.hints());
+    }
+
+    private static Set<Key> hintKeys(List<Hint> hints) {
+        return hints.stream()
+                    .map(Hint::keySequence)
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+    }
+
     private static List<Hint> buildHints(FixedSizeHintGrid fixedSizeHintGrid,
                                          List<Key> selectionKeySubset, int hintLength,
                                          int beginHintIndex) {
@@ -294,42 +536,48 @@ public class HintManager implements ModeListener, MousePositionListener {
 
     public PressKeyEventProcessing keyPressed(Key key) {
         HintMeshConfiguration hintMeshConfiguration = currentMode.hintMesh();
-        if (!hintMeshConfiguration.enabled())
-            return PressKeyEventProcessing.unhandled();
-        if (key.equals(hintMeshConfiguration.undoKey())) {
+        PressKeyEventProcessing processing = keyPressProcessing(key);
+        if (processing.isHintUndo()) {
             List<Key> focusedKeySequence = hintMesh.focusedKeySequence();
-            if (!focusedKeySequence.isEmpty()) {
+            if (focusedKeySequence.isEmpty()) {
+                // Zoom out.
+                zoomGridCellsByLevel.removeLast();
+                showZoomGridLastLevel();
+            }
+            else
                 hintMesh = hintMesh.builder()
                                    .focusedKeySequence(focusedKeySequence.subList(0,
                                            focusedKeySequence.size() - 1))
                                    .build();
-                previousHintMeshByTypeAndSelectionKeys.put(
-                        hintMeshConfiguration.typeAndSelectionKeys(), hintMesh);
-                WindowsOverlay.setHintMesh(hintMesh);
-                return PressKeyEventProcessing.hintUndo();
-            }
-            return PressKeyEventProcessing.unhandled(); // ComboWatcher can have a go at it.
+            previousHintMeshByTypeAndSelectionKeys.put(
+                    hintMeshConfiguration.typeAndSelectionKeys(), hintMesh);
+            overlay.setHintMesh(hintMesh);
         }
-        if (!selectionKeySubset.contains(key))
-            return PressKeyEventProcessing.unhandled();
-        List<Key> newFocusedKeySequence = new ArrayList<>(hintMesh.focusedKeySequence());
-        newFocusedKeySequence.add(key);
-        Hint exactMatchHint = null;
-        boolean atLeastOneHintIsStartsWithNewFocusedHintKeySequence = false;
-        for (Hint hint : hintMesh.hints()) {
-            if (hint.keySequence().size() < newFocusedKeySequence.size())
-                continue;
-            if (!hint.startsWith(newFocusedKeySequence))
-                continue;
-            atLeastOneHintIsStartsWithNewFocusedHintKeySequence = true;
-            if (hint.keySequence().size() == newFocusedKeySequence.size()) {
-                exactMatchHint = hint;
-                break;
-            }
+        else if (processing.isPartOfHintPrefix()) {
+            Hint zoomedInHint = zoomGridCanZoomIn() ?
+                    exactMatchHint(newFocusedKeySequence(key)) : null;
+            if (zoomedInHint != null)
+                zoomIn(zoomedInHint);
+            else
+                hintMesh = hintMesh.builder()
+                                   .focusedKeySequence(newFocusedKeySequence(key))
+                                   .build();
+            previousHintMeshByTypeAndSelectionKeys.put(
+                    hintMeshConfiguration.typeAndSelectionKeys(), hintMesh);
+            overlay.setHintMesh(hintMesh);
         }
-        if (!atLeastOneHintIsStartsWithNewFocusedHintKeySequence)
-            return PressKeyEventProcessing.unhandled();
-        if (exactMatchHint != null) {
+        else if (processing.handled()) {
+            Hint exactMatchHint = exactMatchHint(newFocusedKeySequence(key));
+            HintSelectedEvent hintSelectedEvent = new HintSelectedEvent();
+            if (hintSelectedEvent.shouldCommit()) {
+                hintSelectedEvent.meshSize = hintMesh.hints().size();
+                hintSelectedEvent.keystrokes = exactMatchHint.keySequence().size();
+                hintSelectedEvent.timeToSelect = System.nanoTime() - hintMeshShownNanoTime;
+                hintSelectedEvent.commit();
+            }
+            if (hintMesh.type() instanceof HintMeshType.HintGrid)
+                frequencyWeightedHintLabels.recordSelection(exactMatchHint.centerX(),
+                        exactMatchHint.centerY());
             // Move synchronously. After this moveTo call, we know the move was executed
             // and a click can be performed at the new position.
             mouseController.synchronousMoveTo(exactMatchHint.centerX(), exactMatchHint.centerY());
@@ -345,38 +593,76 @@ public class HintManager implements ModeListener, MousePositionListener {
                 modeController.switchMode(hintMeshConfiguration.modeAfterSelection());
             }
             else {
+                if (zoomGridCellsByLevel.size() > 1) {
+                    zoomGridCellsByLevel.subList(1, zoomGridCellsByLevel.size()).clear();
+                    showZoomGridLastLevel();
+                }
                 hintMesh =
                         hintMesh.builder().focusedKeySequence(List.of()).build();
+                hintMeshShownNanoTime = System.nanoTime();
                 previousHintMeshByTypeAndSelectionKeys.put(
                         hintMeshConfiguration.typeAndSelectionKeys(), hintMesh);
-                WindowsOverlay.setHintMesh(hintMesh);
+                overlay.setHintMesh(hintMesh);
             }
-            return hintMeshConfiguration.swallowHintEndKeyPress() ?
-                    PressKeyEventProcessing.swallowedHintEnd() :
-                    PressKeyEventProcessing.unswallowedHintEnd();
         }
-        else {
-            hintMesh =
-                    hintMesh.builder().focusedKeySequence(newFocusedKeySequence).build();
-            previousHintMeshByTypeAndSelectionKeys.put(
-                    hintMeshConfiguration.typeAndSelectionKeys(), hintMesh);
-            WindowsOverlay.setHintMesh(hintMesh);
-            return PressKeyEventProcessing.partOfHintPrefix();
+        return processing;
+    }
+
+    /**
+     * What keyPressed would return for the key, without changing the focused key
+     * sequence or selecting a hint.
+     */
+    public PressKeyEventProcessing keyPressProcessing(Key key) {
+        HintMeshConfiguration hintMeshConfiguration = currentMode.hintMesh();
+        if (!hintMeshConfiguration.enabled())
+            return PressKeyEventProcessing.unhandled();
+        if (key.equals(hintMeshConfiguration.undoKey())) {
+            if (!hintMesh.focusedKeySequence().isEmpty() ||
+                zoomGridCellsByLevel.size() > 1)
+                return PressKeyEventProcessing.hintUndo();
+            return PressKeyEventProcessing.unhandled(); // ComboWatcher can have a go at it.
+        }
+        if (!selectionKeySubset.contains(key))
+            return PressKeyEventProcessing.unhandled();
+        List<Key> newFocusedKeySequence = newFocusedKeySequence(key);
+        boolean atLeastOneHintIsStartsWithNewFocusedHintKeySequence = false;
+        for (Hint hint : hintMesh.hints()) {
+            if (hint.keySequence().size() < newFocusedKeySequence.size())
+                continue;
+            if (!hint.startsWith(newFocusedKeySequence))
+                continue;
+            atLeastOneHintIsStartsWithNewFocusedHintKeySequence = true;
+            if (hint.keySequence().size() == newFocusedKeySequence.size()) {
+                if (zoomGridCanZoomIn())
+                    return PressKeyEventProcessing.partOfHintPrefix();
+                return hintMeshConfiguration.swallowHintEndKeyPress() ?
+                        PressKeyEventProcessing.swallowedHintEnd() :
+                        PressKeyEventProcessing.unswallowedHintEnd();
+            }
         }
+        if (!atLeastOneHintIsStartsWithNewFocusedHintKeySequence)
+            return PressKeyEventProcessing.unhandled();
+        return PressKeyEventProcessing.partOfHintPrefix();
+    }
+
+    private List<Key> newFocusedKeySequence(Key key) {
+        List<Key> newFocusedKeySequence = new ArrayList<>(hintMesh.focusedKeySequence());
+        newFocusedKeySequence.add(key);
+        return newFocusedKeySequence;
+    }
+
+    private Hint exactMatchHint(List<Key> keySequence) {
+        for (Hint hint : hintMesh.hints()) {
+            if (hint.keySequence().equals(keySequence))
+                return hint;
+        }
+        return null;
     }
 
     public void savePosition() {
         Point point = new Point(mouseX, mouseY);
-        if (positionHistory.contains(point))
+        if (!positionHistory.add(point))
             return;
-        idByPosition.put(point, positionIdCount);
-        if (positionIdCount == Integer.MAX_VALUE)
-            positionIdCount = 0;
-        else
-            positionIdCount++;
-        if (positionHistory.size() == maxPositionHistorySize)
-            positionHistory.removeFirst();
-        positionHistory.add(point);
         positionCycleIndex = positionHistory.size() - 1;
         logger.debug(
                 "Saved mouse position " + point.x() + "," + point.y() + " to history");
@@ -384,8 +670,6 @@ public class HintManager implements ModeListener, MousePositionListener {
 
     public void clearPositionHistory() {
         positionHistory.clear();
-        idByPosition.clear();
-        positionIdCount = 0;
         positionCycleIndex = 0;
         logger.debug("Reset mouse position history");
     }
@@ -401,14 +685,9 @@ public class HintManager implements ModeListener, MousePositionListener {
     }
 
     private void findPositionHistoryEntryMatchingCurrentPosition() {
-        for (int positionIndex = 0;
-             positionIndex < positionHistory.size(); positionIndex++) {
-            Point point = positionHistory.get(positionIndex);
-            if (point.x() == mouseX && point.y() == mouseY) {
-                positionCycleIndex = positionIndex;
-                break;
-            }
-        }
+        int positionIndex = positionHistory.indexOf(new Point(mouseX, mouseY));
+        if (positionIndex != -1)
+            positionCycleIndex = positionIndex;
     }
 
     public void cyclePreviousPosition() {
@@ -422,4 +701,44 @@ public class HintManager implements ModeListener, MousePositionListener {
         positionHistoryListeners.forEach(PositionHistoryListener::cycledPosition);
     }
 
+    public void savePositionToRegister(String registerName) {
+        Point point = new Point(mouseX, mouseY);
+        positionHistory.saveToRegister(registerName, point);
+        logger.debug("Saved mouse position " + point.x() + "," + point.y() +
+                     " to register " + registerName);
+    }
+
+    public void jumpToRegister(String registerName) {
+        Point point = positionHistory.register(registerName);
+        if (point == null)
+            return;
+        mouseController.moveTo(point.x(), point.y());
+        positionHistoryListeners.forEach(PositionHistoryListener::cycledPosition);
+    }
+
+    public void jumpToNearestPositionUp() {
+        jumpToNearestPosition(false, false);
+    }
+
+    public void jumpToNearestPositionDown() {
+        jumpToNearestPosition(false, true);
+    }
+
+    public void jumpToNearestPositionLeft() {
+        jumpToNearestPosition(true, false);
+    }
+
+    public void jumpToNearestPositionRight() {
+        jumpToNearestPosition(true, true);
+    }
+
+    private void jumpToNearestPosition(boolean horizontal, boolean forward) {
+        Point point = positionHistory.nearest(mouseX, mouseY, horizontal, forward);
+        if (point == null)
+            return;
+        positionCycleIndex = positionHistory.indexOf(point);
+        mouseController.moveTo(point.x(), point.y());
+        positionHistoryListeners.forEach(PositionHistoryListener::cycledPosition);
+    }
+
 }
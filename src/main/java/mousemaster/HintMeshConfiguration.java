@@ -6,7 +6,8 @@ import java.util.List;
 
 public record HintMeshConfiguration(boolean enabled,
                                     boolean visible,
-                                    HintMeshTypeAndSelectionKeys typeAndSelectionKeys, Key undoKey, String fontName,
+                                    HintMeshTypeAndSelectionKeys typeAndSelectionKeys,
+                                    HintLabelStrategy labelStrategy, Key undoKey, String fontName,
                                     int fontSize, String fontHexColor,
                                     String selectedPrefixFontHexColor, String boxHexColor,
                                     String modeAfterSelection,
@@ -18,6 +19,7 @@ public record HintMeshConfiguration(boolean enabled,
         private Boolean visible;
         private HintMeshTypeBuilder type = new HintMeshTypeBuilder();
         private List<Key> selectionKeys;
+        private HintLabelStrategy labelStrategy;
         private Key undoKey;
         private String fontName;
         private Integer fontSize;
@@ -43,6 +45,12 @@ public record HintMeshConfiguration(boolean enabled,
             return this;
         }
 
+        public HintMeshConfigurationBuilder labelStrategy(
+                HintLabelStrategy labelStrategy) {
+            this.labelStrategy = labelStrategy;
+            return this;
+        }
+
         public HintMeshConfigurationBuilder undoKey(Key undoKey) {
             this.undoKey = undoKey;
             return this;
@@ -108,6 +116,10 @@ public record HintMeshConfiguration(boolean enabled,
             return selectionKeys;
         }
 
+        public HintLabelStrategy labelStrategy() {
+            return labelStrategy;
+        }
+
         public Key undoKey() {
             return undoKey;
         }
@@ -147,7 +159,7 @@ public record HintMeshConfiguration(boolean enabled,
         public HintMeshConfiguration build() {
             return new HintMeshConfiguration(enabled, visible,
                     new HintMeshTypeAndSelectionKeys(type.build(), selectionKeys),
-                    undoKey, fontName, fontSize, fontHexColor, selectedPrefixFontHexColor,
+                    labelStrategy, undoKey, fontName, fontSize, fontHexColor, selectedPrefixFontHexColor,
                     boxHexColor, modeAfterSelection, swallowHintEndKeyPress,
                     savePositionAfterSelection);
         }
@@ -10,9 +10,40 @@ public sealed interface HintMeshType {
 
     }
 
+    /**
+     * The area is divided into rowCount*columnCount cells, selecting a cell divides it
+     * again, depth times. When the area is all screens and there are several screens,
+     * the screen is selected first (that selection does not count in the depth).
+     */
+    record HintZoomGrid(HintGridArea area, int rowCount, int columnCount, int depth)
+            implements HintMeshType {
+    }
+
+    /**
+     * Hints are shown at the targets supplied by a {@link HintTargetSource}, in the order
+     * they are received.
+     * @param maxTargetCount the labels all have the length needed for that many targets,
+     *                       so that they can be assigned before all targets are received.
+     *                       Additional targets are ignored.
+     */
+    sealed interface HintTargets extends HintMeshType {
+
+        int maxTargetCount();
+
+    }
+
+    record HintExternalTargets(String path, int maxTargetCount) implements HintTargets {
+    }
+
+    /**
+     * Targets detected in a screenshot of the active screen.
+     */
+    record HintDetectedTargets(int maxTargetCount) implements HintTargets {
+    }
+
     enum HintMeshTypeType {
 
-        GRID, POSITION_HISTORY
+        GRID, POSITION_HISTORY, ZOOM_GRID, EXTERNAL_TARGETS, DETECTED_TARGETS
 
     }
 
@@ -25,6 +56,11 @@ public sealed interface HintMeshType {
         private Integer gridMaxColumnCount;
         private Integer gridCellWidth;
         private Integer gridCellHeight;
+        private Integer zoomGridRowCount;
+        private Integer zoomGridColumnCount;
+        private Integer zoomGridDepth;
+        private String externalTargetsPath;
+        private Integer maxTargetCount;
 
         public HintMeshTypeBuilder() {
 
@@ -41,6 +77,22 @@ public sealed interface HintMeshType {
                 case HintPositionHistory hintPositionHistory -> {
                     this.type = HintMeshTypeType.POSITION_HISTORY;
                 }
+                case HintZoomGrid hintZoomGrid -> {
+                    this.type = HintMeshTypeType.ZOOM_GRID;
+                    this.gridArea = hintZoomGrid.area.builder();
+                    this.zoomGridRowCount = hintZoomGrid.rowCount;
+                    this.zoomGridColumnCount = hintZoomGrid.columnCount;
+                    this.zoomGridDepth = hintZoomGrid.depth;
+                }
+                case HintExternalTargets hintExternalTargets -> {
+                    this.type = HintMeshTypeType.EXTERNAL_TARGETS;
+                    this.externalTargetsPath = hintExternalTargets.path;
+                    this.maxTargetCount = hintExternalTargets.maxTargetCount;
+                }
+                case HintDetectedTargets hintDetectedTargets -> {
+                    this.type = HintMeshTypeType.DETECTED_TARGETS;
+                    this.maxTargetCount = hintDetectedTargets.maxTargetCount;
+                }
             }
         }
 
@@ -68,6 +120,26 @@ public sealed interface HintMeshType {
             return gridCellHeight;
         }
 
+        public Integer zoomGridRowCount() {
+            return zoomGridRowCount;
+        }
+
+        public Integer zoomGridColumnCount() {
+            return zoomGridColumnCount;
+        }
+
+        public Integer zoomGridDepth() {
+            return zoomGridDepth;
+        }
+
+        public String externalTargetsPath() {
+            return externalTargetsPath;
+        }
+
+        public Integer maxTargetCount() {
+            return maxTargetCount;
+        }
+
         public HintMeshTypeBuilder type(HintMeshTypeType type) {
             this.type = type;
             return this;
@@ -93,11 +165,41 @@ public sealed interface HintMeshType {
             return this;
         }
 
+        public HintMeshTypeBuilder zoomGridRowCount(Integer zoomGridRowCount) {
+            this.zoomGridRowCount = zoomGridRowCount;
+            return this;
+        }
+
+        public HintMeshTypeBuilder zoomGridColumnCount(Integer zoomGridColumnCount) {
+            this.zoomGridColumnCount = zoomGridColumnCount;
+            return this;
+        }
+
+        public HintMeshTypeBuilder zoomGridDepth(Integer zoomGridDepth) {
+            this.zoomGridDepth = zoomGridDepth;
+            return this;
+        }
+
+        public HintMeshTypeBuilder externalTargetsPath(String externalTargetsPath) {
+            this.externalTargetsPath = externalTargetsPath;
+            return this;
+        }
+
+        public HintMeshTypeBuilder maxTargetCount(Integer maxTargetCount) {
+            this.maxTargetCount = maxTargetCount;
+            return this;
+        }
+
         public HintMeshType build() {
             return switch (type) {
                 case GRID -> new HintGrid(gridArea.build(), gridMaxRowCount,
                         gridMaxColumnCount, gridCellWidth, gridCellHeight);
                 case POSITION_HISTORY -> new HintPositionHistory();
+                case ZOOM_GRID -> new HintZoomGrid(gridArea.build(), zoomGridRowCount,
+                        zoomGridColumnCount, zoomGridDepth);
+                case EXTERNAL_TARGETS ->
+                        new HintExternalTargets(externalTargetsPath, maxTargetCount);
+                case DETECTED_TARGETS -> new HintDetectedTargets(maxTargetCount);
             };
         }
     }
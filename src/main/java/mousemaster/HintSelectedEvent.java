@@ -0,0 +1,23 @@
+package mousemaster;
+
+import jdk.jfr.*;
+
+@Name("mousemaster.HintSelected")
+@Label("Hint Selected")
+@Category("Mousemaster")
+@StackTrace(false)
+public class HintSelectedEvent extends Event {
+
+    @Label("Mesh Size")
+    @Description("Number of hints in the mesh")
+    int meshSize;
+
+    @Label("Keystrokes")
+    int keystrokes;
+
+    @Label("Time To Select")
+    @Description("Time between the mesh being shown and the hint being selected")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeToSelect;
+
+}
@@ -0,0 +1,20 @@
+package mousemaster;
+
+import java.util.function.Consumer;
+
+/**
+ * Supplies the targets (positions) of the hints of a hint mesh. Targets are passed to the
+ * consumer as soon as they are found, possibly from another thread, so that the hint mesh
+ * can be shown before the source is done: each target is labeled when it is received,
+ * and the labels of the targets received earlier do not change.
+ */
+public interface HintTargetSource {
+
+    void open(Consumer<Point> targetConsumer);
+
+    /**
+     * Called when the hint mesh is hidden or replaced. Targets found afterward are ignored.
+     */
+    void close();
+
+}
@@ -0,0 +1,103 @@
+package mousemaster;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Key events received by the keyboard hook on the input thread, waiting for the logic
+ * thread (the thread running the main loop). The hook does not wait for the keyboard
+ * manager: it decides whether to eat a key event using the keys whose press would be
+ * eaten, as last published by the logic thread (at most one tick late).
+ */
+public class HookKeyEventQueue {
+
+    private final SpscRingBuffer<HookKeyEvent> events;
+    private final Thread logicThread;
+    /**
+     * Keys whose press would currently be eaten by the keyboard manager. Written by the
+     * logic thread, read by the input thread.
+     */
+    private volatile Set<Key> pressEatenKeys = Set.of();
+    /**
+     * Whether the press of each currently pressed key was eaten. Only accessed from the
+     * input thread. A repeated press and the release are eaten if and only if the first
+     * press was eaten.
+     */
+    private final Map<Key, Boolean> pressEatenByKey = new HashMap<>();
+    private final AtomicBoolean mustForgetPressedKeys = new AtomicBoolean();
+    /**
+     * Events dropped because the logic thread did not keep up. Counted instead of logged,
+     * since logging would slow the hook down.
+     */
+    private final AtomicLong droppedEventCount = new AtomicLong();
+
+    public HookKeyEventQueue(int capacity, Thread logicThread) {
+        events = new SpscRingBuffer<>(capacity);
+        this.logicThread = logicThread;
+    }
+
+    /**
+     * Called from the input thread. Never blocks: the event is dropped if the queue is
+     * full.
+     * @return whether the event must be eaten.
+     */
+    public boolean offer(KeyEvent keyEvent) {
+        if (mustForgetPressedKeys.getAndSet(false))
+            pressEatenByKey.clear();
+        Key key = keyEvent.key();
+        boolean mustBeEaten;
+        if (keyEvent.isPress()) {
+            Boolean pressEaten = pressEatenByKey.get(key);
+            if (pressEaten == null) {
+                pressEaten = pressEatenKeys.contains(key);
+                pressEatenByKey.put(key, pressEaten);
+            }
+            mustBeEaten = pressEaten;
+        }
+        else
+            mustBeEaten = Boolean.TRUE.equals(pressEatenByKey.remove(key));
+        if (!events.offer(new HookKeyEvent(keyEvent, mustBeEaten)))
+            droppedEventCount.incrementAndGet();
+        LockSupport.unpark(logicThread);
+        return mustBeEaten;
+    }
+
+    /**
+     * Called from the logic thread.
+     * @return null if there is no event.
+     */
+    public HookKeyEvent poll() {
+        return events.poll();
+    }
+
+    /**
+     * Called from the logic thread.
+     */
+    public void setPressEatenKeys(Set<Key> pressEatenKeys) {
+        this.pressEatenKeys = pressEatenKeys;
+    }
+
+    /**
+     * Called from the logic thread when the keys the input thread thinks are pressed are
+     * not pressed anymore.
+     */
+    public void forgetPressedKeys() {
+        mustForgetPressedKeys.set(true);
+    }
+
+    /**
+     * Called from the logic thread.
+     * @return the number of events dropped since the previous call.
+     */
+    public long takeDroppedEventCount() {
+        return droppedEventCount.getAndSet(0);
+    }
+
+    public record HookKeyEvent(KeyEvent keyEvent, boolean eaten) {
+    }
+
+}
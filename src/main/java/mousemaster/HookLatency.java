@@ -0,0 +1,83 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes the hook latency histograms on demand (e.g. with JConsole): each read takes a
+ * new snapshot of the histograms.
+ */
+public class HookLatency implements HookLatencyMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(HookLatency.class);
+
+    private final LatencyHistogram keyboardHookLatency;
+    private final LatencyHistogram mouseHookLatency;
+
+    public HookLatency(LatencyHistogram keyboardHookLatency,
+                       LatencyHistogram mouseHookLatency) {
+        this.keyboardHookLatency = keyboardHookLatency;
+        this.mouseHookLatency = mouseHookLatency;
+    }
+
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(this,
+                                     new ObjectName("mousemaster:type=HookLatency"));
+        } catch (JMException e) {
+            logger.info("Unable to register the hook latency MBean", e);
+        }
+    }
+
+    @Override
+    public long getKeyboardHookCallCount() {
+        return keyboardHookLatency.snapshot().count();
+    }
+
+    @Override
+    public double getKeyboardHookLatencyP99() {
+        return keyboardHookLatency.valueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getKeyboardHookLatencyP999() {
+        return keyboardHookLatency.valueAtPercentile(99.9) / 1e6;
+    }
+
+    @Override
+    public double getKeyboardHookLatencyMax() {
+        return keyboardHookLatency.max() / 1e6;
+    }
+
+    @Override
+    public long getMouseHookCallCount() {
+        return mouseHookLatency.snapshot().count();
+    }
+
+    @Override
+    public double getMouseHookLatencyP99() {
+        return mouseHookLatency.valueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getMouseHookLatencyP999() {
+        return mouseHookLatency.valueAtPercentile(99.9) / 1e6;
+    }
+
+    @Override
+    public double getMouseHookLatencyMax() {
+        return mouseHookLatency.max() / 1e6;
+    }
+
+    @Override
+    public String getSummary() {
+        return "keyboard hook latency: " + keyboardHookLatency.summary() +
+               ", mouse hook latency: " + mouseHookLatency.summary();
+    }
+
+}
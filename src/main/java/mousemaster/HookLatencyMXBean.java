@@ -0,0 +1,27 @@
+package mousemaster;
+
+/**
+ * Registered as mousemaster:type=HookLatency when mousemaster is started with --stats.
+ * Durations are in milliseconds and cover the whole run.
+ */
+public interface HookLatencyMXBean {
+
+    long getKeyboardHookCallCount();
+
+    double getKeyboardHookLatencyP99();
+
+    double getKeyboardHookLatencyP999();
+
+    double getKeyboardHookLatencyMax();
+
+    long getMouseHookCallCount();
+
+    double getMouseHookLatencyP99();
+
+    double getMouseHookLatencyP999();
+
+    double getMouseHookLatencyMax();
+
+    String getSummary();
+
+}
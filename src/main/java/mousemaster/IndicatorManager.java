@@ -1,49 +1,46 @@
 package mousemaster;
 
-public class IndicatorManager implements ModeListener {
+/**
+ * Only updates the indicator when the state it depends on has changed.
+ */
+public class IndicatorManager {
 
-    private final MouseState mouseState;
-    private final KeyboardState keyboardState;
-    private Mode currentMode;
+    private final StateStore stateStore;
+    private final Overlay overlay;
+    private long indicatorStateVersion = -1;
 
-    public IndicatorManager(MouseState mouseState, KeyboardState keyboardState) {
-        this.mouseState = mouseState;
-        this.keyboardState = keyboardState;
+    public IndicatorManager(StateStore stateStore, Overlay overlay) {
+        this.stateStore = stateStore;
+        this.overlay = overlay;
     }
 
     public void update(double delta) {
+        if (stateStore.version() == indicatorStateVersion)
+            return;
+        indicatorStateVersion = stateStore.version();
+        Mode currentMode = stateStore.mode();
         if (currentMode.indicator().enabled()) {
-            String indicatorHexColor = indicatorHexColor();
+            String indicatorHexColor = indicatorHexColor(currentMode);
             if (indicatorHexColor == null)
-                WindowsOverlay.hideIndicator();
+                overlay.hideIndicator();
             else
-                WindowsOverlay.setIndicator(
+                overlay.setIndicator(
                         new Indicator(currentMode.indicator().size(), indicatorHexColor));
         }
         else
-            WindowsOverlay.hideIndicator();
+            overlay.hideIndicator();
     }
 
-    @Override
-    public void modeChanged(Mode newMode) {
-        currentMode = newMode;
-    }
-
-    @Override
-    public void modeTimedOut() {
-        // Ignored.
-    }
-
-    private String indicatorHexColor() {
+    private String indicatorHexColor(Mode currentMode) {
         IndicatorConfiguration indicatorConfiguration = currentMode.indicator();
-        if (keyboardState.pressingUnhandledKey() &&
+        if (stateStore.pressingUnhandledKey() &&
             indicatorConfiguration.unhandledKeyPressHexColor() != null)
             return indicatorConfiguration.unhandledKeyPressHexColor();
-        if (mouseState.pressing() && indicatorConfiguration.mousePressHexColor() != null)
+        if (stateStore.pressing() && indicatorConfiguration.mousePressHexColor() != null)
             return indicatorConfiguration.mousePressHexColor();
-        if (mouseState.wheeling() && indicatorConfiguration.wheelHexColor() != null)
+        if (stateStore.wheeling() && indicatorConfiguration.wheelHexColor() != null)
             return indicatorConfiguration.wheelHexColor();
-        if (mouseState.moving() && indicatorConfiguration.moveHexColor() != null)
+        if (stateStore.moving() && indicatorConfiguration.moveHexColor() != null)
             return indicatorConfiguration.moveHexColor();
         return indicatorConfiguration.idleHexColor();
     }
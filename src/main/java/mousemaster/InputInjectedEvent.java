@@ -0,0 +1,22 @@
+package mousemaster;
+
+import jdk.jfr.*;
+
+/**
+ * The duration is the time spent in SendInput (or SetCursorPos).
+ */
+@Name("mousemaster.InputInjected")
+@Label("Input Injected")
+@Category("Mousemaster")
+@StackTrace(false)
+public class InputInjectedEvent extends Event {
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Queue Wait")
+    @Description("Time between the input being requested and the executor running it")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+}
@@ -0,0 +1,56 @@
+package mousemaster;
+
+/**
+ * Positions of a smooth jump, sampled once when the jump is planned so that each tick
+ * only has to look up the sample matching the time elapsed since the beginning of the jump.
+ */
+public class JumpTrajectory {
+
+    private final double duration;
+    private final int[] sampleXs;
+    private final int[] sampleYs;
+
+    /**
+     * @param velocity       pixels per second.
+     * @param sampleInterval seconds between two samples.
+     */
+    public JumpTrajectory(int beginX, int beginY, int endX, int endY, double velocity,
+                          Easing easing, double sampleInterval) {
+        duration = Math.hypot(endX - beginX, endY - beginY) / velocity;
+        int sampleCount = Math.max(1, (int) Math.ceil(duration / sampleInterval));
+        sampleXs = new int[sampleCount + 1];
+        sampleYs = new int[sampleCount + 1];
+        for (int sampleIndex = 0; sampleIndex <= sampleCount; sampleIndex++) {
+            double progress = easing.apply((double) sampleIndex / sampleCount);
+            sampleXs[sampleIndex] = (int) (beginX + (endX - beginX) * progress);
+            sampleYs[sampleIndex] = (int) (beginY + (endY - beginY) * progress);
+        }
+        // Make sure the last sample is exactly the end, whatever the easing rounding.
+        sampleXs[sampleCount] = endX;
+        sampleYs[sampleCount] = endY;
+    }
+
+    public double duration() {
+        return duration;
+    }
+
+    public boolean complete(double elapsed) {
+        return elapsed >= duration;
+    }
+
+    public int x(double elapsed) {
+        return sampleXs[sampleIndex(elapsed)];
+    }
+
+    public int y(double elapsed) {
+        return sampleYs[sampleIndex(elapsed)];
+    }
+
+    private int sampleIndex(double elapsed) {
+        int lastSampleIndex = sampleXs.length - 1;
+        if (complete(elapsed))
+            return lastSampleIndex;
+        return (int) (elapsed / duration * lastSampleIndex);
+    }
+
+}
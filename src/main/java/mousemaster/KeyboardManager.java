@@ -3,8 +3,13 @@ package mousemaster;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class KeyboardManager {
 
@@ -12,11 +17,19 @@ public class KeyboardManager {
 
     private final ComboWatcher comboWatcher;
     private final HintManager hintManager;
+    private final StateStore stateStore;
     private final Map<Key, PressKeyEventProcessing> currentlyPressedKeys = new HashMap<>();
+    private Set<Key> pressEatenKeyCandidates;
+    private Set<Key> pressEatenKeys;
+    private long pressEatenKeysStateVersion = -1;
+    private boolean pressEatenKeysTimeSensitive;
+    private long pressEatenKeysTimeSensitiveUntilNanoTime;
 
-    public KeyboardManager(ComboWatcher comboWatcher, HintManager hintManager) {
+    public KeyboardManager(ComboWatcher comboWatcher, HintManager hintManager,
+                           StateStore stateStore) {
         this.comboWatcher = comboWatcher;
         this.hintManager = hintManager;
+        this.stateStore = stateStore;
     }
 
     public void update(double delta) {
@@ -31,7 +44,9 @@ public class KeyboardManager {
 
     public void reset() {
         currentlyPressedKeys.clear();
+        stateStore.allKeysReleased();
         comboWatcher.reset();
+        stateStore.keyProcessingChanged();
     }
 
     public boolean keyEvent(KeyEvent keyEvent) {
@@ -39,7 +54,7 @@ public class KeyboardManager {
         if (keyEvent.isPress()) {
             PressKeyEventProcessing processing = currentlyPressedKeys.get(key);
             if (processing == null) {
-                if (!pressingUnhandledKey()) {
+                if (!stateStore.pressingUnhandledKey()) {
                     processing = hintManager.keyPressed(keyEvent.key());
                     if (!processing.handled())
                         processing = comboWatcher.keyEvent(keyEvent);
@@ -53,12 +68,14 @@ public class KeyboardManager {
                     processing = hintManager.keyPressed(keyEvent.key());
                 }
                 currentlyPressedKeys.put(key, processing);
+                stateStore.keyPressed(processing);
             }
             return processing.mustBeEaten();
         }
         else {
             PressKeyEventProcessing processing = currentlyPressedKeys.remove(key);
             if (processing != null) {
+                stateStore.keyReleased(processing);
                 if (processing.handled()) {
                     if (processing.isPartOfCombo() || processing.isUnswallowedHintEnd())
                         comboWatcher.keyEvent(keyEvent); // Returns null.
@@ -74,29 +91,54 @@ public class KeyboardManager {
     }
 
     /**
-     * Handled means part of combo or part of hint.
+     * The keys among candidateKeys whose press would be eaten if it happened at the given
+     * time. See {@link ComboWatcher#pressWouldBeEaten(KeyEvent)} for the limits of this
+     * prediction.
      */
-    public boolean pressingUnhandledKeysOnly() {
-        if (currentlyPressedKeys.isEmpty())
-            return false;
-        for (PressKeyEventProcessing pressKeyEventProcessing : currentlyPressedKeys.values()) {
-            if (pressKeyEventProcessing.isPartOfComboSequence() ||
-                pressKeyEventProcessing.isPartOfHintPrefix() ||
-                pressKeyEventProcessing.isHintUndo() ||
-                pressKeyEventProcessing.isUnswallowedHintEnd())
-                return false;
+    public Set<Key> keysWhosePressWouldBeEaten(Collection<Key> candidateKeys,
+                                               Instant time) {
+        Set<Key> keys = new HashSet<>();
+        for (Key key : candidateKeys) {
+            if (pressWouldBeEaten(key, time))
+                keys.add(key);
         }
-        // Pressed keys are either unhandled or part of combo precondition.
-        // Consider pressed keys unhandled if at least one is unhandled and the others are precondition keys.
-        return pressingUnhandledKey();
+        return Set.copyOf(keys);
     }
 
-    public boolean pressingUnhandledKey() {
-        for (PressKeyEventProcessing pressKeyEventProcessing : currentlyPressedKeys.values()) {
-            if (!pressKeyEventProcessing.handled())
-                return true;
-        }
-        return false;
+    /**
+     * Same as keysWhosePressWouldBeEaten(candidateKeys, now), but only recomputed when the
+     * state store version changed, or while the time of the press matters (see
+     * {@link ComboWatcher#pressWouldBeEatenTimeSensitiveUntil()}): called on every tick,
+     * it does not allocate when nothing happens.
+     */
+    public Set<Key> currentKeysWhosePressWouldBeEaten(Set<Key> candidateKeys) {
+        if (candidateKeys == pressEatenKeyCandidates &&
+            stateStore.version() == pressEatenKeysStateVersion &&
+            (!pressEatenKeysTimeSensitive ||
+             System.nanoTime() - pressEatenKeysTimeSensitiveUntilNanoTime > 0))
+            return pressEatenKeys;
+        long nanoTime = System.nanoTime();
+        Instant now = Instant.now();
+        pressEatenKeys = keysWhosePressWouldBeEaten(candidateKeys, now);
+        pressEatenKeyCandidates = candidateKeys;
+        pressEatenKeysStateVersion = stateStore.version();
+        Instant timeSensitiveUntil = comboWatcher.pressWouldBeEatenTimeSensitiveUntil();
+        pressEatenKeysTimeSensitive =
+                timeSensitiveUntil != null && timeSensitiveUntil.isAfter(now);
+        if (pressEatenKeysTimeSensitive)
+            pressEatenKeysTimeSensitiveUntilNanoTime =
+                    nanoTime + Duration.between(now, timeSensitiveUntil).toNanos();
+        return pressEatenKeys;
+    }
+
+    private boolean pressWouldBeEaten(Key key, Instant time) {
+        PressKeyEventProcessing processing = currentlyPressedKeys.get(key);
+        if (processing != null)
+            return processing.mustBeEaten();
+        processing = hintManager.keyPressProcessing(key);
+        if (processing.handled() || stateStore.pressingUnhandledKey())
+            return processing.mustBeEaten();
+        return comboWatcher.pressWouldBeEaten(new KeyEvent.PressKeyEvent(time, key));
     }
 
 }
@@ -1,19 +0,0 @@
-package mousemaster;
-
-public class KeyboardState {
-
-    private final KeyboardManager keyboardManager;
-
-
-    public KeyboardState(KeyboardManager keyboardManager) {
-        this.keyboardManager = keyboardManager;
-    }
-
-    public boolean pressingUnhandledKeysOnly() {
-        return keyboardManager.pressingUnhandledKeysOnly();
-    }
-
-    public boolean pressingUnhandledKey() {
-        return keyboardManager.pressingUnhandledKey();
-    }
-}
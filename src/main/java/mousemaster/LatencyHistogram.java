@@ -0,0 +1,158 @@
+package mousemaster;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, safe to record into from any thread.
+ * Buckets are powers of 2, each split into 8 linear sub-buckets, so a recorded value is
+ * known within 12.5%. Recording never allocates.
+ * Calls over each threshold are counted exactly.
+ */
+public class LatencyHistogram {
+
+    private static final int subBucketBits = 3;
+    private static final int subBucketCount = 1 << subBucketBits;
+    private static final int bucketCount = (64 - subBucketBits) * subBucketCount;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketCount);
+    private final AtomicLong max = new AtomicLong();
+    private final List<Duration> thresholds;
+    private final long[] thresholdNanos;
+    private final AtomicLongArray overThresholdCounts;
+
+    public LatencyHistogram(List<Duration> thresholds) {
+        this.thresholds = List.copyOf(thresholds);
+        thresholdNanos = thresholds.stream().mapToLong(Duration::toNanos).toArray();
+        overThresholdCounts = new AtomicLongArray(thresholdNanos.length);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        counts.incrementAndGet(bucketIndex(nanos));
+        long currentMax;
+        while (nanos > (currentMax = max.get()) && !max.compareAndSet(currentMax, nanos)) {
+            // Retry.
+        }
+        for (int thresholdIndex = 0; thresholdIndex < thresholdNanos.length; thresholdIndex++) {
+            if (nanos > thresholdNanos[thresholdIndex])
+                overThresholdCounts.incrementAndGet(thresholdIndex);
+        }
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Capped by the max: a bucket's upper bound can be higher than the max.
+     * @return 0 if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        return Math.min(max(), snapshot().valueAtPercentile(percentile));
+    }
+
+    public long overThresholdCount(int thresholdIndex) {
+        return overThresholdCounts.get(thresholdIndex);
+    }
+
+    public Snapshot snapshot() {
+        long[] snapshotCounts = new long[bucketCount];
+        for (int bucketIndex = 0; bucketIndex < bucketCount; bucketIndex++)
+            snapshotCounts[bucketIndex] = counts.get(bucketIndex);
+        return new Snapshot(snapshotCounts);
+    }
+
+    public String summary() {
+        Snapshot snapshot = snapshot();
+        StringBuilder summary = new StringBuilder();
+        summary.append("count = ").append(snapshot.count());
+        if (snapshot.count() != 0) {
+            // A bucket's upper bound can be higher than the max.
+            long max = max();
+            summary.append(", p50 = ")
+                   .append(formatNanos(Math.min(max, snapshot.valueAtPercentile(50))))
+                   .append(", p99 = ")
+                   .append(formatNanos(Math.min(max, snapshot.valueAtPercentile(99))))
+                   .append(", p99.9 = ")
+                   .append(formatNanos(Math.min(max, snapshot.valueAtPercentile(99.9))))
+                   .append(", max = ").append(formatNanos(max));
+        }
+        for (int thresholdIndex = 0; thresholdIndex < thresholds.size(); thresholdIndex++) {
+            summary.append(", over ")
+                   .append(formatNanos(thresholdNanos[thresholdIndex]))
+                   .append(" = ")
+                   .append(overThresholdCount(thresholdIndex));
+        }
+        return summary.toString();
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000_000)
+            return String.format("%.1fus", nanos / 1e3);
+        return String.format("%.1fms", nanos / 1e6);
+    }
+
+    static int bucketIndex(long nanos) {
+        if (nanos < subBucketCount)
+            return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - subBucketBits)) & (subBucketCount - 1);
+        return (exponent - subBucketBits + 1) * subBucketCount + subBucket;
+    }
+
+    /**
+     * Highest value that falls into the bucket.
+     */
+    static long bucketUpperBound(int bucketIndex) {
+        if (bucketIndex < subBucketCount)
+            return bucketIndex;
+        int exponent = bucketIndex / subBucketCount + subBucketBits - 1;
+        long subBucket = bucketIndex % subBucketCount;
+        long upperBound = ((subBucketCount + subBucket + 1) << (exponent - subBucketBits)) - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+
+    /**
+     * Bucket counts at a point in time. The difference of two snapshots gives the
+     * distribution of the values recorded in between.
+     */
+    public record Snapshot(long[] counts) {
+
+        public long count() {
+            long count = 0;
+            for (long bucketCount : counts)
+                count += bucketCount;
+            return count;
+        }
+
+        public Snapshot minus(Snapshot other) {
+            long[] differenceCounts = new long[counts.length];
+            for (int bucketIndex = 0; bucketIndex < counts.length; bucketIndex++)
+                differenceCounts[bucketIndex] = counts[bucketIndex] - other.counts[bucketIndex];
+            return new Snapshot(differenceCounts);
+        }
+
+        /**
+         * @return 0 if the snapshot is empty.
+         */
+        public long valueAtPercentile(double percentile) {
+            long count = count();
+            if (count == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long cumulativeCount = 0;
+            for (int bucketIndex = 0; bucketIndex < counts.length; bucketIndex++) {
+                cumulativeCount += counts[bucketIndex];
+                if (cumulativeCount >= rank)
+                    return bucketUpperBound(bucketIndex);
+            }
+            return bucketUpperBound(counts.length - 1);
+        }
+
+    }
+
+}
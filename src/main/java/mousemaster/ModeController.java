@@ -7,15 +7,15 @@ import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
 
 public class ModeController implements GridListener, PositionHistoryListener {
 
     private static final Logger logger = LoggerFactory.getLogger(ModeController.class);
 
-    private final ModeMap modeMap;
+    private ModeMap modeMap;
     private final MouseController mouseController;
-    private final MouseState mouseState;
-    private final KeyboardState keyboardState;
+    private final StateStore stateStore;
     private final List<ModeListener> listeners;
     private boolean currentModeCursorHidden;
     private Mode currentMode;
@@ -26,17 +26,15 @@ public class ModeController implements GridListener, PositionHistoryListener {
     private boolean justCycledPosition;
 
     public ModeController(ModeMap modeMap, MouseController mouseController,
-                          MouseState mouseState, KeyboardState keyboardState,
-                          List<ModeListener> listeners) {
+                          StateStore stateStore, List<ModeListener> listeners) {
         this.modeMap = modeMap;
         this.mouseController = mouseController;
-        this.mouseState = mouseState;
-        this.keyboardState = keyboardState;
+        this.stateStore = stateStore;
         this.listeners = listeners;
     }
 
     public void update(double delta) {
-        if (keyboardState.pressingUnhandledKeysOnly()) {
+        if (stateStore.pressingUnhandledKeysOnly()) {
             if (currentMode.modeAfterPressingUnhandledKeysOnly() != null) {
                 logger.debug("All currently pressed keys are unhandled, switching to " +
                              currentMode.modeAfterPressingUnhandledKeysOnly());
@@ -44,8 +42,8 @@ public class ModeController implements GridListener, PositionHistoryListener {
                 return;
             }
         }
-        boolean mouseIdling = !mouseState.moving() && !mouseState.pressing() &&
-                              !mouseState.wheeling() && !justSnappedToGrid &&
+        boolean mouseIdling = !stateStore.moving() && !stateStore.pressing() &&
+                              !stateStore.wheeling() && !justSnappedToGrid &&
                               !justCycledPosition;
         boolean mustResetHideCursorTimeout = !mouseIdling;
         boolean mustResetModeTimeout = currentMode.timeout().onlyIfIdle() && !mouseIdling;
@@ -102,11 +100,48 @@ public class ModeController implements GridListener, PositionHistoryListener {
         else if (currentMode != null && currentMode.pushModeToHistoryStack() &&
                  !modeHistoryStack.contains(currentMode))
             modeHistoryStack.push(currentMode);
+        Mode fromMode = currentMode;
         currentMode = newMode;
+        stateStore.setMode(newMode);
         resetCurrentModeCursorHidden();
         resetHideCursorTimer();
         resetModeTimeoutTimer();
+        ModeSwitchedEvent modeSwitchedEvent = new ModeSwitchedEvent();
+        modeSwitchedEvent.begin();
         listeners.forEach(listener -> listener.modeChanged(newMode));
+        modeSwitchedEvent.end();
+        if (modeSwitchedEvent.shouldCommit()) {
+            modeSwitchedEvent.fromMode = fromMode == null ? null : fromMode.name();
+            modeSwitchedEvent.toMode = newMode.name();
+            modeSwitchedEvent.commit();
+        }
+    }
+
+    /**
+     * Replaces the modes without switching mode, unless the current mode does not exist
+     * anymore. Modes are expected to be the same instances if they have not changed.
+     */
+    public void reloadModeMap(ModeMap newModeMap) {
+        modeMap = newModeMap;
+        List<Mode> reloadedModeHistoryStack = modeHistoryStack.stream()
+                                                              .map(Mode::name)
+                                                              .map(newModeMap::get)
+                                                              .filter(Objects::nonNull)
+                                                              .toList();
+        modeHistoryStack.clear();
+        modeHistoryStack.addAll(reloadedModeHistoryStack);
+        Mode reloadedCurrentMode = newModeMap.get(currentMode.name());
+        if (reloadedCurrentMode == null) {
+            logger.info("Current mode " + currentMode.name() +
+                        " does not exist anymore, switching to " + Mode.IDLE_MODE_NAME);
+            switchMode(Mode.IDLE_MODE_NAME);
+            return;
+        }
+        if (reloadedCurrentMode == currentMode)
+            return;
+        currentMode = reloadedCurrentMode;
+        stateStore.setMode(reloadedCurrentMode);
+        listeners.forEach(listener -> listener.modeReloaded(reloadedCurrentMode));
     }
 
     private void resetCurrentModeCursorHidden() {
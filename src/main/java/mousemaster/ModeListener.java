@@ -4,6 +4,14 @@ public interface ModeListener {
 
     void modeChanged(Mode newMode);
 
+    /**
+     * The current mode's configuration was reloaded. This is not a mode switch: what was
+     * started in the mode (e.g. a mouse button press) must not be stopped.
+     */
+    default void modeReloaded(Mode reloadedMode) {
+        modeChanged(reloadedMode);
+    }
+
     void modeTimedOut();
 
 }
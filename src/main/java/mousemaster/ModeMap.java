@@ -1,6 +1,7 @@
 package mousemaster;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -23,6 +24,44 @@ public class ModeMap {
         return modeByName.get(modeName);
     }
 
+    /**
+     * Keys used by the combos of all modes (in their moves and preconditions).
+     */
+    public Set<Key> comboKeys() {
+        Set<Key> comboKeys = new HashSet<>();
+        for (Mode mode : modes()) {
+            for (Combo combo : mode.comboMap().commandsByCombo().keySet()) {
+                combo.precondition()
+                     .mustRemainPressedKeySets()
+                     .stream()
+                     .flatMap(Collection::stream)
+                     .forEach(comboKeys::add);
+                comboKeys.addAll(combo.precondition().mustRemainUnpressedKeySet());
+                combo.sequence()
+                     .moves()
+                     .stream()
+                     .map(ComboMove::key)
+                     .forEach(comboKeys::add);
+            }
+        }
+        return comboKeys;
+    }
+
+    /**
+     * Keys whose press can be eaten: the combo keys, and the selection and undo keys of
+     * the hint meshes.
+     */
+    public Set<Key> pressEatenKeyCandidates() {
+        Set<Key> pressEatenKeyCandidates = comboKeys();
+        for (Mode mode : modes()) {
+            pressEatenKeyCandidates.addAll(
+                    mode.hintMesh().typeAndSelectionKeys().selectionKeys());
+            if (mode.hintMesh().undoKey() != null)
+                pressEatenKeyCandidates.add(mode.hintMesh().undoKey());
+        }
+        return Set.copyOf(pressEatenKeyCandidates);
+    }
+
     @Override
     public String toString() {
         return modeByName.toString();
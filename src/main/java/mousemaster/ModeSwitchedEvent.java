@@ -0,0 +1,20 @@
+package mousemaster;
+
+import jdk.jfr.*;
+
+/**
+ * The duration is the time the mode listeners take to handle the new mode.
+ */
+@Name("mousemaster.ModeSwitched")
+@Label("Mode Switched")
+@Category("Mousemaster")
+@StackTrace(false)
+public class ModeSwitchedEvent extends Event {
+
+    @Label("From")
+    String fromMode;
+
+    @Label("To")
+    String toMode;
+
+}
@@ -1,7 +1,8 @@
 package mousemaster;
 
 public record Mouse(double initialVelocity, double maxVelocity, double acceleration,
-                    boolean smoothJumpEnabled, double smoothJumpVelocity) {
+                    boolean smoothJumpEnabled, double smoothJumpVelocity,
+                    Easing smoothJumpEasing) {
 
 
     public static class MouseBuilder {
@@ -11,6 +12,7 @@ public record Mouse(double initialVelocity, double maxVelocity, double accelerat
         private Double acceleration;
         private Boolean smoothJumpEnabled;
         private Double smoothJumpVelocity;
+        private Easing smoothJumpEasing;
 
         public MouseBuilder initialVelocity(double initialVelocity) {
             this.initialVelocity = initialVelocity;
@@ -37,6 +39,11 @@ public record Mouse(double initialVelocity, double maxVelocity, double accelerat
             return this;
         }
 
+        public MouseBuilder smoothJumpEasing(Easing smoothJumpEasing) {
+            this.smoothJumpEasing = smoothJumpEasing;
+            return this;
+        }
+
         public Double initialVelocity() {
             return initialVelocity;
         }
@@ -57,9 +64,13 @@ public record Mouse(double initialVelocity, double maxVelocity, double accelerat
             return smoothJumpEnabled;
         }
 
+        public Easing smoothJumpEasing() {
+            return smoothJumpEasing;
+        }
+
         public Mouse build() {
             return new Mouse(initialVelocity, maxVelocity, acceleration,
-                    smoothJumpEnabled, smoothJumpVelocity);
+                    smoothJumpEnabled, smoothJumpVelocity, smoothJumpEasing);
         }
     }
 }
@@ -1,12 +1,27 @@
 package mousemaster;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
 
 public class MouseController implements ModeListener, MousePositionListener {
 
+    private static final Logger logger = LoggerFactory.getLogger(MouseController.class);
+
+    /**
+     * Smooth jumps are sampled at the tick rate.
+     */
+    private static final double jumpSampleInterval = 0.01;
+    /**
+     * Wheel inputs are sent at most 60 times per second, independently of the tick rate.
+     */
+    private static final double wheelEmitInterval = 1d / 60;
+
     private final ScreenManager screenManager;
+    private final StateStore stateStore;
     private Mouse mouse;
     private Wheel wheel;
     private double moveDuration;
@@ -18,17 +33,23 @@ public class MouseController implements ModeListener, MousePositionListener {
     private double wheelDuration;
     private final Deque<Boolean> xWheelForwardStack = new ArrayDeque<>();
     private final Deque<Boolean> yWheelForwardStack = new ArrayDeque<>();
+    private final WheelAccumulator horizontalWheel = new WheelAccumulator(wheelEmitInterval);
+    private final WheelAccumulator verticalWheel = new WheelAccumulator(wheelEmitInterval);
 
     private int mouseX, mouseY;
     private boolean jumping;
     private double jumpDuration;
-    private double jumpScale;
+    private JumpTrajectory jumpTrajectory;
+    /**
+     * User movement merged into the jump after the trajectory was planned.
+     */
+    private int jumpOffsetX, jumpOffsetY;
     private int jumpX, jumpY;
-    private int jumpBeginX, jumpBeginY;
     private int jumpEndX, jumpEndY;
 
-    public MouseController(ScreenManager screenManager) {
+    public MouseController(ScreenManager screenManager, StateStore stateStore) {
         this.screenManager = screenManager;
+        this.stateStore = stateStore;
     }
 
     public void reset() {
@@ -40,8 +61,11 @@ public class MouseController implements ModeListener, MousePositionListener {
         wheelDuration = 0;
         xWheelForwardStack.clear();
         yWheelForwardStack.clear();
+        horizontalWheel.reset();
+        verticalWheel.reset();
         jumping = false;
         jumpDuration = 0;
+        stateChanged();
     }
 
     public void setMouse(Mouse mouse) {
@@ -52,6 +76,10 @@ public class MouseController implements ModeListener, MousePositionListener {
         this.wheel = wheel;
     }
 
+    private void stateChanged() {
+        stateStore.setMouseState(moving(), pressing(), wheeling());
+    }
+
     boolean moving() {
         return !xMoveForwardStack.isEmpty() || !yMoveForwardStack.isEmpty();
     }
@@ -98,25 +126,17 @@ public class MouseController implements ModeListener, MousePositionListener {
         }
         if (jumping) {
             jumpDuration += delta;
-            double jumpVelocity =
-                    mouse.smoothJumpVelocity() * jumpScale; // Scaled pixels per second.
-            double jumpTotalDuration =
-                    Math.hypot(jumpEndX - jumpBeginX, jumpEndY - jumpBeginY) /
-                    jumpVelocity;
-            double percent = Math.min(1, jumpDuration / jumpTotalDuration);
-            // Smooth.
-            // percent = percent * percent * (3 - 2 * percent);
-            // Smoother (Ken Perlin).
-            percent = percent * percent * percent * (percent * (percent * 6 - 15) + 10);
-            int nextJumpX = (int) (jumpBeginX + (jumpEndX - jumpBeginX) * percent);
-            int nextJumpY = (int) (jumpBeginY + (jumpEndY - jumpBeginY) * percent);
+            boolean jumpComplete = jumpTrajectory.complete(jumpDuration);
+            int nextJumpX = jumpTrajectory.x(jumpDuration) + jumpOffsetX;
+            int nextJumpY = jumpTrajectory.y(jumpDuration) + jumpOffsetY;
             // Merge the user movement in.
-            if (percent != 1) {
+            if (!jumpComplete) {
                 if (jumpX == jumpEndX) {
                     int movingDeltaX = xMoveForwardStack.isEmpty() ? 0 :
                             (int) (deltaDistanceX * (xMoveForwardStack.peek() ? 1 : -1));
                     deltaDistanceX -= (int) deltaDistanceX;
                     nextJumpX += movingDeltaX;
+                    jumpOffsetX += movingDeltaX;
                     jumpEndX += movingDeltaX;
                 }
                 if (jumpY == jumpEndY) {
@@ -124,6 +144,7 @@ public class MouseController implements ModeListener, MousePositionListener {
                             (int) (deltaDistanceY * (yMoveForwardStack.peek() ? 1 : -1));
                     deltaDistanceY -= (int) deltaDistanceY;
                     nextJumpY += movingDeltaY;
+                    jumpOffsetY += movingDeltaY;
                     jumpEndY += movingDeltaY;
                 }
             }
@@ -133,40 +154,53 @@ public class MouseController implements ModeListener, MousePositionListener {
                 jumpY = nextJumpY;
             }
         }
+        double wheelVelocity = 0;
         if (wheeling()) {
             wheelDuration += delta;
-            double wheelVelocity = Math.min(wheel.maxVelocity(),
+            wheelVelocity = Math.min(wheel.maxVelocity(),
                     wheel.initialVelocity() + wheel.acceleration() * wheelDuration);
-            double deltaDistance = wheelVelocity * delta;
-            if (!xWheelForwardStack.isEmpty())
-                WindowsMouse.wheelHorizontallyBy(xWheelForwardStack.peek(), deltaDistance);
-            if (!yWheelForwardStack.isEmpty())
-                WindowsMouse.wheelVerticallyBy(yWheelForwardStack.peek(), deltaDistance);
         }
+        // When a direction is not wheeling, its accumulator may still be decaying (momentum).
+        int horizontalWheelDelta = horizontalWheel.update(
+                xWheelForwardStack.isEmpty() ? 0 :
+                        wheelVelocity * (xWheelForwardStack.peek() ? 1 : -1), wheel,
+                delta);
+        if (horizontalWheelDelta != 0)
+            WindowsMouse.wheelHorizontallyBy(horizontalWheelDelta);
+        int verticalWheelDelta = verticalWheel.update(
+                yWheelForwardStack.isEmpty() ? 0 :
+                        wheelVelocity * (yWheelForwardStack.peek() ? 1 : -1), wheel,
+                delta);
+        if (verticalWheelDelta != 0)
+            WindowsMouse.wheelVerticallyBy(verticalWheelDelta);
     }
 
     public void startMoveUp() {
         if (!yMoveForwardStack.isEmpty() && yMoveForwardStack.contains(false))
             return;
         yMoveForwardStack.push(false);
+        stateChanged();
     }
 
     public void startMoveDown() {
         if (!yMoveForwardStack.isEmpty() && yMoveForwardStack.contains(true))
             return;
         yMoveForwardStack.push(true);
+        stateChanged();
     }
 
     public void startMoveLeft() {
         if (!xMoveForwardStack.isEmpty() && xMoveForwardStack.contains(false))
             return;
         xMoveForwardStack.push(false);
+        stateChanged();
     }
 
     public void startMoveRight() {
         if (!xMoveForwardStack.isEmpty() && xMoveForwardStack.contains(true))
             return;
         xMoveForwardStack.push(true);
+        stateChanged();
     }
 
     public void stopMoveUp() {
@@ -175,6 +209,7 @@ public class MouseController implements ModeListener, MousePositionListener {
             deltaDistanceY = 0;
         if (xMoveForwardStack.isEmpty() && yMoveForwardStack.isEmpty())
             moveDuration = 0;
+        stateChanged();
     }
 
     private static void removeFirst(Deque<Boolean> moveForward, boolean forward) {
@@ -193,6 +228,7 @@ public class MouseController implements ModeListener, MousePositionListener {
             deltaDistanceY = 0;
         if (xMoveForwardStack.isEmpty() && yMoveForwardStack.isEmpty())
             moveDuration = 0;
+        stateChanged();
     }
 
     public void stopMoveLeft() {
@@ -201,6 +237,7 @@ public class MouseController implements ModeListener, MousePositionListener {
             deltaDistanceX = 0;
         if (xMoveForwardStack.isEmpty() && yMoveForwardStack.isEmpty())
             moveDuration = 0;
+        stateChanged();
     }
 
     public void stopMoveRight() {
@@ -209,6 +246,7 @@ public class MouseController implements ModeListener, MousePositionListener {
             deltaDistanceX = 0;
         if (xMoveForwardStack.isEmpty() && yMoveForwardStack.isEmpty())
             moveDuration = 0;
+        stateChanged();
     }
 
     public void clickLeft() {
@@ -235,6 +273,7 @@ public class MouseController implements ModeListener, MousePositionListener {
         releaseAll();
         leftPressing = true;
         WindowsMouse.pressLeft();
+        stateChanged();
     }
 
     public void pressMiddle() {
@@ -243,6 +282,7 @@ public class MouseController implements ModeListener, MousePositionListener {
         releaseAll();
         middlePressing = true;
         WindowsMouse.pressMiddle();
+        stateChanged();
     }
 
     public void pressRight() {
@@ -251,24 +291,28 @@ public class MouseController implements ModeListener, MousePositionListener {
         releaseAll();
         rightPressing = true;
         WindowsMouse.pressRight();
+        stateChanged();
     }
 
     public void releaseLeft() {
         if (leftPressing)
             WindowsMouse.releaseLeft();
         leftPressing = false;
+        stateChanged();
     }
 
     public void releaseMiddle() {
         if (middlePressing)
             WindowsMouse.releaseMiddle();
         middlePressing = false;
+        stateChanged();
     }
 
     public void releaseRight() {
         if (rightPressing)
             WindowsMouse.releaseRight();
         rightPressing = false;
+        stateChanged();
     }
 
     private void releaseAll() {
@@ -302,48 +346,56 @@ public class MouseController implements ModeListener, MousePositionListener {
         if (!yWheelForwardStack.isEmpty() && yWheelForwardStack.peek() == false)
             return;
         yWheelForwardStack.push(false);
+        stateChanged();
     }
 
     public void startWheelDown() {
         if (!yWheelForwardStack.isEmpty() && yWheelForwardStack.peek() == true)
             return;
         yWheelForwardStack.push(true);
+        stateChanged();
     }
 
     public void startWheelLeft() {
         if (!xWheelForwardStack.isEmpty() && xWheelForwardStack.peek() == false)
             return;
         xWheelForwardStack.push(false);
+        stateChanged();
     }
 
     public void startWheelRight() {
         if (!xWheelForwardStack.isEmpty() && xWheelForwardStack.peek() == true)
             return;
         xWheelForwardStack.push(true);
+        stateChanged();
     }
 
     public void stopWheelUp() {
         removeFirst(yWheelForwardStack, false);
         if (xWheelForwardStack.isEmpty() && yWheelForwardStack.isEmpty())
             wheelDuration = 0;
+        stateChanged();
     }
 
     public void stopWheelDown() {
         removeFirst(yWheelForwardStack, true);
         if (xWheelForwardStack.isEmpty() && yWheelForwardStack.isEmpty())
             wheelDuration = 0;
+        stateChanged();
     }
 
     public void stopWheelLeft() {
         removeFirst(xWheelForwardStack, false);
         if (xWheelForwardStack.isEmpty() && yWheelForwardStack.isEmpty())
             wheelDuration = 0;
+        stateChanged();
     }
 
     public void stopWheelRight() {
         removeFirst(xWheelForwardStack, true);
         if (xWheelForwardStack.isEmpty() && yWheelForwardStack.isEmpty())
             wheelDuration = 0;
+        stateChanged();
     }
 
     public void showCursor() {
@@ -379,14 +431,16 @@ public class MouseController implements ModeListener, MousePositionListener {
             jumping(false, false) && y > jumpEndY) {
             jumpDuration = 0;
         }
-        jumpBeginX = mouseX;
-        jumpBeginY = mouseY;
         jumpX = mouseX;
         jumpY = mouseY;
         jumping = true;
         jumpEndX = x;
         jumpEndY = y;
-        jumpScale = screenManager.activeScreen().scale();
+        jumpOffsetX = jumpOffsetY = 0;
+        double jumpVelocity = mouse.smoothJumpVelocity() *
+                              screenManager.activeScreen().scale(); // Scaled pixels per second.
+        jumpTrajectory = new JumpTrajectory(mouseX, mouseY, x, y, jumpVelocity,
+                mouse.smoothJumpEasing(), jumpSampleInterval);
     }
 
     public boolean jumping() {
@@ -431,6 +485,12 @@ public class MouseController implements ModeListener, MousePositionListener {
         }
     }
 
+    @Override
+    public void modeReloaded(Mode reloadedMode) {
+        setMouse(reloadedMode.mouse());
+        setWheel(reloadedMode.wheel());
+    }
+
     @Override
     public void modeTimedOut() {
         // No op.
@@ -441,6 +501,10 @@ public class MouseController implements ModeListener, MousePositionListener {
         mouseX = x;
         mouseY = y;
         if (mouseX == jumpEndX && mouseY == jumpEndY) {
+            if (jumping && logger.isTraceEnabled())
+                logger.trace("Smooth jump to " + jumpEndX + "," + jumpEndY +
+                             " completed in " + jumpDuration + "s, planned " +
+                             jumpTrajectory.duration() + "s");
             jumping = false;
             jumpDuration = 0;
         }
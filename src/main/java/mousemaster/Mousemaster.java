@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.locks.LockSupport;
 
 public class Mousemaster {
 
@@ -13,115 +14,213 @@ public class Mousemaster {
 
     private final Path configurationPath;
     private final Platform platform;
-    private final WatchService watchService;
+    private final TickProfiler tickProfiler;
+    private final StartupProfiler startupProfiler;
+    private final ConfigurationWatcher configurationWatcher;
+    /**
+     * Kept across configuration reloads, and persisted across restarts.
+     */
+    private final PositionHistory positionHistory;
+    private final FrequencyWeightedHintLabels frequencyWeightedHintLabels =
+            new FrequencyWeightedHintLabels();
+    private final ScreenEdgeMapCache screenEdgeMapCache =
+            new ScreenEdgeMapCache(WindowsScreenCapture::capture);
     private Configuration configuration;
     private MouseController mouseController;
     private KeyboardManager keyboardManager;
+    private HintManager hintManager;
     private IndicatorManager indicatorManager;
     private ModeController modeController;
+    private ComboWatcher comboWatcher;
+    private List<MousePositionListener> mousePositionListeners;
 
-    public Mousemaster(Path configurationPath, Platform platform) throws IOException {
+    /**
+     * @param configuration loaded by the caller, so that it can be parsed while the
+     *                      platform is being initialized.
+     */
+    public Mousemaster(Path configurationPath, Configuration configuration,
+                       Platform platform, TickProfiler tickProfiler,
+                       StartupProfiler startupProfiler) throws IOException {
         this.configurationPath = configurationPath;
+        this.configuration = configuration;
         this.platform = platform;
-        loadConfiguration();
-        watchService = FileSystems.getDefault().newWatchService();
-        configurationPath.toAbsolutePath()
-                         .getParent()
-                         .register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.tickProfiler = tickProfiler;
+        this.startupProfiler = startupProfiler;
+        positionHistory = new PositionHistory(
+                configurationPath.resolveSibling(
+                        configurationPath.getFileName() + ".positions"),
+                configuration.maxPositionHistorySize());
+        buildComponents();
+        logger.info("Loaded configuration file " + configurationPath);
+        configurationWatcher = new ConfigurationWatcher(configurationPath);
+        configurationWatcher.start();
     }
 
     public void run() throws InterruptedException {
+        startupProfiler.finish();
         long previousNanoTime = System.nanoTime();
         while (true) {
             long currentNanoTime = System.nanoTime();
             long deltaNanos = currentNanoTime - previousNanoTime;
             previousNanoTime = currentNanoTime;
             double delta = deltaNanos / 1e9d;
+            long nanoTime = tickProfiler.tickBegan();
             updateConfiguration();
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.CONFIGURATION, nanoTime);
             platform.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.PLATFORM, nanoTime);
             modeController.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.MODE_CONTROLLER, nanoTime);
             mouseController.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.MOUSE_CONTROLLER, nanoTime);
             keyboardManager.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.KEYBOARD_MANAGER, nanoTime);
+            hintManager.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.HINT_MANAGER, nanoTime);
             indicatorManager.update(delta);
-            Thread.sleep(10L);
+            tickProfiler.subsystemUpdated(TickProfiler.Subsystem.INDICATOR_MANAGER, nanoTime);
+            tickProfiler.tickEnded();
+            // Unlike sleep, the platform can wake the loop up early (e.g. with key events
+            // received on another thread).
+            LockSupport.parkNanos(10_000_000L);
         }
     }
 
     private void updateConfiguration() {
-        WatchKey key = watchService.poll();
-        if (key == null)
+        Configuration newConfiguration = configurationWatcher.pollConfiguration();
+        if (newConfiguration == null)
             return;
-        for (WatchEvent<?> event : key.pollEvents()) {
-            WatchEvent.Kind<?> kind = event.kind();
-            Path path = (Path) event.context();
-            if (!path.getFileName()
-                     .toString()
-                     .equals(configurationPath.getFileName().toString()))
-                continue;
-            if (kind.equals(StandardWatchEventKinds.ENTRY_DELETE))
-                logger.info("Configuration file " + configurationPath + " was deleted");
+        try {
+            reloadConfiguration(newConfiguration);
+        } catch (Exception e) {
+            logger.error("Unable to load configuration file " + configurationPath, e);
+        }
+    }
+
+    /**
+     * Only the modes that have changed are replaced, and the components are kept, along
+     * with their state (position history, pressed keys, mouse buttons being held, current
+     * mode if it still exists).
+     * A change of keyboard layout or of position history size requires a full reload.
+     */
+    private void reloadConfiguration(Configuration newConfiguration) {
+        long reloadBeginNanoTime = System.nanoTime();
+        if (!Objects.equals(newConfiguration.keyboardLayout(),
+                configuration.keyboardLayout()) ||
+            newConfiguration.maxPositionHistorySize() !=
+            configuration.maxPositionHistorySize()) {
+            Configuration previousConfiguration = configuration;
+            configuration = newConfiguration;
+            try {
+                buildComponents();
+            } catch (RuntimeException e) {
+                // Components built from the new configuration may not match the platform.
+                configuration = previousConfiguration;
+                buildComponents();
+                throw e;
+            }
+            logger.info("Reloaded configuration file " + configurationPath);
+            return;
+        }
+        Set<Mode> reloadedModes = new HashSet<>();
+        List<String> changedModeNames = new ArrayList<>();
+        for (Mode newMode : newConfiguration.modeMap().modes()) {
+            Mode oldMode = configuration.modeMap().get(newMode.name());
+            if (newMode.equals(oldMode))
+                // Keep the old instance: components compare modes by identity.
+                reloadedModes.add(oldMode);
             else {
-                logger.info("Configuration file " + configurationPath + " has changed");
-                try {
-                    loadConfiguration();
-                } catch (Exception e) {
-                    logger.error(
-                            "Unable to load configuration file " + configurationPath, e);
-                }
+                reloadedModes.add(newMode);
+                changedModeNames.add(newMode.name());
             }
         }
-        key.reset();
+        List<String> removedModeNames = configuration.modeMap()
+                                                     .modes()
+                                                     .stream()
+                                                     .map(Mode::name)
+                                                     .filter(modeName ->
+                                                             newConfiguration.modeMap()
+                                                                             .get(modeName) ==
+                                                             null)
+                                                     .toList();
+        ModeMap reloadedModeMap = new ModeMap(reloadedModes);
+        if (!changedModeNames.isEmpty() || !removedModeNames.isEmpty()) {
+            // The platform checks the new modes (keys, hint fonts) before changing
+            // anything: if it throws, the old modes are kept.
+            platform.reset(mouseController, keyboardManager,
+                    newConfiguration.keyboardLayout(), reloadedModeMap,
+                    mousePositionListeners);
+            comboWatcher.setComboPreconditionKeys(
+                    mustRemainUnpressedComboPreconditionKeys(reloadedModeMap),
+                    mustRemainPressedComboPreconditionKeys(reloadedModeMap));
+            modeController.reloadModeMap(reloadedModeMap);
+        }
+        configuration = new Configuration(newConfiguration.keyboardLayout(),
+                newConfiguration.maxPositionHistorySize(), reloadedModeMap);
+        logger.info("Reloaded configuration file " + configurationPath + " in " +
+                    (System.nanoTime() - reloadBeginNanoTime) / 1_000_000 +
+                    "ms, changed modes = " + changedModeNames + ", removed modes = " +
+                    removedModeNames);
+    }
+
+    private void buildComponents() {
+        startupProfiler.measure(StartupProfiler.Phase.COMPONENTS, this::createComponents);
+        platform.reset(mouseController, keyboardManager, configuration.keyboardLayout(),
+                configuration.modeMap(), mousePositionListeners);
     }
 
-    private void loadConfiguration() throws IOException {
-        boolean reload = configuration != null;
-        configuration = ConfigurationParser.parse(configurationPath);
-        logger.info((reload ? "Reloaded" : "Loaded") + " configuration file " +
-                    configurationPath);
+    private void createComponents() {
         ScreenManager screenManager = new ScreenManager();
-        mouseController = new MouseController(screenManager);
-        MouseState mouseState = new MouseState(mouseController);
-        GridManager gridManager = new GridManager(screenManager, mouseController);
-        HintManager hintManager =
-                new HintManager(configuration.maxPositionHistorySize(),
-                        screenManager, mouseController);
+        StateStore stateStore = new StateStore();
+        mouseController = new MouseController(screenManager, stateStore);
+        GridManager gridManager = new GridManager(screenManager, mouseController,
+                screenEdgeMapCache);
+        positionHistory.setMaxSize(configuration.maxPositionHistorySize());
+        if (hintManager != null)
+            hintManager.closeHintTargetSource();
+        hintManager =
+                new HintManager(positionHistory, frequencyWeightedHintLabels,
+                        screenManager, mouseController, stateStore,
+                        WindowsOverlay.overlay);
         CommandRunner commandRunner = new CommandRunner(mouseController, gridManager,
                 hintManager);
-        Set<Key> mustRemainUnpressedComboPreconditionKeys = new HashSet<>();
-        Set<Key> mustRemainPressedComboPreconditionKeys = new HashSet<>();
-        for (Mode mode : configuration.modeMap().modes()) {
-            for (Combo combo : mode.comboMap().commandsByCombo().keySet()) {
-                mustRemainUnpressedComboPreconditionKeys.addAll(combo.precondition()
-                                                                     .mustRemainUnpressedKeySet()
-                                                                     .stream()
-                                                                     .toList());
-                mustRemainPressedComboPreconditionKeys.addAll(combo.precondition()
-                                                                     .mustRemainPressedKeySets()
-                                                                     .stream()
-                                                                     .flatMap(
-                                                                             Collection::stream)
-                                                                     .toList());
-            }
-        }
-        ComboWatcher comboWatcher =
-                new ComboWatcher(commandRunner, mustRemainUnpressedComboPreconditionKeys,
-                        mustRemainPressedComboPreconditionKeys);
-        keyboardManager = new KeyboardManager(comboWatcher, hintManager);
-        KeyboardState keyboardState = new KeyboardState(keyboardManager);
-        indicatorManager = new IndicatorManager(mouseState, keyboardState);
+        comboWatcher = new ComboWatcher(commandRunner,
+                mustRemainUnpressedComboPreconditionKeys(configuration.modeMap()),
+                mustRemainPressedComboPreconditionKeys(configuration.modeMap()));
+        keyboardManager = new KeyboardManager(comboWatcher, hintManager, stateStore);
+        indicatorManager = new IndicatorManager(stateStore, WindowsOverlay.overlay);
         modeController =
-                new ModeController(configuration.modeMap(), mouseController, mouseState,
-                        keyboardState,
-                        List.of(comboWatcher, mouseController, indicatorManager,
-                                gridManager, hintManager));
+                new ModeController(configuration.modeMap(), mouseController, stateStore,
+                        List.of(comboWatcher, mouseController, gridManager,
+                                hintManager));
         commandRunner.setModeController(modeController);
         hintManager.setModeController(modeController);
         gridManager.setListeners(List.of(modeController));
         hintManager.setPositionHistoryListener(List.of(modeController));
         modeController.switchMode(Mode.IDLE_MODE_NAME);
-        platform.reset(mouseController, keyboardManager, configuration.keyboardLayout(),
-                configuration.modeMap(),
-                List.of(mouseController, gridManager, hintManager, screenManager));
+        mousePositionListeners =
+                List.of(mouseController, gridManager, hintManager, screenManager);
+    }
+
+    static Set<Key> mustRemainUnpressedComboPreconditionKeys(ModeMap modeMap) {
+        Set<Key> mustRemainUnpressedComboPreconditionKeys = new HashSet<>();
+        for (Mode mode : modeMap.modes()) {
+            for (Combo combo : mode.comboMap().commandsByCombo().keySet())
+                mustRemainUnpressedComboPreconditionKeys.addAll(
+                        combo.precondition().mustRemainUnpressedKeySet());
+        }
+        return mustRemainUnpressedComboPreconditionKeys;
+    }
+
+    static Set<Key> mustRemainPressedComboPreconditionKeys(ModeMap modeMap) {
+        Set<Key> mustRemainPressedComboPreconditionKeys = new HashSet<>();
+        for (Mode mode : modeMap.modes()) {
+            for (Combo combo : mode.comboMap().commandsByCombo().keySet())
+                combo.precondition()
+                     .mustRemainPressedKeySets()
+                     .forEach(mustRemainPressedComboPreconditionKeys::addAll);
+        }
+        return mustRemainPressedComboPreconditionKeys;
     }
 
 }
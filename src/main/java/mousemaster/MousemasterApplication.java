@@ -4,9 +4,16 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import org.slf4j.LoggerFactory;
 
+import jdk.jfr.Recording;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -16,6 +23,8 @@ public class MousemasterApplication {
             (Logger) LoggerFactory.getLogger(MousemasterApplication.class);
 
     public static void main(String[] args) throws InterruptedException, IOException {
+        StartupProfiler startupProfiler = new StartupProfiler(
+                Stream.of(args).anyMatch(Predicate.isEqual("--startup-report")));
         Stream.of(args)
               .filter(arg -> arg.startsWith("--log-level="))
               .map(arg -> arg.split("=")[1])
@@ -39,7 +48,70 @@ public class MousemasterApplication {
                 System.exit(0);
             }).start();
         }
-        new Mousemaster(configurationPath, new WindowsPlatform()).run();
+        Stream.of(args)
+              .filter(arg -> arg.startsWith("--profile="))
+              .map(arg -> arg.split("=")[1])
+              .findFirst()
+              .map(Paths::get)
+              .ifPresent(MousemasterApplication::startFlightRecording);
+        boolean inputThread =
+                Stream.of(args).anyMatch(Predicate.isEqual("--input-thread"));
+        List<Duration> hookLatencyThresholds =
+                Stream.of(args)
+                      .filter(arg -> arg.startsWith("--hook-latency-thresholds-ms="))
+                      .map(arg -> arg.split("=")[1])
+                      .findFirst()
+                      .map(thresholds -> Stream.of(thresholds.split(","))
+                                               .map(String::strip)
+                                               .map(Long::parseLong)
+                                               .map(Duration::ofMillis)
+                                               .toList())
+                      .orElse(List.of(Duration.ofMillis(1), Duration.ofMillis(10),
+                              Duration.ofMillis(100)));
+        boolean stats = Stream.of(args).anyMatch(Predicate.isEqual("--stats"));
+        Duration tickBudget = Stream.of(args)
+                                    .filter(arg -> arg.startsWith("--tick-budget-ms="))
+                                    .map(arg -> arg.split("=")[1])
+                                    .findFirst()
+                                    .map(Long::parseLong)
+                                    .map(Duration::ofMillis)
+                                    .orElse(Duration.ofMillis(100));
+        TickProfiler tickProfiler = new TickProfiler(Duration.ofMillis(10), tickBudget);
+        tickProfiler.start();
+        // The configuration is parsed while the platform is initialized (single instance
+        // mutex, DPI awareness, hooks).
+        CompletableFuture<Configuration> configuration =
+                startupProfiler.measureAsync(StartupProfiler.Phase.CONFIGURATION, () -> {
+                    try {
+                        return ConfigurationParser.parse(configurationPath);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        WindowsPlatform platform = startupProfiler.measure(StartupProfiler.Phase.PLATFORM,
+                () -> new WindowsPlatform(startupProfiler, inputThread,
+                        hookLatencyThresholds, stats));
+        new Mousemaster(configurationPath, StartupProfiler.join(configuration), platform,
+                tickProfiler, startupProfiler).run();
+    }
+
+    /**
+     * Records the JFR events (including the mousemaster ones) and writes them to the
+     * file when the JVM exits.
+     */
+    private static void startFlightRecording(Path recordingPath) {
+        try {
+            Recording recording =
+                    new Recording(jdk.jfr.Configuration.getConfiguration("profile"));
+            recording.setName("mousemaster");
+            recording.setDestination(recordingPath);
+            recording.setDumpOnExit(true);
+            recording.start();
+            logger.info("Started flight recording, it will be written to " +
+                        recordingPath.toAbsolutePath() + " on exit");
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unable to start flight recording", e);
+        }
     }
 
     private static void setLogLevel(String level) {
@@ -0,0 +1,17 @@
+package mousemaster;
+
+/**
+ * Operating system side of the managers that draw on the screen.
+ * @see WindowsOverlay#overlay
+ */
+public interface Overlay {
+
+    void setHintMesh(HintMesh hintMesh);
+
+    void hideHintMesh();
+
+    void setIndicator(Indicator indicator);
+
+    void hideIndicator();
+
+}
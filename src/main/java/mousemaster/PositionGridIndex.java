@@ -0,0 +1,163 @@
+package mousemaster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Positions bucketed by square cell, used to find the nearest position in a direction
+ * without going through all positions: cells are visited in rings around the cell of the
+ * origin, and the search stops as soon as a ring is too far to contain a nearer position.
+ * Up to {@link #defaultLinearScanMaxSize} positions, a linear scan is faster than visiting
+ * the cells (see PositionGridIndexBenchmark).
+ */
+public class PositionGridIndex {
+
+    private static final int cellSize = 128;
+    /**
+     * The max position history size (100) is below this: the grid is only used if that
+     * maximum is raised.
+     */
+    private static final int defaultLinearScanMaxSize = 400;
+
+    private final int linearScanMaxSize;
+    private final List<Point> points = new ArrayList<>();
+    private final Map<Long, List<Point>> pointsByCell = new HashMap<>();
+    // Bounds of the cells that contain (or have contained) points.
+    private int minColumn, maxColumn, minRow, maxRow;
+
+    public PositionGridIndex() {
+        this(defaultLinearScanMaxSize);
+    }
+
+    /**
+     * @param linearScanMaxSize 0 to always use the grid.
+     */
+    PositionGridIndex(int linearScanMaxSize) {
+        this.linearScanMaxSize = linearScanMaxSize;
+    }
+
+    public void add(Point point) {
+        int column = Math.floorDiv(point.x(), cellSize);
+        int row = Math.floorDiv(point.y(), cellSize);
+        pointsByCell.computeIfAbsent(cellKey(column, row), cellKey -> new ArrayList<>())
+                    .add(point);
+        if (points.isEmpty()) {
+            minColumn = maxColumn = column;
+            minRow = maxRow = row;
+        }
+        else {
+            minColumn = Math.min(minColumn, column);
+            maxColumn = Math.max(maxColumn, column);
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+        }
+        points.add(point);
+    }
+
+    public void remove(Point point) {
+        long cellKey = cellKey(Math.floorDiv(point.x(), cellSize),
+                Math.floorDiv(point.y(), cellSize));
+        List<Point> cellPoints = pointsByCell.get(cellKey);
+        if (cellPoints == null || !cellPoints.remove(point))
+            return;
+        if (cellPoints.isEmpty())
+            pointsByCell.remove(cellKey);
+        points.remove(point);
+    }
+
+    public void clear() {
+        pointsByCell.clear();
+        points.clear();
+    }
+
+    /**
+     * Only the positions strictly in the direction are candidates (e.g. above the origin
+     * for up). The distance along the other axis counts twice as much, so that a position
+     * slightly further but aligned with the origin is preferred over a position off to the
+     * side.
+     * @return null if there is no position in the direction.
+     */
+    public Point nearest(int x, int y, boolean horizontal, boolean forward) {
+        if (points.isEmpty())
+            return null;
+        if (points.size() <= linearScanMaxSize)
+            return nearest(points, x, y, horizontal, forward, null, Long.MAX_VALUE);
+        int column = Math.floorDiv(x, cellSize);
+        int row = Math.floorDiv(y, cellSize);
+        // Rings closer than the bounds are empty.
+        int firstRing = Math.max(0, Math.max(
+                Math.max(minColumn - column, column - maxColumn),
+                Math.max(minRow - row, row - maxRow)));
+        int lastRing = Math.max(
+                Math.max(Math.abs(column - minColumn), Math.abs(column - maxColumn)),
+                Math.max(Math.abs(row - minRow), Math.abs(row - maxRow)));
+        // Cells behind the origin, and cells out of the bounds, are skipped.
+        int minSearchColumn = horizontal && forward ? Math.max(minColumn, column) : minColumn;
+        int maxSearchColumn = horizontal && !forward ? Math.min(maxColumn, column) : maxColumn;
+        int minSearchRow = !horizontal && forward ? Math.max(minRow, row) : minRow;
+        int maxSearchRow = !horizontal && !forward ? Math.min(maxRow, row) : maxRow;
+        Point nearest = null;
+        long nearestScore = Long.MAX_VALUE;
+        for (int ring = firstRing; ring <= lastRing; ring++) {
+            // A position in the ring is at least (ring - 1) cells away.
+            long ringDistance = (long) Math.max(0, ring - 1) * cellSize;
+            if (ringDistance * ringDistance > nearestScore)
+                break;
+            for (int ringColumn = Math.max(column - ring, minSearchColumn);
+                 ringColumn <= Math.min(column + ring, maxSearchColumn); ringColumn++) {
+                boolean edgeColumn = ringColumn == column - ring || ringColumn == column + ring;
+                // Inner columns only have their top and bottom cells in the ring.
+                int rowStep = edgeColumn || ring == 0 ? 1 : 2 * ring;
+                for (int ringRow = row - ring; ringRow <= row + ring; ringRow += rowStep) {
+                    if (ringRow < minSearchRow || ringRow > maxSearchRow)
+                        continue;
+                    List<Point> cellPoints = pointsByCell.get(cellKey(ringColumn, ringRow));
+                    if (cellPoints == null)
+                        continue;
+                    Point cellNearest = nearest(cellPoints, x, y, horizontal, forward,
+                            nearest, nearestScore);
+                    if (cellNearest != nearest) {
+                        nearest = cellNearest;
+                        nearestScore = score(nearest, x, y, horizontal, forward);
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @return the given nearest point if none of the points has a lower score.
+     */
+    private static Point nearest(List<Point> points, int x, int y, boolean horizontal,
+                                 boolean forward, Point nearest, long nearestScore) {
+        for (Point point : points) {
+            long score = score(point, x, y, horizontal, forward);
+            if (score < nearestScore) {
+                nearest = point;
+                nearestScore = score;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @return Long.MAX_VALUE if the point is not in the direction. Otherwise, at least
+     * the square of the distance.
+     */
+    private static long score(Point point, int x, int y, boolean horizontal,
+                              boolean forward) {
+        long along = horizontal ? point.x() - x : point.y() - y;
+        long across = horizontal ? point.y() - y : point.x() - x;
+        if (forward ? along <= 0 : along >= 0)
+            return Long.MAX_VALUE;
+        return along * along + 4 * across * across;
+    }
+
+    private static long cellKey(int column, int row) {
+        return (long) column << 32 | row & 0xFFFFFFFFL;
+    }
+
+}
@@ -0,0 +1,313 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Saved mouse positions, oldest first. When the history is full, saving a position
+ * forgets the oldest one.
+ * Positions are stored in a ring buffer, along with an index of the slot of each
+ * position which is updated in step with the ring buffer. Each position has an id,
+ * incremented on each save, used for deterministic hint key sequences. Positions are also
+ * kept in a {@link PositionGridIndex} to find the nearest position in a direction.
+ * Position registers (vim-style marks) are stored in a fixed array, the index of a
+ * register is assigned when a position is first saved to it.
+ * The ring buffer and the registers are also written to a memory-mapped file so that they
+ * survive restarts: writes only go to memory, the operating system writes them to disk
+ * later.
+ */
+public class PositionHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionHistory.class);
+
+    /**
+     * Same as the maximum max-position-history-size.
+     */
+    private static final int slotCount = 100;
+    private static final int magicNumber = 0x4D4D5048;
+    /**
+     * Must be incremented when the layout of the file changes.
+     */
+    private static final int formatVersion = 2;
+    // magic number, format version, head slot, size, next id
+    private static final int headerByteCount = 5 * Integer.BYTES;
+    // x, y, id
+    private static final int slotByteCount = 3 * Integer.BYTES;
+    private static final int registerCount = 64;
+    public static final int maxRegisterNameByteCount = 32;
+    // name length, name, x, y, save number
+    private static final int registerByteCount =
+            Integer.BYTES + maxRegisterNameByteCount + 3 * Integer.BYTES;
+    private static final int registersOffset = headerByteCount + slotCount * slotByteCount;
+
+    private final Point[] points = new Point[slotCount];
+    private final int[] ids = new int[slotCount];
+    private final Map<Point, Integer> slotByPoint = new HashMap<>();
+    private final PositionGridIndex gridIndex = new PositionGridIndex();
+    private final String[] registerNames = new String[registerCount];
+    private final Point[] registerPoints = new Point[registerCount];
+    /**
+     * Used to reuse the least recently saved register when all registers are used.
+     */
+    private final int[] registerSaveNumbers = new int[registerCount];
+    private final Map<String, Integer> registerIndexByName = new HashMap<>();
+    private int registerSaveCount;
+    /**
+     * Null if the file could not be mapped: the history is then only kept in memory.
+     */
+    private final MappedByteBuffer buffer;
+    private int maxSize;
+    private int headSlot;
+    private int size;
+    private int nextId;
+
+    public PositionHistory(Path path, int maxSize) {
+        buffer = map(path);
+        if (buffer != null && buffer.getInt(0) == magicNumber &&
+            buffer.getInt(Integer.BYTES) == formatVersion)
+            read();
+        else
+            writeHeader();
+        trimToMaxSize(maxSize);
+        logger.info("Loaded " + size + " positions from position history file " + path);
+    }
+
+    private static MappedByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping remains valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    registersOffset + (long) registerCount * registerByteCount);
+        } catch (IOException e) {
+            logger.info("Unable to map position history file " + path +
+                        ", the position history will not be persisted", e);
+            return null;
+        }
+    }
+
+    private void read() {
+        headSlot = buffer.getInt(2 * Integer.BYTES);
+        size = buffer.getInt(3 * Integer.BYTES);
+        nextId = buffer.getInt(4 * Integer.BYTES);
+        if (headSlot < 0 || headSlot >= slotCount || size < 0 || size > slotCount) {
+            headSlot = 0;
+            size = 0;
+            nextId = 0;
+            writeHeader();
+            return;
+        }
+        for (int index = 0; index < size; index++) {
+            int slot = slot(index);
+            int slotOffset = slotOffset(slot);
+            points[slot] = new Point(buffer.getInt(slotOffset),
+                    buffer.getInt(slotOffset + Integer.BYTES));
+            ids[slot] = buffer.getInt(slotOffset + 2 * Integer.BYTES);
+            slotByPoint.put(points[slot], slot);
+            gridIndex.add(points[slot]);
+        }
+        for (int registerIndex = 0; registerIndex < registerCount; registerIndex++) {
+            int registerOffset = registerOffset(registerIndex);
+            int nameByteCount = buffer.getInt(registerOffset);
+            if (nameByteCount <= 0 || nameByteCount > maxRegisterNameByteCount)
+                continue;
+            byte[] nameBytes = new byte[nameByteCount];
+            buffer.get(registerOffset + Integer.BYTES, nameBytes);
+            int pointOffset = registerOffset + Integer.BYTES + maxRegisterNameByteCount;
+            registerNames[registerIndex] = new String(nameBytes, StandardCharsets.UTF_8);
+            registerPoints[registerIndex] = new Point(buffer.getInt(pointOffset),
+                    buffer.getInt(pointOffset + Integer.BYTES));
+            registerSaveNumbers[registerIndex] =
+                    buffer.getInt(pointOffset + 2 * Integer.BYTES);
+            registerSaveCount =
+                    Math.max(registerSaveCount, registerSaveNumbers[registerIndex] + 1);
+            registerIndexByName.put(registerNames[registerIndex], registerIndex);
+        }
+    }
+
+    /**
+     * Forgets the oldest positions if there are more than maxSize.
+     */
+    public void setMaxSize(int maxSize) {
+        trimToMaxSize(maxSize);
+    }
+
+    /**
+     * Also called from the constructor, unlike the overridable {@link #setMaxSize(int)}.
+     */
+    private void trimToMaxSize(int maxSize) {
+        this.maxSize = Math.min(maxSize, slotCount);
+        while (size > this.maxSize)
+            removeOldest();
+        writeHeader();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index 0 is the oldest position.
+     */
+    public Point get(int index) {
+        return points[slot(index)];
+    }
+
+    public int id(int index) {
+        return ids[slot(index)];
+    }
+
+    /**
+     * @return -1 if the position is not in the history.
+     */
+    public int indexOf(Point point) {
+        Integer slot = slotByPoint.get(point);
+        return slot == null ? -1 : (slot - headSlot + slotCount) % slotCount;
+    }
+
+    /**
+     * @return false if the position is already in the history.
+     */
+    public boolean add(Point point) {
+        if (slotByPoint.containsKey(point))
+            return false;
+        if (size == maxSize)
+            removeOldest();
+        int slot = slot(size);
+        points[slot] = point;
+        ids[slot] = nextId;
+        slotByPoint.put(point, slot);
+        gridIndex.add(point);
+        nextId = nextId == Integer.MAX_VALUE ? 0 : nextId + 1;
+        size++;
+        writeSlot(slot);
+        writeHeader();
+        return true;
+    }
+
+    /**
+     * @return null if there is no position in the direction.
+     * @see PositionGridIndex#nearest(int, int, boolean, boolean)
+     */
+    public Point nearest(int x, int y, boolean horizontal, boolean forward) {
+        return gridIndex.nearest(x, y, horizontal, forward);
+    }
+
+    /**
+     * @return null if nothing was saved to the register.
+     */
+    public Point register(String registerName) {
+        Integer registerIndex = registerIndexByName.get(registerName);
+        return registerIndex == null ? null : registerPoints[registerIndex];
+    }
+
+    /**
+     * @param registerName at most {@link #maxRegisterNameByteCount} bytes in UTF-8.
+     */
+    public void saveToRegister(String registerName, Point point) {
+        if (registerName.getBytes(StandardCharsets.UTF_8).length >
+            maxRegisterNameByteCount)
+            throw new IllegalArgumentException(
+                    "Register name " + registerName + " is longer than " +
+                    maxRegisterNameByteCount + " bytes");
+        Integer registerIndex = registerIndexByName.get(registerName);
+        if (registerIndex == null) {
+            registerIndex = 0;
+            for (int index = 0; index < registerCount; index++) {
+                if (registerNames[index] == null) {
+                    registerIndex = index;
+                    break;
+                }
+                if (registerSaveNumbers[index] < registerSaveNumbers[registerIndex])
+                    registerIndex = index;
+            }
+            if (registerNames[registerIndex] != null)
+                registerIndexByName.remove(registerNames[registerIndex]);
+            registerNames[registerIndex] = registerName;
+            registerIndexByName.put(registerName, registerIndex);
+        }
+        registerPoints[registerIndex] = point;
+        registerSaveNumbers[registerIndex] = registerSaveCount++;
+        writeRegister(registerIndex);
+    }
+
+    public void clear() {
+        for (int index = 0; index < size; index++)
+            points[slot(index)] = null;
+        slotByPoint.clear();
+        gridIndex.clear();
+        headSlot = 0;
+        size = 0;
+        nextId = 0;
+        writeHeader();
+    }
+
+    private void removeOldest() {
+        slotByPoint.remove(points[headSlot]);
+        gridIndex.remove(points[headSlot]);
+        points[headSlot] = null;
+        headSlot = (headSlot + 1) % slotCount;
+        size--;
+    }
+
+    private int slot(int index) {
+        return (headSlot + index) % slotCount;
+    }
+
+    private static int slotOffset(int slot) {
+        return headerByteCount + slot * slotByteCount;
+    }
+
+    private static int registerOffset(int registerIndex) {
+        return registersOffset + registerIndex * registerByteCount;
+    }
+
+    private void writeHeader() {
+        if (buffer == null)
+            return;
+        buffer.putInt(0, magicNumber);
+        buffer.putInt(Integer.BYTES, formatVersion);
+        buffer.putInt(2 * Integer.BYTES, headSlot);
+        buffer.putInt(3 * Integer.BYTES, size);
+        buffer.putInt(4 * Integer.BYTES, nextId);
+    }
+
+    private void writeSlot(int slot) {
+        if (buffer == null)
+            return;
+        int slotOffset = slotOffset(slot);
+        buffer.putInt(slotOffset, points[slot].x());
+        buffer.putInt(slotOffset + Integer.BYTES, points[slot].y());
+        buffer.putInt(slotOffset + 2 * Integer.BYTES, ids[slot]);
+    }
+
+    private void writeRegister(int registerIndex) {
+        if (buffer == null)
+            return;
+        int registerOffset = registerOffset(registerIndex);
+        byte[] nameBytes = registerNames[registerIndex].getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(registerOffset, nameBytes.length);
+        buffer.put(registerOffset + Integer.BYTES, nameBytes);
+        int pointOffset = registerOffset + Integer.BYTES + maxRegisterNameByteCount;
+        buffer.putInt(pointOffset, registerPoints[registerIndex].x());
+        buffer.putInt(pointOffset + Integer.BYTES, registerPoints[registerIndex].y());
+        buffer.putInt(pointOffset + 2 * Integer.BYTES, registerSaveNumbers[registerIndex]);
+    }
+
+}
@@ -0,0 +1,76 @@
+package mousemaster;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Forgets the keys pressed (and not eaten) for 10s whose release may have been missed.
+ * On the Windows lock screen, hit space then enter the pin. Space press is recorded by the app but the
+ * corresponding release is never received. That is why we need to double-check if the key is still pressed
+ * with GetAsyncKeyState.
+ * Sometimes, it is the Win key (from Win + L) for which we do not receive the release event.
+ * getAsyncKeyStateResult is not working the way I expected: it returns not pressed for keys pressed
+ * after other keys: press left button, then move mouse: the key for press left shows as not pressed
+ * according to getAsyncKeyStateResult. That is why we consider not eaten keys only.
+ * The getAsyncKeyStateResult call could probably be taken out (it is useless) and replaced with
+ * a simple 10s expiration time.
+ * The platform supplies the key state (GetAsyncKeyState on Windows).
+ */
+public class PressedKeySanityCheck {
+
+    private final Predicate<Key> keyStillPressed;
+    private final Map<Key, PressDuration> currentlyPressedNotEatenKeys = new HashMap<>();
+
+    public PressedKeySanityCheck(Predicate<Key> keyStillPressed) {
+        this.keyStillPressed = keyStillPressed;
+    }
+
+    public void keyEvent(KeyEvent keyEvent, boolean eaten) {
+        if (!keyEvent.isPress())
+            currentlyPressedNotEatenKeys.remove(keyEvent.key());
+        else if (!eaten)
+            currentlyPressedNotEatenKeys.computeIfAbsent(keyEvent.key(),
+                    key -> new PressDuration()).seconds = 0;
+    }
+
+    /**
+     * @return null if every key that was pressed for 10s is still pressed. Otherwise, the
+     * keys that do not seem to be pressed anymore, and the pressed keys are forgotten.
+     */
+    public Set<Key> update(double delta) {
+        // Nothing to check (and nothing to allocate) on idle ticks.
+        if (currentlyPressedNotEatenKeys.isEmpty())
+            return null;
+        for (PressDuration pressDuration : currentlyPressedNotEatenKeys.values())
+            pressDuration.seconds += delta;
+        Set<Key> keysThatDoNotSeemToBePressedAnymore = null;
+        for (Map.Entry<Key, PressDuration> entry : currentlyPressedNotEatenKeys.entrySet()) {
+            Key key = entry.getKey();
+            PressDuration pressDuration = entry.getValue();
+            if (pressDuration.seconds < 10)
+                continue;
+            if (!keyStillPressed.test(key)) {
+                if (keysThatDoNotSeemToBePressedAnymore == null)
+                    keysThatDoNotSeemToBePressedAnymore = new HashSet<>();
+                keysThatDoNotSeemToBePressedAnymore.add(key);
+            }
+            else
+                // The key was legitimately pressed for 10s.
+                pressDuration.seconds = 0;
+        }
+        if (keysThatDoNotSeemToBePressedAnymore != null)
+            currentlyPressedNotEatenKeys.clear();
+        return keysThatDoNotSeemToBePressedAnymore;
+    }
+
+    /**
+     * Mutable so that the sanity check does not box a new duration on every tick.
+     */
+    private static final class PressDuration {
+        private double seconds;
+    }
+
+}
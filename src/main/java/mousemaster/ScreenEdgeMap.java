@@ -0,0 +1,140 @@
+package mousemaster;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Sobel edges of a capture of a screen (full resolution), used to snap the mouse to the
+ * next edge. The capture is split into tiles, and each tile has a hash of its pixels:
+ * when the screen is captured again, only the tiles whose hash changed are recomputed.
+ * Immutable: an update returns a new edge map, so that it can be computed on another
+ * thread while the current one is being used.
+ */
+public class ScreenEdgeMap {
+
+    private static final int tileSize = 64;
+
+    private final Rectangle screenRectangle;
+    private final int columnCount;
+    private final byte[] gray;
+    private final byte[] edges;
+    private final int[] tileHashes;
+
+    private ScreenEdgeMap(Rectangle screenRectangle, byte[] gray, byte[] edges,
+                          int[] tileHashes) {
+        this.screenRectangle = screenRectangle;
+        this.columnCount = Math.ceilDiv(screenRectangle.width(), tileSize);
+        this.gray = gray;
+        this.edges = edges;
+        this.tileHashes = tileHashes;
+    }
+
+    /**
+     * @param pixels capture of the screen, 0xRRGGBB, row by row.
+     */
+    public static ScreenEdgeMap of(Rectangle screenRectangle, int[] pixels) {
+        int pixelCount = screenRectangle.width() * screenRectangle.height();
+        ScreenEdgeMap edgeMap = new ScreenEdgeMap(screenRectangle, new byte[pixelCount],
+                new byte[pixelCount], new int[Math.ceilDiv(screenRectangle.width(),
+                tileSize) * Math.ceilDiv(screenRectangle.height(), tileSize)]);
+        edgeMap.recomputeTiles(pixels, null);
+        return edgeMap;
+    }
+
+    /**
+     * @return this if no tile changed.
+     */
+    public ScreenEdgeMap updated(int[] pixels) {
+        int[] newTileHashes = new int[tileHashes.length];
+        IntStream.range(0, tileHashes.length)
+                 .parallel()
+                 .forEach(tile -> newTileHashes[tile] = tileHash(pixels, tile));
+        if (Arrays.equals(newTileHashes, tileHashes))
+            return this;
+        ScreenEdgeMap edgeMap = new ScreenEdgeMap(screenRectangle, gray.clone(),
+                edges.clone(), newTileHashes);
+        edgeMap.recomputeTiles(pixels, tileHashes);
+        return edgeMap;
+    }
+
+    /**
+     * @param previousTileHashes null to compute all tiles.
+     */
+    private void recomputeTiles(int[] pixels, int[] previousTileHashes) {
+        int[] changedTiles = IntStream.range(0, tileHashes.length)
+                                      .filter(tile -> previousTileHashes == null ||
+                                                      tileHashes[tile] !=
+                                                      previousTileHashes[tile])
+                                      .toArray();
+        int width = screenRectangle.width();
+        int height = screenRectangle.height();
+        Arrays.stream(changedTiles).parallel().forEach(tile -> {
+            if (previousTileHashes == null)
+                tileHashes[tile] = tileHash(pixels, tile);
+            forEachTilePixel(tile, 0, index -> gray[index] =
+                    (byte) TargetDetector.luma(pixels[index]));
+        });
+        // The edges next to a tile depend on its pixels. Tiles that are next to each other
+        // both write the same values to the pixels between them.
+        Arrays.stream(changedTiles).parallel().forEach(tile ->
+                forEachTilePixel(tile, 1, index -> {
+                    int x = index % width;
+                    int y = index / width;
+                    edges[index] = (byte) (x > 0 && x < width - 1 && y > 0 &&
+                                           y < height - 1 &&
+                                           TargetDetector.sobelEdge(gray, width,
+                                                   index) ? 1 : 0);
+                }));
+    }
+
+    private int tileHash(int[] pixels, int tile) {
+        int[] hash = {1};
+        forEachTilePixel(tile, 0, index -> hash[0] = 31 * hash[0] + pixels[index]);
+        return hash[0];
+    }
+
+    private void forEachTilePixel(int tile, int margin, IntConsumer pixelConsumer) {
+        int beginX = Math.max(0, tile % columnCount * tileSize - margin);
+        int beginY = Math.max(0, tile / columnCount * tileSize - margin);
+        int endX = Math.min(screenRectangle.width(),
+                (tile % columnCount + 1) * tileSize + margin);
+        int endY = Math.min(screenRectangle.height(),
+                (tile / columnCount + 1) * tileSize + margin);
+        for (int y = beginY; y < endY; y++) {
+            int rowOffset = y * screenRectangle.width();
+            for (int x = beginX; x < endX; x++)
+                pixelConsumer.accept(rowOffset + x);
+        }
+    }
+
+    /**
+     * Leaves the edge the point is on (if any), then stops at the next edge.
+     * @return null if there is no edge until the border of the screen.
+     */
+    public Point nextEdge(int x, int y, boolean horizontal, boolean forward) {
+        int localX = x - screenRectangle.x();
+        int localY = y - screenRectangle.y();
+        int width = screenRectangle.width();
+        int height = screenRectangle.height();
+        if (localX < 0 || localX >= width || localY < 0 || localY >= height)
+            return null;
+        int step = forward ? 1 : -1;
+        boolean leftStartEdge = false;
+        while (true) {
+            if (horizontal)
+                localX += step;
+            else
+                localY += step;
+            if (localX < 0 || localX >= width || localY < 0 || localY >= height)
+                return null;
+            boolean edge = edges[localY * width + localX] != 0;
+            if (!edge)
+                leftStartEdge = true;
+            else if (leftStartEdge)
+                return new Point(screenRectangle.x() + localX,
+                        screenRectangle.y() + localY);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * One {@link ScreenEdgeMap} per screen. Edge maps are only computed in the background,
+ * never on the thread asking for them: the screen is captured again, and only the tiles
+ * that changed are recomputed.
+ */
+public class ScreenEdgeMapCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScreenEdgeMapCache.class);
+
+    private final Function<Rectangle, int[]> screenCapture;
+    private final Map<Rectangle, ScreenEdgeMap> edgeMapByScreen = new ConcurrentHashMap<>();
+    private final Set<Rectangle> refreshingScreens = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param screenCapture returns the 0xRRGGBB pixels of a screen rectangle.
+     */
+    public ScreenEdgeMapCache(Function<Rectangle, int[]> screenCapture) {
+        this.screenCapture = screenCapture;
+    }
+
+    /**
+     * @return null if there is no edge map of the screen yet: it is then computed in the
+     * background.
+     */
+    public ScreenEdgeMap edgeMap(Rectangle screenRectangle) {
+        ScreenEdgeMap edgeMap = edgeMapByScreen.get(screenRectangle);
+        if (edgeMap == null)
+            refresh(screenRectangle);
+        return edgeMap;
+    }
+
+    /**
+     * Does nothing if the edge map of the screen is already being refreshed.
+     */
+    public void refresh(Rectangle screenRectangle) {
+        if (!refreshingScreens.add(screenRectangle))
+            return;
+        CompletableFuture.runAsync(() -> {
+            int[] pixels = screenCapture.apply(screenRectangle);
+            edgeMapByScreen.compute(screenRectangle,
+                    (rectangle, edgeMap) -> edgeMap == null ?
+                            ScreenEdgeMap.of(rectangle, pixels) :
+                            edgeMap.updated(pixels));
+        }).whenComplete((result, e) -> {
+            if (e != null)
+                logger.error("Unable to refresh the edge map of screen " +
+                             screenRectangle, e);
+            refreshingScreens.remove(screenRectangle);
+        });
+    }
+
+}
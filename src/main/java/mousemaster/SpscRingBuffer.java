@@ -0,0 +1,60 @@
+package mousemaster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * Neither offer() nor poll() blocks.
+ */
+public class SpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final int mask;
+    /**
+     * Index of the next element to poll. Only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Index of the next element to offer. Only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    public SpscRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException(
+                    "Ring buffer capacity must be a power of 2: " + capacity);
+        elements = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Must only be called from the producer thread.
+     * @return false if the buffer is full.
+     */
+    public boolean offer(E element) {
+        long tail = this.tail.get();
+        if (tail - head.get() == elements.length)
+            return false;
+        elements[(int) (tail & mask)] = element;
+        // The element is written before the new tail is published.
+        this.tail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Must only be called from the consumer thread.
+     * @return null if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long head = this.head.get();
+        if (head == tail.get())
+            return null;
+        int index = (int) (head & mask);
+        E element = (E) elements[index];
+        elements[index] = null;
+        this.head.lazySet(head + 1);
+        return element;
+    }
+
+}
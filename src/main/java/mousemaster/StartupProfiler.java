@@ -0,0 +1,233 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Times the startup phases, some of which run concurrently, until the main loop starts.
+ * Each phase declares the phases it has to wait for, which gives the critical path: the
+ * chain of phases that determines how long startup takes.
+ * Once startup is finished, tasks are still run but no longer measured (e.g. on
+ * configuration reloads).
+ */
+public class StartupProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupProfiler.class);
+
+    public enum Phase {
+        CONFIGURATION,
+        PLATFORM,
+        /**
+         * Nested in PLATFORM, unless the hooks are installed by the input thread.
+         */
+        HOOKS,
+        COMPONENTS(CONFIGURATION, PLATFORM),
+        HINT_FONTS(COMPONENTS),
+        KEYBOARD_LAYOUT(COMPONENTS),
+        SCREENS(HINT_FONTS, KEYBOARD_LAYOUT);
+
+        private final List<Phase> dependencies;
+
+        Phase(Phase... dependencies) {
+            this.dependencies = List.of(dependencies);
+        }
+    }
+
+    private final boolean logReport;
+    private final long beginNanoTime = System.nanoTime();
+    /**
+     * Time between the start of the process and the creation of the profiler (in main).
+     */
+    private final Duration processStartupDuration;
+    private final Map<Phase, Measurement> measurementByPhase = new ConcurrentHashMap<>();
+    private volatile boolean finished;
+
+    public StartupProfiler(boolean logReport) {
+        this.logReport = logReport;
+        processStartupDuration = ProcessHandle.current()
+                                              .info()
+                                              .startInstant()
+                                              .map(startInstant -> Duration.between(
+                                                      startInstant, Instant.now()))
+                                              .orElse(null);
+    }
+
+    public <T> T measure(Phase phase, Supplier<T> task) {
+        if (finished)
+            return task.get();
+        long phaseBeginNanoTime = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            measurementByPhase.putIfAbsent(phase,
+                    new Measurement(phaseBeginNanoTime - beginNanoTime,
+                            System.nanoTime() - beginNanoTime,
+                            Thread.currentThread().getName()));
+        }
+    }
+
+    public void measure(Phase phase, Runnable task) {
+        measure(phase, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the task on a new thread.
+     */
+    public <T> CompletableFuture<T> measureAsync(Phase phase, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(measure(phase, task));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, "startup-" + phaseName(phase));
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    public CompletableFuture<Void> measureAsync(Phase phase, Runnable task) {
+        return measureAsync(phase, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Unlike {@link CompletableFuture#join()}, rethrows the exception of the task as is.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * Called when the main loop starts.
+     */
+    public void finish() {
+        if (finished)
+            return;
+        finished = true;
+        long readyNanos = System.nanoTime() - beginNanoTime;
+        StringBuilder phaseDurations = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            Measurement measurement = measurementByPhase.get(phase);
+            if (measurement == null)
+                continue;
+            phaseDurations.append(phaseDurations.isEmpty() ? "" : ", ")
+                          .append(phaseName(phase))
+                          .append(" ")
+                          .append(LatencyHistogram.formatNanos(measurement.duration()));
+        }
+        logger.info("Started in " + LatencyHistogram.formatNanos(readyNanos) + " (" +
+                    phaseDurations + ")");
+        if (logReport)
+            logger.info(report(readyNanos));
+    }
+
+    private String report(long readyNanos) {
+        StringBuilder report = new StringBuilder("Startup report:\n");
+        if (processStartupDuration != null)
+            report.append("  process start to main: ")
+                  .append(LatencyHistogram.formatNanos(processStartupDuration.toNanos()))
+                  .append('\n');
+        Measurement hooks = measurementByPhase.get(Phase.HOOKS);
+        if (hooks != null)
+            report.append("  main to hooks installed: ")
+                  .append(LatencyHistogram.formatNanos(hooks.endNanos()))
+                  .append('\n');
+        report.append("  main to main loop: ")
+              .append(LatencyHistogram.formatNanos(readyNanos))
+              .append('\n');
+        report.append(String.format("  %-16s %10s %10s %10s  %s%n", "phase", "begin",
+                "end", "duration", "thread"));
+        measurementByPhase.entrySet()
+                          .stream()
+                          .sorted(Comparator.comparingLong(
+                                  entry -> entry.getValue().beginNanos()))
+                          .forEach(entry -> report.append(
+                                  String.format("  %-16s %10s %10s %10s  %s%n",
+                                          phaseName(entry.getKey()),
+                                          LatencyHistogram.formatNanos(
+                                                  entry.getValue().beginNanos()),
+                                          LatencyHistogram.formatNanos(
+                                                  entry.getValue().endNanos()),
+                                          LatencyHistogram.formatNanos(
+                                                  entry.getValue().duration()),
+                                          entry.getValue().threadName())));
+        report.append("  critical path: ");
+        List<Phase> criticalPath = criticalPath();
+        for (int phaseIndex = 0; phaseIndex < criticalPath.size(); phaseIndex++) {
+            Phase phase = criticalPath.get(phaseIndex);
+            report.append(phaseIndex == 0 ? "" : " -> ")
+                  .append(phaseName(phase))
+                  .append(" ")
+                  .append(LatencyHistogram.formatNanos(
+                          measurementByPhase.get(phase).duration()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Starts from the phase that ended last, then repeatedly goes to the dependency that
+     * ended last (the one the phase actually waited for).
+     */
+    private List<Phase> criticalPath() {
+        Phase phase = lastEndedPhase(measurementByPhase.keySet());
+        List<Phase> criticalPath = new ArrayList<>();
+        while (phase != null) {
+            criticalPath.add(phase);
+            phase = lastEndedPhase(phase.dependencies);
+        }
+        Collections.reverse(criticalPath);
+        return criticalPath;
+    }
+
+    private Phase lastEndedPhase(Collection<Phase> phases) {
+        Phase lastEndedPhase = null;
+        for (Phase phase : phases) {
+            Measurement measurement = measurementByPhase.get(phase);
+            if (measurement != null && (lastEndedPhase == null ||
+                                        measurement.endNanos() >
+                                        measurementByPhase.get(lastEndedPhase)
+                                                          .endNanos()))
+                lastEndedPhase = phase;
+        }
+        return lastEndedPhase;
+    }
+
+    private static String phaseName(Phase phase) {
+        return phase.name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+    }
+
+    /**
+     * Nanoseconds since the creation of the profiler.
+     */
+    private record Measurement(long beginNanos, long endNanos, String threadName) {
+
+        long duration() {
+            return endNanos - beginNanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package mousemaster;
+
+/**
+ * The state the mode controller and the indicator depend on, updated by the mouse
+ * controller, the keyboard manager and the mode controller when it changes instead of
+ * being derived on every tick. Pressed keys are counted incrementally as they are pressed
+ * and released.
+ * Each change increments the version: a consumer that remembers the version it last saw
+ * knows that nothing changed if the version is the same. Every key press and release
+ * increments the version, even when the pressed key counts do not change, since the way
+ * the next press would be processed may have changed.
+ */
+public class StateStore {
+
+    private long version;
+    private boolean moving, pressing, wheeling;
+    private int unhandledPressedKeyCount;
+    /**
+     * Pressed keys that are part of a combo sequence, of a hint prefix, or that are a hint
+     * undo or an unswallowed hint end.
+     */
+    private int sequencePressedKeyCount;
+    private Mode mode;
+
+    public long version() {
+        return version;
+    }
+
+    public boolean moving() {
+        return moving;
+    }
+
+    public boolean pressing() {
+        return pressing;
+    }
+
+    public boolean wheeling() {
+        return wheeling;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public boolean pressingUnhandledKey() {
+        return unhandledPressedKeyCount != 0;
+    }
+
+    /**
+     * Pressed keys are either unhandled or part of a combo precondition, and at least one
+     * is unhandled.
+     */
+    public boolean pressingUnhandledKeysOnly() {
+        return unhandledPressedKeyCount != 0 && sequencePressedKeyCount == 0;
+    }
+
+    public void setMouseState(boolean moving, boolean pressing, boolean wheeling) {
+        if (moving == this.moving && pressing == this.pressing &&
+            wheeling == this.wheeling)
+            return;
+        this.moving = moving;
+        this.pressing = pressing;
+        this.wheeling = wheeling;
+        version++;
+    }
+
+    public void setMode(Mode mode) {
+        if (mode == this.mode)
+            return;
+        this.mode = mode;
+        version++;
+    }
+
+    public void keyPressed(PressKeyEventProcessing processing) {
+        updatePressedKeyCounts(processing, 1);
+    }
+
+    public void keyReleased(PressKeyEventProcessing processing) {
+        updatePressedKeyCounts(processing, -1);
+    }
+
+    /**
+     * Something else that decides how a key press is processed changed (e.g. the hint
+     * mesh).
+     */
+    public void keyProcessingChanged() {
+        version++;
+    }
+
+    public void allKeysReleased() {
+        if (unhandledPressedKeyCount == 0 && sequencePressedKeyCount == 0)
+            return;
+        unhandledPressedKeyCount = 0;
+        sequencePressedKeyCount = 0;
+        version++;
+    }
+
+    private void updatePressedKeyCounts(PressKeyEventProcessing processing,
+                                        int delta) {
+        if (!processing.handled())
+            unhandledPressedKeyCount += delta;
+        else if (processing.isPartOfComboSequence() || processing.isPartOfHintPrefix() ||
+                 processing.isHintUndo() || processing.isUnswallowedHintEnd())
+            sequencePressedKeyCount += delta;
+        version++;
+    }
+
+}
@@ -0,0 +1,249 @@
+package mousemaster;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Finds button-like and text-like regions in a screenshot: grayscale, Sobel edges, edges
+ * merged horizontally (so that the letters of a word end up in the same region), then
+ * connected components. Regions that are too small or too large to be click targets are
+ * dropped.
+ * Each pass is split into horizontal bands processed in parallel on the common fork-join
+ * pool. Connected components are labeled in each band, then merged across band borders.
+ * Platform independent: the pixels come from {@link WindowsScreenCapture} on Windows.
+ */
+public class TargetDetector {
+
+    /**
+     * Screenshots wider than this are downscaled, small controls remain a few pixels wide.
+     */
+    private static final int maxDetectionWidth = 1920;
+    private static final int bandHeight = 64;
+    private static final int edgeThreshold = 96;
+    /**
+     * Edges closer than that (horizontally) are merged.
+     */
+    private static final int edgeGap = 3;
+    private static final int minTargetSize = 4;
+    /**
+     * Targets closer than that (in screenshot pixels) are the same target.
+     */
+    private static final int minTargetDistance = 8;
+
+    /**
+     * @param pixels 0xRRGGBB, row by row.
+     * @return target centers in screenshot coordinates, row by row.
+     */
+    public static List<Point> detect(int[] pixels, int width, int height) {
+        int scale = Math.max(1, Math.ceilDiv(width, maxDetectionWidth));
+        int w = width / scale;
+        int h = height / scale;
+        if (w < 3 || h < 3)
+            return List.of();
+        byte[] gray = grayscale(pixels, width, scale, w, h);
+        byte[] edges = edges(gray, w, h);
+        int[] parents = new int[w * h + 1];
+        int bandCount = Math.ceilDiv(h, bandHeight);
+        List<Map<Integer, int[]>> boundsByBand = IntStream.range(0, bandCount)
+                                                          .parallel()
+                                                          .mapToObj(band -> labelBand(
+                                                                  edges, parents, w, h,
+                                                                  band))
+                                                          .toList();
+        // Merge the components that touch across band borders.
+        for (int band = 1; band < bandCount; band++) {
+            int y = band * bandHeight;
+            for (int x = 0; x < w; x++) {
+                int index = y * w + x;
+                if (edges[index] != 0 && edges[index - w] != 0)
+                    union(parents, index + 1, index - w + 1);
+            }
+        }
+        Map<Integer, int[]> boundsByComponent = new HashMap<>();
+        for (Map<Integer, int[]> bandBounds : boundsByBand) {
+            for (Map.Entry<Integer, int[]> entry : bandBounds.entrySet()) {
+                int[] bounds = entry.getValue();
+                int[] componentBounds =
+                        boundsByComponent.putIfAbsent(find(parents, entry.getKey()),
+                                bounds);
+                if (componentBounds != null) {
+                    componentBounds[0] = Math.min(componentBounds[0], bounds[0]);
+                    componentBounds[1] = Math.min(componentBounds[1], bounds[1]);
+                    componentBounds[2] = Math.max(componentBounds[2], bounds[2]);
+                    componentBounds[3] = Math.max(componentBounds[3], bounds[3]);
+                }
+            }
+        }
+        return targets(boundsByComponent.values(), w, h, scale);
+    }
+
+    private static byte[] grayscale(int[] pixels, int width, int scale, int w, int h) {
+        byte[] gray = new byte[w * h];
+        IntStream.range(0, Math.ceilDiv(h, bandHeight)).parallel().forEach(band -> {
+            int endY = Math.min(h, (band + 1) * bandHeight);
+            for (int y = band * bandHeight; y < endY; y++) {
+                for (int x = 0; x < w; x++) {
+                    int luma = 0;
+                    for (int dy = 0; dy < scale; dy++) {
+                        int rowOffset = (y * scale + dy) * width + x * scale;
+                        for (int dx = 0; dx < scale; dx++)
+                            luma += luma(pixels[rowOffset + dx]);
+                    }
+                    gray[y * w + x] = (byte) (luma / (scale * scale));
+                }
+            }
+        });
+        return gray;
+    }
+
+    /**
+     * @return 1 for edge pixels, after the horizontal merge.
+     */
+    private static byte[] edges(byte[] gray, int w, int h) {
+        byte[] edges = new byte[w * h];
+        IntStream.range(0, Math.ceilDiv(h, bandHeight)).parallel().forEach(band -> {
+            int beginY = Math.max(1, band * bandHeight);
+            int endY = Math.min(h - 1, (band + 1) * bandHeight);
+            boolean[] rowEdges = new boolean[w];
+            for (int y = beginY; y < endY; y++) {
+                int rowOffset = y * w;
+                for (int x = 1; x < w - 1; x++)
+                    rowEdges[x] = sobelEdge(gray, w, rowOffset + x);
+                // An edge pixel marks the pixels up to edgeGap on both sides.
+                int lastEdgeX = Integer.MIN_VALUE / 2;
+                for (int x = 0; x < w; x++) {
+                    if (rowEdges[x])
+                        lastEdgeX = x;
+                    if (x - lastEdgeX <= edgeGap)
+                        edges[rowOffset + x] = 1;
+                }
+                lastEdgeX = Integer.MAX_VALUE / 2;
+                for (int x = w - 1; x >= 0; x--) {
+                    if (rowEdges[x])
+                        lastEdgeX = x;
+                    if (lastEdgeX - x <= edgeGap)
+                        edges[rowOffset + x] = 1;
+                }
+            }
+        });
+        return edges;
+    }
+
+    static int luma(int pixel) {
+        return (((pixel >> 16) & 0xFF) * 77 + ((pixel >> 8) & 0xFF) * 150 +
+                (pixel & 0xFF) * 29) >> 8;
+    }
+
+    /**
+     * @param index must not be on the border of the image.
+     */
+    static boolean sobelEdge(byte[] gray, int w, int index) {
+        int topLeft = gray[index - w - 1] & 0xFF;
+        int top = gray[index - w] & 0xFF;
+        int topRight = gray[index - w + 1] & 0xFF;
+        int left = gray[index - 1] & 0xFF;
+        int right = gray[index + 1] & 0xFF;
+        int bottomLeft = gray[index + w - 1] & 0xFF;
+        int bottom = gray[index + w] & 0xFF;
+        int bottomRight = gray[index + w + 1] & 0xFF;
+        int gx = topRight + 2 * right + bottomRight - topLeft - 2 * left - bottomLeft;
+        int gy = bottomLeft + 2 * bottom + bottomRight - topLeft - 2 * top - topRight;
+        return Math.abs(gx) + Math.abs(gy) > edgeThreshold;
+    }
+
+    /**
+     * Labels the components of the band (4-connectivity). A label is the index of the
+     * pixel + 1, and only the parents of the pixels of the band are written.
+     * @return bounds (minX, minY, maxX, maxY) by component root.
+     */
+    private static Map<Integer, int[]> labelBand(byte[] edges, int[] parents, int w,
+                                                 int h, int band) {
+        int beginY = band * bandHeight;
+        int endY = Math.min(h, beginY + bandHeight);
+        for (int y = beginY; y < endY; y++) {
+            for (int x = 0; x < w; x++) {
+                int index = y * w + x;
+                if (edges[index] == 0)
+                    continue;
+                int label = index + 1;
+                parents[label] = label;
+                if (x > 0 && edges[index - 1] != 0)
+                    union(parents, label, label - 1);
+                if (y > beginY && edges[index - w] != 0)
+                    union(parents, label, label - w);
+            }
+        }
+        Map<Integer, int[]> boundsByRoot = new HashMap<>();
+        for (int y = beginY; y < endY; y++) {
+            for (int x = 0; x < w; x++) {
+                int index = y * w + x;
+                if (edges[index] == 0)
+                    continue;
+                int[] bounds = boundsByRoot.get(find(parents, index + 1));
+                if (bounds == null)
+                    boundsByRoot.put(find(parents, index + 1), new int[]{x, y, x, y});
+                else {
+                    bounds[0] = Math.min(bounds[0], x);
+                    bounds[2] = Math.max(bounds[2], x);
+                    bounds[3] = y;
+                }
+            }
+        }
+        return boundsByRoot;
+    }
+
+    private static int find(int[] parents, int label) {
+        while (parents[label] != label) {
+            parents[label] = parents[parents[label]];
+            label = parents[label];
+        }
+        return label;
+    }
+
+    /**
+     * The root with the lowest label wins: it is the first pixel of the component, which
+     * keeps the roots of a band inside the band.
+     */
+    private static void union(int[] parents, int label1, int label2) {
+        int root1 = find(parents, label1);
+        int root2 = find(parents, label2);
+        if (root1 < root2)
+            parents[root2] = root1;
+        else if (root2 < root1)
+            parents[root1] = root2;
+    }
+
+    private static List<Point> targets(Collection<int[]> componentBounds, int w, int h,
+                                       int scale) {
+        List<Point> targets = new ArrayList<>();
+        for (int[] bounds : componentBounds) {
+            int width = bounds[2] - bounds[0] + 1;
+            int height = bounds[3] - bounds[1] + 1;
+            // Larger than that is a panel or a picture, not something to click.
+            if (width < minTargetSize || height < minTargetSize || width > w / 3 ||
+                height > h / 6)
+                continue;
+            targets.add(new Point((bounds[0] + bounds[2]) / 2 * scale + scale / 2,
+                    (bounds[1] + bounds[3]) / 2 * scale + scale / 2));
+        }
+        // Row by row (rows of 16 pixels), then left to right.
+        targets.sort(Comparator.comparingInt((Point target) -> target.y() / 16)
+                               .thenComparingInt(Point::x));
+        List<Point> distinctTargets = new ArrayList<>(targets.size());
+        for (Point target : targets) {
+            boolean tooClose = false;
+            for (int targetIndex = distinctTargets.size() - 1;
+                 targetIndex >= 0 && !tooClose; targetIndex--) {
+                Point distinctTarget = distinctTargets.get(targetIndex);
+                if (target.y() / 16 - distinctTarget.y() / 16 > 1)
+                    break;
+                tooClose = Math.abs(distinctTarget.x() - target.x()) < minTargetDistance &&
+                           Math.abs(distinctTarget.y() - target.y()) < minTargetDistance;
+            }
+            if (!tooClose)
+                distinctTargets.add(target);
+        }
+        return distinctTargets;
+    }
+
+}
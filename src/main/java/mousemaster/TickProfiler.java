@@ -0,0 +1,198 @@
+package mousemaster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long each subsystem update of Mousemaster's main loop takes, and how far
+ * the interval between two ticks is from the nominal tick period.
+ * When a tick has been running for longer than the budget, a watchdog thread logs a
+ * dump of all threads (at most once a minute), while the slow tick is still running.
+ */
+public class TickProfiler implements TickProfilerMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickProfiler.class);
+    private static final long summaryLogPeriodNanos = TimeUnit.MINUTES.toNanos(1);
+    private static final long threadDumpCooldownNanos = TimeUnit.MINUTES.toNanos(1);
+    private static final long noTickInProgress = Long.MIN_VALUE;
+
+    public enum Subsystem {
+        CONFIGURATION, PLATFORM, MODE_CONTROLLER, MOUSE_CONTROLLER, KEYBOARD_MANAGER,
+        HINT_MANAGER, INDICATOR_MANAGER
+    }
+
+    private final Duration tickPeriod;
+    private final Duration tickBudget;
+    private final LatencyHistogram tickDuration;
+    private final LatencyHistogram tickJitter = new LatencyHistogram(List.of());
+    private final Map<Subsystem, LatencyHistogram> updateDurationBySubsystem =
+            new EnumMap<>(Subsystem.class);
+    /**
+     * Written by the main loop, read by the watchdog thread.
+     */
+    private final AtomicLong currentTickBeginNanoTime = new AtomicLong(noTickInProgress);
+    private long previousTickBeginNanoTime = noTickInProgress;
+    private long nextSummaryLogNanoTime;
+    private long lastThreadDumpNanoTime;
+    private long lastDumpedTickBeginNanoTime = noTickInProgress;
+
+    public TickProfiler(Duration tickPeriod, Duration tickBudget) {
+        this.tickPeriod = tickPeriod;
+        this.tickBudget = tickBudget;
+        tickDuration = new LatencyHistogram(List.of(tickBudget));
+        for (Subsystem subsystem : Subsystem.values())
+            updateDurationBySubsystem.put(subsystem, new LatencyHistogram(List.of()));
+        nextSummaryLogNanoTime = System.nanoTime() + summaryLogPeriodNanos;
+        lastThreadDumpNanoTime = System.nanoTime() - threadDumpCooldownNanos;
+    }
+
+    /**
+     * Registers the MBean and starts the watchdog thread.
+     */
+    public void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(this, new ObjectName("mousemaster:type=Tick"));
+        } catch (JMException e) {
+            logger.info("Unable to register the tick profiler MBean", e);
+        }
+        ScheduledExecutorService watchdogExecutor =
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "tick-watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        long watchdogPeriodNanos = Math.max(1, tickBudget.toNanos() / 2);
+        watchdogExecutor.scheduleAtFixedRate(this::checkCurrentTick,
+                watchdogPeriodNanos, watchdogPeriodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the current System.nanoTime(), to be passed to the first
+     * {@link #subsystemUpdated(Subsystem, long)} call.
+     */
+    public long tickBegan() {
+        long nanoTime = System.nanoTime();
+        if (previousTickBeginNanoTime != noTickInProgress)
+            tickJitter.record(Math.abs(nanoTime - previousTickBeginNanoTime -
+                                       tickPeriod.toNanos()));
+        previousTickBeginNanoTime = nanoTime;
+        currentTickBeginNanoTime.set(nanoTime);
+        return nanoTime;
+    }
+
+    /**
+     * @return the current System.nanoTime(), to be passed to the next call.
+     */
+    public long subsystemUpdated(Subsystem subsystem, long updateBeginNanoTime) {
+        long nanoTime = System.nanoTime();
+        updateDurationBySubsystem.get(subsystem).record(nanoTime - updateBeginNanoTime);
+        return nanoTime;
+    }
+
+    public void tickEnded() {
+        long nanoTime = System.nanoTime();
+        tickDuration.record(nanoTime - currentTickBeginNanoTime.getAndSet(noTickInProgress));
+        if (nanoTime - nextSummaryLogNanoTime >= 0) {
+            nextSummaryLogNanoTime = nanoTime + summaryLogPeriodNanos;
+            if (logger.isDebugEnabled())
+                logger.debug("Tick profile: " + getSummary());
+        }
+    }
+
+    /**
+     * Called from the watchdog thread.
+     */
+    private void checkCurrentTick() {
+        long tickBeginNanoTime = currentTickBeginNanoTime.get();
+        if (tickBeginNanoTime == noTickInProgress ||
+            tickBeginNanoTime == lastDumpedTickBeginNanoTime)
+            return;
+        long nanoTime = System.nanoTime();
+        long tickNanos = nanoTime - tickBeginNanoTime;
+        if (tickNanos <= tickBudget.toNanos() ||
+            nanoTime - lastThreadDumpNanoTime < threadDumpCooldownNanos)
+            return;
+        lastDumpedTickBeginNanoTime = tickBeginNanoTime;
+        lastThreadDumpNanoTime = nanoTime;
+        StringBuilder threadDump = new StringBuilder();
+        for (ThreadInfo threadInfo : ManagementFactory.getThreadMXBean()
+                                                      .dumpAllThreads(false, false)) {
+            threadDump.append('"')
+                      .append(threadInfo.getThreadName())
+                      .append("\" ")
+                      .append(threadInfo.getThreadState())
+                      .append('\n');
+            for (StackTraceElement stackTraceElement : threadInfo.getStackTrace())
+                threadDump.append("\tat ").append(stackTraceElement).append('\n');
+        }
+        logger.warn("Tick has been running for " + LatencyHistogram.formatNanos(tickNanos) +
+                    ", budget is " + tickBudget.toMillis() + "ms, thread dump:\n" +
+                    threadDump);
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickDuration.snapshot().count();
+    }
+
+    @Override
+    public long getOverBudgetTickCount() {
+        return tickDuration.overThresholdCount(0);
+    }
+
+    @Override
+    public double getTickDurationP99() {
+        return p99Millis(tickDuration);
+    }
+
+    @Override
+    public double getTickDurationMax() {
+        return tickDuration.max() / 1e6;
+    }
+
+    @Override
+    public double getTickJitterP99() {
+        return p99Millis(tickJitter);
+    }
+
+    @Override
+    public Map<String, Double> getSubsystemUpdateDurationP99() {
+        Map<String, Double> p99BySubsystem = new LinkedHashMap<>();
+        updateDurationBySubsystem.forEach((subsystem, updateDuration) ->
+                p99BySubsystem.put(subsystem.name(), p99Millis(updateDuration)));
+        return p99BySubsystem;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("tick duration: ").append(tickDuration.summary());
+        summary.append("; tick jitter: ").append(tickJitter.summary());
+        updateDurationBySubsystem.forEach((subsystem, updateDuration) ->
+                summary.append("; ")
+                       .append(subsystem.name())
+                       .append(": ")
+                       .append(updateDuration.summary()));
+        return summary.toString();
+    }
+
+    private static double p99Millis(LatencyHistogram histogram) {
+        return histogram.valueAtPercentile(99) / 1e6;
+    }
+
+}
@@ -0,0 +1,25 @@
+package mousemaster;
+
+import java.util.Map;
+
+/**
+ * Registered as mousemaster:type=Tick. Durations are in milliseconds and cover the
+ * whole run.
+ */
+public interface TickProfilerMXBean {
+
+    long getTickCount();
+
+    long getOverBudgetTickCount();
+
+    double getTickDurationP99();
+
+    double getTickDurationMax();
+
+    double getTickJitterP99();
+
+    Map<String, Double> getSubsystemUpdateDurationP99();
+
+    String getSummary();
+
+}
@@ -1,11 +1,14 @@
 package mousemaster;
 
-public record Wheel(double initialVelocity, double maxVelocity, double acceleration) {
+public record Wheel(double initialVelocity, double maxVelocity, double acceleration,
+                    boolean momentumEnabled, double momentumFriction) {
 
     public static class WheelBuilder {
         private Double initialVelocity;
         private Double maxVelocity;
         private Double acceleration;
+        private Boolean momentumEnabled;
+        private Double momentumFriction;
 
         public WheelBuilder initialVelocity(double initialVelocity) {
             this.initialVelocity = initialVelocity;
@@ -22,6 +25,16 @@ public record Wheel(double initialVelocity, double maxVelocity, double accelerat
             return this;
         }
 
+        public WheelBuilder momentumEnabled(boolean momentumEnabled) {
+            this.momentumEnabled = momentumEnabled;
+            return this;
+        }
+
+        public WheelBuilder momentumFriction(double momentumFriction) {
+            this.momentumFriction = momentumFriction;
+            return this;
+        }
+
         public Double initialVelocity() {
             return initialVelocity;
         }
@@ -34,8 +47,17 @@ public record Wheel(double initialVelocity, double maxVelocity, double accelerat
             return acceleration;
         }
 
+        public Boolean momentumEnabled() {
+            return momentumEnabled;
+        }
+
+        public Double momentumFriction() {
+            return momentumFriction;
+        }
+
         public Wheel build() {
-            return new Wheel(initialVelocity, maxVelocity, acceleration);
+            return new Wheel(initialVelocity, maxVelocity, acceleration, momentumEnabled,
+                    momentumFriction);
         }
     }
 
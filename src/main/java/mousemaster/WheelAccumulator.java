@@ -0,0 +1,62 @@
+package mousemaster;
+
+/**
+ * Turns a wheel velocity into integer wheel deltas (120 is one notch, anything below is
+ * a high-resolution delta). Fractional units are carried over to the next emission so
+ * that no distance is lost, whatever the tick rate.
+ * Deltas are emitted at most once every emitInterval seconds. Once the wheel is released,
+ * the velocity can decay exponentially instead of stopping abruptly (momentum).
+ */
+public class WheelAccumulator {
+
+    /**
+     * Wheel units per second below which the momentum is considered over.
+     */
+    private static final double minMomentumVelocity = 10;
+
+    private final double emitInterval;
+    private double velocity;
+    private double remainingDistance;
+    private double emitTimer;
+
+    public WheelAccumulator(double emitInterval) {
+        this.emitInterval = emitInterval;
+    }
+
+    /**
+     * @param drivingVelocity signed velocity (wheel units per second) requested by the user,
+     *                        0 if the wheel is not being started.
+     * @return the signed wheel delta to send now, 0 if there is nothing to send.
+     */
+    public int update(double drivingVelocity, Wheel wheel, double delta) {
+        if (drivingVelocity != 0)
+            velocity = drivingVelocity;
+        else if (velocity != 0) {
+            if (wheel.momentumEnabled()) {
+                velocity *= Math.exp(-wheel.momentumFriction() * delta);
+                if (Math.abs(velocity) < minMomentumVelocity)
+                    velocity = 0;
+            }
+            else
+                velocity = 0;
+        }
+        remainingDistance += velocity * delta;
+        emitTimer += delta;
+        if (velocity != 0 && emitTimer < emitInterval)
+            return 0;
+        emitTimer = 0;
+        int wheelDelta = (int) remainingDistance;
+        remainingDistance -= wheelDelta;
+        if (velocity == 0)
+            // Less than one unit left: it cannot be sent.
+            remainingDistance = 0;
+        return wheelDelta;
+    }
+
+    public void reset() {
+        velocity = 0;
+        remainingDistance = 0;
+        emitTimer = 0;
+    }
+
+}
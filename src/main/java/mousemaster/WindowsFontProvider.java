@@ -0,0 +1,78 @@
+package mousemaster;
+
+import com.sun.jna.platform.win32.GDI32;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinUser;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public class WindowsFontProvider implements FontProvider<WinDef.HFONT> {
+
+    /**
+     * Memory DC used to measure texts, it is compatible with the screen like the DCs the
+     * hints are drawn on.
+     */
+    private WinDef.HDC measureDc;
+
+    @Override
+    public Set<String> fontFamilyNames() {
+        Set<String> fontFamilyNames = new HashSet<>();
+        ExtendedGDI32.EnumFontFamExProc fontEnumProc = new ExtendedGDI32.EnumFontFamExProc() {
+            public int callback(ExtendedGDI32.LOGFONT lpelfe, ExtendedGDI32.TEXTMETRIC lpntme, WinDef.DWORD FontType, WinDef.LPARAM lParam) {
+                int nameLength = 0;
+                while (nameLength < lpelfe.lfFaceName.length &&
+                       lpelfe.lfFaceName[nameLength] != 0)
+                    nameLength++;
+                fontFamilyNames.add(new String(lpelfe.lfFaceName, 0, nameLength).toLowerCase(
+                        Locale.ENGLISH));
+                return 1; // Continue enumeration
+            }
+        };
+        WinDef.HDC hdc = User32.INSTANCE.GetDC(null);
+        ExtendedGDI32.LOGFONT logfont = new ExtendedGDI32.LOGFONT();
+        logfont.lfCharSet = ExtendedGDI32.DEFAULT_CHARSET;
+        // Empty lfFaceName: one callback per font family (and character set).
+        ExtendedGDI32.INSTANCE.EnumFontFamiliesExA(hdc, logfont, fontEnumProc,
+                new WinDef.LPARAM(0), new WinDef.DWORD(0));
+        User32.INSTANCE.ReleaseDC(null, hdc);
+        return fontFamilyNames;
+    }
+
+    @Override
+    public WinDef.HFONT createFont(FontCache.FontKey fontKey) {
+        // Convert point size to logical units.
+        // 1 point = 1/72 inch. So, multiply by dpi and divide by 72 to convert to pixels.
+        int fontHeight = -fontKey.size() * fontKey.dpi() / 72;
+        // In Windows API, negative font size means "point size" (as opposed to pixels).
+        return ExtendedGDI32.INSTANCE.CreateFontA(fontHeight, 0, 0, 0,
+                ExtendedGDI32.FW_BOLD, new WinDef.DWORD(0), new WinDef.DWORD(0),
+                new WinDef.DWORD(0), new WinDef.DWORD(ExtendedGDI32.ANSI_CHARSET),
+                new WinDef.DWORD(ExtendedGDI32.OUT_DEFAULT_PRECIS),
+                new WinDef.DWORD(ExtendedGDI32.CLIP_DEFAULT_PRECIS),
+                new WinDef.DWORD(ExtendedGDI32.DEFAULT_QUALITY),
+                new WinDef.DWORD(ExtendedGDI32.DEFAULT_PITCH | ExtendedGDI32.FF_SWISS),
+                fontKey.name());
+    }
+
+    @Override
+    public FontCache.TextSize textSize(WinDef.HFONT font, String text) {
+        if (measureDc == null)
+            measureDc = GDI32.INSTANCE.CreateCompatibleDC(null);
+        WinNT.HANDLE oldFont = GDI32.INSTANCE.SelectObject(measureDc, font);
+        WinUser.SIZE textSize = new WinUser.SIZE();
+        ExtendedGDI32.INSTANCE.GetTextExtentPoint32A(measureDc, text, text.length(),
+                textSize);
+        GDI32.INSTANCE.SelectObject(measureDc, oldFont);
+        return new FontCache.TextSize(textSize.cx, textSize.cy);
+    }
+
+    @Override
+    public void deleteFont(WinDef.HFONT font) {
+        GDI32.INSTANCE.DeleteObject(font);
+    }
+
+}
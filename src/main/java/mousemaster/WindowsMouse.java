@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.LongStream;
 
 public class WindowsMouse {
@@ -20,58 +21,91 @@ public class WindowsMouse {
                               double deltaY) {
         if (((long) deltaX) == 0 && ((long) deltaY) == 0)
             return;
-        mouseExecutor.execute(() -> sendInput((long) deltaX * (xForward ? 1 : -1),
-                (long) deltaY * (yForward ? 1 : -1), 0, ExtendedUser32.MOUSEEVENTF_MOVE));
+        injectInput(mouseExecutor, "move-by",
+                () -> sendInput((long) deltaX * (xForward ? 1 : -1),
+                        (long) deltaY * (yForward ? 1 : -1), 0,
+                        ExtendedUser32.MOUSEEVENTF_MOVE));
+    }
+
+    /**
+     * Runs the input with the executor, recording an {@link InputInjectedEvent}.
+     */
+    private static void injectInput(Executor executor, String kind, Runnable input) {
+        long requestNanoTime = System.nanoTime();
+        executor.execute(() -> {
+            InputInjectedEvent event = new InputInjectedEvent();
+            event.begin();
+            long queueWait = System.nanoTime() - requestNanoTime;
+            input.run();
+            event.end();
+            if (event.shouldCommit()) {
+                event.kind = kind;
+                event.queueWait = queueWait;
+                event.commit();
+            }
+        });
     }
 
     /**
      * Moves now, in the current thread.
      */
     public static void synchronousMoveTo(int x, int y) {
-        setMousePosition(new WinDef.POINT(x, y));
+        injectInput(Runnable::run, "synchronous-move-to",
+                () -> setMousePosition(new WinDef.POINT(x, y)));
+        // Listeners must know about the new position now (e.g. to save it right after a
+        // hint is selected).
+        windowsPlatform.dispatchPendingMousePosition();
     }
 
-    private final static AtomicInteger latestX = new AtomicInteger();
+    private static final long noPendingPosition = Long.MIN_VALUE;
 
-    private final static AtomicInteger latestY = new AtomicInteger();
+    /**
+     * x and y packed in a single long, so that they are always read and written together.
+     */
+    private final static AtomicLong pendingPosition = new AtomicLong(noPendingPosition);
 
+    /**
+     * Positions are streamed: if the previous position is not set yet, it is replaced
+     * with the new one instead of queuing another mouseExecutor task.
+     */
     public static void moveTo(int x, int y) {
-        latestX.set(x);
-        latestY.set(y);
-        mouseExecutor.execute(() -> {
-            if (x != latestX.get() || y != latestY.get())
-                return;
-            setMousePosition(new WinDef.POINT(x, y));
+        long position = ((long) x << 32) | (y & 0xFFFFFFFFL);
+        if (pendingPosition.getAndSet(position) != noPendingPosition)
+            return;
+        injectInput(mouseExecutor, "move-to", () -> {
+            long latestPosition = pendingPosition.getAndSet(noPendingPosition);
+            setMousePosition(new WinDef.POINT((int) (latestPosition >> 32),
+                    (int) latestPosition));
         });
     }
 
     public static void pressLeft() {
-        mouseExecutor.execute(
+        injectInput(mouseExecutor, "press-left",
                 () -> sendInput(0, 0, 0, ExtendedUser32.MOUSEEVENTF_LEFTDOWN));
     }
 
     public static void pressMiddle() {
-        mouseExecutor.execute(
+        injectInput(mouseExecutor, "press-middle",
                 () -> sendInput(0, 0, 0, ExtendedUser32.MOUSEEVENTF_MIDDLEDOWN));
     }
 
     public static void pressRight() {
-        mouseExecutor.execute(
+        injectInput(mouseExecutor, "press-right",
                 () -> sendInput(0, 0, 0, ExtendedUser32.MOUSEEVENTF_RIGHTDOWN));
     }
 
     public static void releaseLeft() {
-        mouseExecutor.execute(
+        injectInput(mouseExecutor, "release-left",
                 () -> sendInput(0, 0, 0, ExtendedUser32.MOUSEEVENTF_LEFTUP));
     }
 
     public static void releaseMiddle() {
-        mouseExecutor.execute(
+        injectInput(mouseExecutor, "release-middle",
                 () -> sendInput(0, 0, 0, ExtendedUser32.MOUSEEVENTF_MIDDLEUP));
     }
 
     public static void releaseRight() {
-        mouseExecutor.execute(
+        injectInput(mouseExecutor, "release-right",
                 () -> sendInput(0, 0, 0, ExtendedUser32.MOUSEEVENTF_RIGHTUP));
     }
 
@@ -82,14 +116,38 @@ public class WindowsMouse {
      */
     private static final Executor wheelExecutor = Executors.newSingleThreadExecutor();
 
-    public static void wheelHorizontallyBy(boolean forward, double delta) {
-        wheelExecutor.execute(() -> sendInput(0, 0, (int) delta * (forward ? 1 : -1),
-                ExtendedUser32.MOUSEEVENTF_HWHEEL));
+    /**
+     * Deltas that are not sent yet. Because SendInput() can be slow, deltas are merged
+     * into the pending one instead of queuing one wheelExecutor task per delta.
+     */
+    private static final AtomicInteger pendingHorizontalWheelDelta = new AtomicInteger();
+    private static final AtomicInteger pendingVerticalWheelDelta = new AtomicInteger();
+
+    /**
+     * @param delta positive means right. Deltas smaller than 120 (WHEEL_DELTA) are
+     *              high-resolution wheel inputs.
+     */
+    public static void wheelHorizontallyBy(int delta) {
+        if (pendingHorizontalWheelDelta.getAndAdd(delta) != 0)
+            return;
+        injectInput(wheelExecutor, "horizontal-wheel", () -> {
+            int pendingDelta = pendingHorizontalWheelDelta.getAndSet(0);
+            if (pendingDelta != 0)
+                sendInput(0, 0, pendingDelta, ExtendedUser32.MOUSEEVENTF_HWHEEL);
+        });
     }
 
-    public static void wheelVerticallyBy(boolean forward, double delta) {
-        wheelExecutor.execute(() -> sendInput(0, 0, (int) delta * (forward ? -1 : 1),
-                ExtendedUser32.MOUSEEVENTF_WHEEL));
+    /**
+     * @param delta positive means down.
+     */
+    public static void wheelVerticallyBy(int delta) {
+        if (pendingVerticalWheelDelta.getAndAdd(delta) != 0)
+            return;
+        injectInput(wheelExecutor, "vertical-wheel", () -> {
+            int pendingDelta = pendingVerticalWheelDelta.getAndSet(0);
+            if (pendingDelta != 0)
+                sendInput(0, 0, -pendingDelta, ExtendedUser32.MOUSEEVENTF_WHEEL);
+        });
     }
 
     private static void sendInput(long dx, long dy, int wheelDelta, int eventFlag) {
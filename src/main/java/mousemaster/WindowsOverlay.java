@@ -22,6 +22,34 @@ public class WindowsOverlay {
             new LinkedHashMap<>(); // Ordered for topmost handling.
     private static boolean showingHintMesh;
     private static HintMesh currentHintMesh;
+    /**
+     * Accessed from the main thread (painting) and from the startup thread checking the
+     * hint fonts.
+     */
+    private static final FontCache<WinDef.HFONT> fontCache =
+            new FontCache<>(new WindowsFontProvider(), 16);
+
+    public static final Overlay overlay = new Overlay() {
+        @Override
+        public void setHintMesh(HintMesh hintMesh) {
+            WindowsOverlay.setHintMesh(hintMesh);
+        }
+
+        @Override
+        public void hideHintMesh() {
+            WindowsOverlay.hideHintMesh();
+        }
+
+        @Override
+        public void setIndicator(Indicator indicator) {
+            WindowsOverlay.setIndicator(indicator);
+        }
+
+        @Override
+        public void hideIndicator() {
+            WindowsOverlay.hideIndicator();
+        }
+    };
 
     public static Rectangle activeWindowRectangle(double windowWidthPercent,
                                                   double windowHeightPercent,
@@ -233,6 +261,10 @@ public class WindowsOverlay {
                 }
                 ExtendedUser32.INSTANCE.EndPaint(hwnd, ps);
                 break;
+            case ExtendedUser32.WM_FONTCHANGE:
+                // Broadcast to all top-level windows when fonts are added or removed.
+                fontCache.invalidate();
+                break;
         }
         return User32.INSTANCE.DefWindowProc(hwnd, uMsg, wParam, lParam);
     }
@@ -275,6 +307,9 @@ public class WindowsOverlay {
                     requestWindowRepaint(standByGridWindow.hwnd); // Drawings will be cleared.
                 }
                 break;
+            case ExtendedUser32.WM_FONTCHANGE:
+                fontCache.invalidate();
+                break;
         }
         return User32.INSTANCE.DefWindowProc(hwnd, uMsg, wParam, lParam);
     }
@@ -325,6 +360,9 @@ public class WindowsOverlay {
                 GDI32.INSTANCE.DeleteDC(memDC);
                 ExtendedUser32.INSTANCE.EndPaint(hwnd, ps);
                 break;
+            case ExtendedUser32.WM_FONTCHANGE:
+                fontCache.invalidate();
+                break;
         }
         return User32.INSTANCE.DefWindowProc(hwnd, uMsg, wParam, lParam);
     }
@@ -403,48 +441,34 @@ public class WindowsOverlay {
         String boxHexColor = currentHintMesh.boxHexColor();
         List<Key> focusedHintKeySequence = currentHintMesh.focusedKeySequence();
         int scaledDpi = (int) (screen.dpi() * screen.scale());
-        // Convert point size to logical units.
-        // 1 point = 1/72 inch. So, multiply by scaledDpi and divide by 72 to convert to pixels.
-        int fontHeight = -fontSize * scaledDpi / 72;
-        // In Windows API, negative font size means "point size" (as opposed to pixels).
-        WinDef.HFONT hintFont =
-                ExtendedGDI32.INSTANCE.CreateFontA(fontHeight, 0, 0, 0, ExtendedGDI32.FW_BOLD,
-                        new WinDef.DWORD(0), new WinDef.DWORD(0), new WinDef.DWORD(0),
-                        new WinDef.DWORD(ExtendedGDI32.ANSI_CHARSET),
-                        new WinDef.DWORD(ExtendedGDI32.OUT_DEFAULT_PRECIS),
-                        new WinDef.DWORD(ExtendedGDI32.CLIP_DEFAULT_PRECIS),
-                        new WinDef.DWORD(ExtendedGDI32.DEFAULT_QUALITY),
-                        new WinDef.DWORD(
-                                ExtendedGDI32.DEFAULT_PITCH | ExtendedGDI32.FF_SWISS), fontName);
+        FontCache.FontKey fontKey = new FontCache.FontKey(fontName, fontSize, scaledDpi);
+        WinDef.HFONT hintFont = fontCache.font(fontKey);
         WinNT.HANDLE oldFont = GDI32.INSTANCE.SelectObject(hdc, hintFont);
         WinDef.HBRUSH boxBrush =
                 ExtendedGDI32.INSTANCE.CreateSolidBrush(hexColorStringToInt(boxHexColor));
         for (Hint hint : windowHints) {
             if (!hint.startsWith(focusedHintKeySequence))
                 continue;
-            // Measure text size
-            WinUser.SIZE textSize = new WinUser.SIZE();
             String text = hint.keySequence()
                               .stream()
                               .map(Key::hintLabel)
                               .collect(Collectors.joining());
-            ExtendedGDI32.INSTANCE.GetTextExtentPoint32A(hdc, text, text.length(),
-                    textSize);
-            int textX = hint.centerX() - screen.rectangle().x() - textSize.cx / 2;
-            int textY = hint.centerY() - screen.rectangle().y() - textSize.cy / 2;
+            FontCache.TextSize textSize = fontCache.textSize(fontKey, text);
+            int textX = hint.centerX() - screen.rectangle().x() - textSize.width() / 2;
+            int textY = hint.centerY() - screen.rectangle().y() - textSize.height() / 2;
             WinDef.RECT textRect = new WinDef.RECT();
             textRect.left = textX;
             textRect.top = textY;
-            textRect.right = textX + textSize.cx;
-            textRect.bottom = textY + textSize.cy;
+            textRect.right = textX + textSize.width();
+            textRect.bottom = textY + textSize.height();
             // For Arial 10, cx is 26 and cy is 24. I want a padding of 4, 0 in that case.
-            int xPadding = (int) ((double) textSize.cx / 26 * 4);
-            int yPadding = (int) ((double) textSize.cy / 24 * 0);
+            int xPadding = (int) ((double) textSize.width() / 26 * 4);
+            int yPadding = (int) ((double) textSize.height() / 24 * 0);
             WinDef.RECT boxRect = new WinDef.RECT();
             boxRect.left = textX - xPadding;
             boxRect.top = textY - yPadding;
-            boxRect.right = textX + textSize.cx + xPadding;
-            boxRect.bottom = textY + textSize.cy + yPadding;
+            boxRect.right = textX + textSize.width() + xPadding;
+            boxRect.bottom = textY + textSize.height() + yPadding;
             ExtendedUser32.INSTANCE.FillRect(hdc, boxRect, boxBrush);
             drawHintText(hdc, fontHexColor, textRect, text);
             if (!focusedHintKeySequence.isEmpty()) {
@@ -457,7 +481,6 @@ public class WindowsOverlay {
             }
         }
         GDI32.INSTANCE.SelectObject(hdc, oldFont);
-        GDI32.INSTANCE.DeleteObject(hintFont);
         GDI32.INSTANCE.DeleteObject(boxBrush);
     }
 
@@ -595,35 +618,7 @@ public class WindowsOverlay {
     }
 
     public static boolean doesFontExist(String fontName) {
-        ExtendedGDI32.EnumFontFamExProc fontEnumProc = new ExtendedGDI32.EnumFontFamExProc() {
-            public int callback(ExtendedGDI32.LOGFONT lpelfe, ExtendedGDI32.TEXTMETRIC lpntme, WinDef.DWORD FontType, WinDef.LPARAM lParam) {
-                int nameLength = 0;
-                for (int i = 0; i < lpelfe.lfFaceName.length; i++) {
-                    if (lpelfe.lfFaceName[i] == 0) {
-                        nameLength = i;
-                        break;
-                    }
-                }
-                String faceName = new String(lpelfe.lfFaceName, 0, nameLength);
-                if (fontName.equalsIgnoreCase(faceName)) {
-                    // Font found
-                    return 0; // Return 0 to stop enumeration
-                }
-                return 1; // Continue enumeration
-            }
-        };
-        WinDef.HDC hdc = User32.INSTANCE.GetDC(null);
-        ExtendedGDI32.LOGFONT logfont = new ExtendedGDI32.LOGFONT();
-        logfont.lfCharSet = ExtendedGDI32.DEFAULT_CHARSET;
-        byte[] fontBytes = fontName.getBytes();
-        System.arraycopy(fontBytes, 0, logfont.lfFaceName, 0,
-                Math.min(fontBytes.length, logfont.lfFaceName.length - 1));
-        // lfFaceName[this.lfFaceName.length - 1] is 0, it is the null-terminator.
-        boolean fontExists =
-                ExtendedGDI32.INSTANCE.EnumFontFamiliesExA(hdc, logfont, fontEnumProc,
-                        new WinDef.LPARAM(0), new WinDef.DWORD(0)) == 0;
-        User32.INSTANCE.ReleaseDC(null, hdc);
-        return fontExists;
+        return fontCache.fontExists(fontName);
     }
 
 }
\ No newline at end of file
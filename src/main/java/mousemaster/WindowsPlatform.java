@@ -7,9 +7,12 @@ import mousemaster.KeyEvent.ReleaseKeyEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 public class WindowsPlatform implements Platform {
 
@@ -25,7 +28,10 @@ public class WindowsPlatform implements Platform {
     private MouseController mouseController;
     private KeyboardManager keyboardManager;
     private List<MousePositionListener> mousePositionListeners;
-    private final Map<Key, AtomicReference<Double>> currentlyPressedNotEatenKeys = new HashMap<>();
+    private final PressedKeySanityCheck pressedKeySanityCheck =
+            new PressedKeySanityCheck(key -> (User32.INSTANCE.GetAsyncKeyState(
+                    WindowsVirtualKey.windowsVirtualKeyFromKey(key).virtualKeyCode) &
+                                              0x8000) != 0);
     private WinUser.HHOOK keyboardHook;
     private WinUser.HHOOK mouseHook;
     /**
@@ -37,14 +43,93 @@ public class WindowsPlatform implements Platform {
     private WinUser.LowLevelKeyboardProc keyboardHookCallback;
     private WinNT.HANDLE singleInstanceMutex;
     private final WinUser.MSG msg = new WinUser.MSG();
+    private static final long noPendingMousePosition = Long.MIN_VALUE;
+    /**
+     * Latest mouse position (x and y packed in a long) reported by the mouse hook or set
+     * with SetCursorPos, and not yet dispatched to the listeners.
+     * A 1000Hz mouse calls the hook 1000 times per second: the hook only overwrites this
+     * value, and the listeners are notified once per tick.
+     */
+    private final AtomicLong pendingMousePosition = new AtomicLong(noPendingMousePosition);
     private double enforceWindowsTopmostTimer;
+    private double followForegroundKeyboardLayoutTimer;
+    /**
+     * The thread running update().
+     */
+    private final Thread logicThread;
+    /**
+     * Null unless the hooks run on their own input thread. Drained by update().
+     */
+    private final HookKeyEventQueue hookKeyEvents;
+    private Set<Key> pressEatenKeyCandidates = Set.of();
+    /**
+     * Time spent in the hook callbacks, including CallNextHookEx: it is what
+     * LowLevelHooksTimeout applies to. Windows silently removes a hook that exceeds it.
+     */
+    private final LatencyHistogram keyboardHookLatency;
+    private final LatencyHistogram mouseHookLatency;
+    private final Duration lowLevelHooksTimeout;
+    private final HookLatency hookLatency;
+    /**
+     * --stats: the HookLatency MXBean is registered and its summary is logged at exit.
+     */
+    private final boolean exposeHookLatency;
+    private LatencyHistogram.Snapshot previousKeyboardHookLatency;
+    private LatencyHistogram.Snapshot previousMouseHookLatency;
+    private double hookLatencyCheckTimer;
+    private double hookLatencyAlertCooldown;
+    /**
+     * What the previous reset() did, so that a configuration reload does not redo it.
+     */
+    private final Set<String> existingHintFontNames = new HashSet<>();
+    private Set<Key> mappedComboKeys;
+    private KeyboardLayout mappedKeyboardLayout;
+    private final StartupProfiler startupProfiler;
 
-    public WindowsPlatform() {
+    public WindowsPlatform(StartupProfiler startupProfiler, boolean inputThread,
+                           List<Duration> hookLatencyThresholds,
+                           boolean exposeHookLatency) {
+        this.startupProfiler = startupProfiler;
         WindowsMouse.windowsPlatform = this; // TODO Get rid of this.
         if (!acquireSingleInstanceMutex())
             throw new IllegalStateException("Another instance is already running");
         setDpiAwareness();
+        keyboardHookLatency = new LatencyHistogram(hookLatencyThresholds);
+        mouseHookLatency = new LatencyHistogram(hookLatencyThresholds);
+        previousKeyboardHookLatency = keyboardHookLatency.snapshot();
+        previousMouseHookLatency = mouseHookLatency.snapshot();
+        lowLevelHooksTimeout = findLowLevelHooksTimeout();
+        hookLatency = new HookLatency(keyboardHookLatency, mouseHookLatency);
+        this.exposeHookLatency = exposeHookLatency;
+        if (exposeHookLatency)
+            hookLatency.register();
+        logicThread = Thread.currentThread();
+        if (inputThread) {
+            hookKeyEvents = new HookKeyEventQueue(1024, logicThread);
+            Thread thread = new Thread(this::runInputThread, "input");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+        }
+        else {
+            hookKeyEvents = null;
+            installHooks();
+        }
+    }
+
+    /**
+     * The low-level hooks are called on the thread that installed them, while it is
+     * waiting in GetMessage. This thread never does anything else, so that a slow tick
+     * cannot delay the hooks past LowLevelHooksTimeout.
+     */
+    private void runInputThread() {
         installHooks();
+        WinUser.MSG inputThreadMsg = new WinUser.MSG();
+        while (User32.INSTANCE.GetMessage(inputThreadMsg, null, 0, 0) > 0) {
+            User32.INSTANCE.TranslateMessage(inputThreadMsg);
+            User32.INSTANCE.DispatchMessage(inputThreadMsg);
+        }
+        logger.info("Input thread message loop ended");
     }
 
     @Override
@@ -53,6 +138,16 @@ public class WindowsPlatform implements Platform {
             User32.INSTANCE.TranslateMessage(msg);
             User32.INSTANCE.DispatchMessage(msg);
         }
+        if (hookKeyEvents != null) {
+            HookKeyEventQueue.HookKeyEvent hookKeyEvent;
+            while ((hookKeyEvent = hookKeyEvents.poll()) != null)
+                handleHookKeyEvent(hookKeyEvent);
+            long droppedHookKeyEventCount = hookKeyEvents.takeDroppedEventCount();
+            if (droppedHookKeyEventCount != 0)
+                logger.error("Key event buffer was full, dropped " +
+                             droppedHookKeyEventCount + " key events");
+        }
+        dispatchPendingMousePosition();
         sanityCheckCurrentlyPressedKeys(delta);
         enforceWindowsTopmostTimer -= delta;
         if (enforceWindowsTopmostTimer < 0) {
@@ -60,42 +155,131 @@ public class WindowsPlatform implements Platform {
             enforceWindowsTopmostTimer = 0.2;
             WindowsOverlay.setTopmost();
         }
+        updateHookLatencyWatchdog(delta);
+        if (mappedComboKeys != null && mappedKeyboardLayout == null) {
+            // The configuration does not specify a keyboard layout.
+            followForegroundKeyboardLayoutTimer -= delta;
+            if (followForegroundKeyboardLayoutTimer < 0) {
+                // Every 200ms.
+                followForegroundKeyboardLayoutTimer = 0.2;
+                WindowsVirtualKey.followForegroundKeyboardLayout();
+            }
+        }
+        if (hookKeyEvents != null)
+            hookKeyEvents.setPressEatenKeys(
+                    keyboardManager.currentKeysWhosePressWouldBeEaten(pressEatenKeyCandidates));
     }
 
     @Override
     public void reset(MouseController mouseController, KeyboardManager keyboardManager,
                       KeyboardLayout keyboardLayout, ModeMap modeMap,
                       List<MousePositionListener> mousePositionListeners) {
-        this.mouseController = mouseController;
-        this.keyboardManager = keyboardManager;
-        this.mousePositionListeners = mousePositionListeners;
-        Set<Key> allComboKeys = new HashSet<>();
+        Set<Key> allComboKeys = modeMap.comboKeys();
         Set<String> hintFontNames = new HashSet<>();
-        for (Mode mode : modeMap.modes()) {
-            for (Combo combo : mode.comboMap().commandsByCombo().keySet()) {
-                combo.precondition()
-                     .mustRemainPressedKeySets()
-                     .stream()
-                     .flatMap(Collection::stream)
-                     .forEach(allComboKeys::add);
-                allComboKeys.addAll(combo.precondition().mustRemainUnpressedKeySet());
-                combo.sequence()
-                     .moves()
-                     .stream()
-                     .map(ComboMove::key)
-                     .forEach(allComboKeys::add);
-            }
+        for (Mode mode : modeMap.modes())
             hintFontNames.add(mode.hintMesh().fontName());
+        // Font enumeration runs in parallel with the layout mapping, which has to stay
+        // on this thread (the keyboard layout is per thread).
+        List<String> uncheckedHintFontNames = hintFontNames.stream()
+                                                           .filter(Predicate.not(
+                                                                   existingHintFontNames::contains))
+                                                           .toList();
+        CompletableFuture<Void> hintFontCheck = uncheckedHintFontNames.isEmpty() ? null :
+                startupProfiler.measureAsync(StartupProfiler.Phase.HINT_FONTS,
+                        () -> checkHintFontsExist(uncheckedHintFontNames));
+        // Everything that can fail (unknown key, missing font) is checked before anything
+        // is changed, so that a failed reset leaves the platform as it was.
+        Runnable keyMappingActivation = null;
+        if (!allComboKeys.equals(mappedComboKeys) ||
+            !Objects.equals(keyboardLayout, mappedKeyboardLayout))
+            keyMappingActivation = startupProfiler.measure(
+                    StartupProfiler.Phase.KEYBOARD_LAYOUT,
+                    () -> WindowsVirtualKey.mapKeysToVirtualKeysUsingLayout(allComboKeys,
+                            keyboardLayout));
+        if (hintFontCheck != null) {
+            StartupProfiler.join(hintFontCheck);
+            existingHintFontNames.addAll(uncheckedHintFontNames);
+        }
+        if (keyMappingActivation != null) {
+            keyMappingActivation.run();
+            mappedComboKeys = allComboKeys;
+            mappedKeyboardLayout = keyboardLayout;
         }
+        this.mouseController = mouseController;
+        this.keyboardManager = keyboardManager;
+        this.mousePositionListeners = mousePositionListeners;
+        pressEatenKeyCandidates = modeMap.pressEatenKeyCandidates();
+        startupProfiler.measure(StartupProfiler.Phase.SCREENS, () -> {
+            WinDef.POINT mousePosition = WindowsMouse.findMousePosition();
+            mousePositionListeners.forEach(
+                    mousePositionListener -> mousePositionListener.mouseMoved(
+                            mousePosition.x, mousePosition.y));
+        });
+    }
+
+    private static void checkHintFontsExist(List<String> hintFontNames) {
         for (String hintFontName : hintFontNames) {
             if (!WindowsOverlay.doesFontExist(hintFontName))
                 throw new IllegalStateException("Unable to find hint font: " + hintFontName);
         }
-        WindowsVirtualKey.mapKeysToVirtualKeysUsingLayout(allComboKeys, keyboardLayout);
-        WinDef.POINT mousePosition = WindowsMouse.findMousePosition();
-        mousePositionListeners.forEach(
-                mousePositionListener -> mousePositionListener.mouseMoved(mousePosition.x,
-                        mousePosition.y));
+    }
+
+    /**
+     * Warns (at most once a minute) when the p99.9 of the hook callback durations over
+     * the last 10s reaches half of LowLevelHooksTimeout.
+     */
+    private void updateHookLatencyWatchdog(double delta) {
+        hookLatencyAlertCooldown -= delta;
+        hookLatencyCheckTimer -= delta;
+        if (hookLatencyCheckTimer < 0) {
+            hookLatencyCheckTimer = 10;
+            LatencyHistogram.Snapshot keyboardHookLatencySnapshot =
+                    keyboardHookLatency.snapshot();
+            LatencyHistogram.Snapshot mouseHookLatencySnapshot =
+                    mouseHookLatency.snapshot();
+            long p999Nanos = Math.max(
+                    keyboardHookLatencySnapshot.minus(previousKeyboardHookLatency)
+                                               .valueAtPercentile(99.9),
+                    mouseHookLatencySnapshot.minus(previousMouseHookLatency)
+                                            .valueAtPercentile(99.9));
+            previousKeyboardHookLatency = keyboardHookLatencySnapshot;
+            previousMouseHookLatency = mouseHookLatencySnapshot;
+            if (p999Nanos >= lowLevelHooksTimeout.toNanos() / 2 &&
+                hookLatencyAlertCooldown < 0) {
+                hookLatencyAlertCooldown = 60;
+                logger.warn("Hook callback p99.9 over the last 10s is " +
+                            LatencyHistogram.formatNanos(p999Nanos) +
+                            ", LowLevelHooksTimeout is " +
+                            lowLevelHooksTimeout.toMillis() +
+                            "ms, Windows may remove the hooks: " + hookLatencySummary());
+            }
+        }
+    }
+
+    private String hookLatencySummary() {
+        return hookLatency.getSummary();
+    }
+
+    /**
+     * HKCU\Control Panel\Desktop\LowLevelHooksTimeout, in milliseconds. It is usually
+     * not set, in which case Windows uses a default of a few hundred milliseconds.
+     */
+    private static Duration findLowLevelHooksTimeout() {
+        Duration defaultTimeout = Duration.ofMillis(300);
+        try {
+            if (!Advapi32Util.registryValueExists(WinReg.HKEY_CURRENT_USER,
+                    "Control Panel\\Desktop", "LowLevelHooksTimeout"))
+                return defaultTimeout;
+            Object value = Advapi32Util.registryGetValue(WinReg.HKEY_CURRENT_USER,
+                    "Control Panel\\Desktop", "LowLevelHooksTimeout");
+            if (value instanceof Integer millis)
+                return Duration.ofMillis(millis);
+            if (value instanceof String millis)
+                return Duration.ofMillis(Long.parseLong(millis.strip()));
+        } catch (Win32Exception | NumberFormatException e) {
+            logger.info("Unable to read LowLevelHooksTimeout from the registry", e);
+        }
+        return defaultTimeout;
     }
 
     /**
@@ -119,6 +303,12 @@ public class WindowsPlatform implements Platform {
     }
 
     private void installHooks() {
+        startupProfiler.measure(StartupProfiler.Phase.HOOKS, this::setHooks);
+        addJvmShutdownHook();
+        logger.info("Keyboard and mouse hooks installed");
+    }
+
+    private void setHooks() {
         WinDef.HMODULE hMod = Kernel32.INSTANCE.GetModuleHandle(null);
         keyboardHookCallback = WindowsPlatform.this::keyboardHookCallback;
         keyboardHook = User32.INSTANCE.SetWindowsHookEx(WinUser.WH_KEYBOARD_LL,
@@ -126,13 +316,13 @@ public class WindowsPlatform implements Platform {
         mouseHookCallback = WindowsPlatform.this::mouseHookCallback;
         mouseHook = User32.INSTANCE.SetWindowsHookEx(WinUser.WH_MOUSE_LL,
                 mouseHookCallback, hMod, 0);
-        addJvmShutdownHook();
-        logger.info("Keyboard and mouse hooks installed");
     }
 
     private void addJvmShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             WindowsMouse.showCursor(); // Just in case we are shutting down while cursor is hidden.
+            if (exposeHookLatency)
+                logger.info(hookLatencySummary());
             boolean keyboardHookUnhooked =
                     User32.INSTANCE.UnhookWindowsHookEx(keyboardHook);
             boolean mouseHookUnhooked = User32.INSTANCE.UnhookWindowsHookEx(mouseHook);
@@ -144,43 +334,17 @@ public class WindowsPlatform implements Platform {
         }));
     }
 
-    /**
-     * On the Windows lock screen, hit space then enter the pin. Space press is recorded by the app but the
-     * corresponding release is never received. That is why we need to double-check if the key is still pressed
-     * with GetAsyncKeyState.
-     * Sometimes, it is the Win key (from Win + L) for which we do not receive the release event.
-     * getAsyncKeyStateResult is not working the way I expected: it returns not pressed for keys pressed
-     * after other keys: press left button, then move mouse: the key for press left shows as not pressed
-     * according to getAsyncKeyStateResult. That is why we consider not eaten keys only.
-     * The getAsyncKeyStateResult call could probably be taken out (it is useless) and replaced with
-     * a simple 10s expiration time.
-     */
     private void sanityCheckCurrentlyPressedKeys(double delta) {
-        for (AtomicReference<Double> pressDuration : currentlyPressedNotEatenKeys.values())
-            pressDuration.set(pressDuration.get() + delta);
-        Set<Key> keysThatDoNotSeemToBePressedAnymore = new HashSet<>();
-        for (Map.Entry<Key, AtomicReference<Double>> entry : currentlyPressedNotEatenKeys.entrySet()) {
-            Key key = entry.getKey();
-            AtomicReference<Double> pressDuration = entry.getValue();
-            if (pressDuration.get() < 10)
-                continue;
-            short getAsyncKeyStateResult = User32.INSTANCE.GetAsyncKeyState(
-                    WindowsVirtualKey.windowsVirtualKeyFromKey(key).virtualKeyCode);
-            boolean pressed = (getAsyncKeyStateResult & 0x8000) != 0;
-            if (!pressed)
-                keysThatDoNotSeemToBePressedAnymore.add(key);
-            else
-                // The key was legitimately pressed for 10s.
-                pressDuration.set(0d);
-        }
-        if (!keysThatDoNotSeemToBePressedAnymore.isEmpty()) {
-            logger.info(
-                    "Resetting KeyboardManager and MouseController since the following currentlyPressedKeys are not pressed anymore according to GetAsyncKeyState: " +
-                    keysThatDoNotSeemToBePressedAnymore);
-            currentlyPressedNotEatenKeys.clear();
-            keyboardManager.reset();
-            mouseController.reset();
-        }
+        Set<Key> keysThatDoNotSeemToBePressedAnymore = pressedKeySanityCheck.update(delta);
+        if (keysThatDoNotSeemToBePressedAnymore == null)
+            return;
+        logger.info(
+                "Resetting KeyboardManager and MouseController since the following currentlyPressedKeys are not pressed anymore according to GetAsyncKeyState: " +
+                keysThatDoNotSeemToBePressedAnymore);
+        if (hookKeyEvents != null)
+            hookKeyEvents.forgetPressedKeys();
+        keyboardManager.reset();
+        mouseController.reset();
     }
 
     private boolean acquireSingleInstanceMutex() {
@@ -196,6 +360,16 @@ public class WindowsPlatform implements Platform {
 
     private WinDef.LRESULT keyboardHookCallback(int nCode, WinDef.WPARAM wParam,
                                                 WinUser.KBDLLHOOKSTRUCT info) {
+        long startNanoTime = System.nanoTime();
+        try {
+            return processKeyboardHookEvent(nCode, wParam, info);
+        } finally {
+            keyboardHookLatency.record(System.nanoTime() - startNanoTime);
+        }
+    }
+
+    private WinDef.LRESULT processKeyboardHookEvent(int nCode, WinDef.WPARAM wParam,
+                                                    WinUser.KBDLLHOOKSTRUCT info) {
         if (nCode >= 0) {
             switch (wParam.intValue()) {
                 case WinUser.WM_KEYUP:
@@ -221,13 +395,15 @@ public class WindowsPlatform implements Platform {
                     else {
                         boolean release = wParam.intValue() == WinUser.WM_KEYUP ||
                                 wParam.intValue() == WinUser.WM_SYSKEYUP;
-                        Key key = WindowsVirtualKey.keyFromWindowsEvent(WindowsVirtualKey.values.get(info.vkCode),
-                                    info.scanCode, info.flags);
+                        Key key = WindowsVirtualKey.keyFromWindowsEvent(info.vkCode,
+                                info.flags);
                         if (key != null) {
                             Instant time = systemStartTime.plusMillis(info.time);
                             KeyEvent keyEvent = release ? new ReleaseKeyEvent(time, key) :
                                     new PressKeyEvent(time, key);
-                            boolean eventMustBeEaten = handleKeyEvent(keyEvent, info, wParamString);
+                            boolean eventMustBeEaten = hookKeyEvents == null ?
+                                    handleKeyEvent(keyEvent) :
+                                    hookKeyEvents.offer(keyEvent);
                             if (eventMustBeEaten) {
                                 return new WinDef.LRESULT(1);
                             }
@@ -241,18 +417,20 @@ public class WindowsPlatform implements Platform {
         return ExtendedUser32.INSTANCE.CallNextHookEx(keyboardHook, nCode, wParam, info);
     }
 
-    private boolean handleKeyEvent(KeyEvent keyEvent, WinUser.KBDLLHOOKSTRUCT info,
-                                   String wParamString) {
-        if (!keyEvent.isPress())
-            currentlyPressedNotEatenKeys.remove(keyEvent.key());
+    private boolean handleKeyEvent(KeyEvent keyEvent) {
         boolean mustBeEaten = keyboardManager.keyEvent(keyEvent);
-        if (keyEvent.isPress() && !mustBeEaten) {
-            currentlyPressedNotEatenKeys.computeIfAbsent(keyEvent.key(),
-                    key -> new AtomicReference<>(0d)).set(0d);
-        }
+        pressedKeySanityCheck.keyEvent(keyEvent, mustBeEaten);
         return mustBeEaten;
     }
 
+    private void handleHookKeyEvent(HookKeyEventQueue.HookKeyEvent hookKeyEvent) {
+        boolean mustBeEaten = handleKeyEvent(hookKeyEvent.keyEvent());
+        if (mustBeEaten != hookKeyEvent.eaten())
+            logger.debug("Input thread " + (hookKeyEvent.eaten() ? "ate " : "did not eat ") +
+                         hookKeyEvent.keyEvent() +
+                         " but the keyboard manager decided otherwise");
+    }
+
     private static void logKeyEvent(WinUser.KBDLLHOOKSTRUCT info,
                                     String wParamString) {
         if (logger.isTraceEnabled())
@@ -266,22 +444,39 @@ public class WindowsPlatform implements Platform {
 
     private WinDef.LRESULT mouseHookCallback(int nCode, WinDef.WPARAM wParam,
                                              WinUser.MSLLHOOKSTRUCT info) {
-        if (nCode >= 0) {
-            WinDef.POINT mousePosition = info.pt;
-            WindowsOverlay.mouseMoved(mousePosition);
-            mousePositionListeners.forEach(
-                    listener -> listener.mouseMoved(mousePosition.x, mousePosition.y));
-        }
-        return ExtendedUser32.INSTANCE.CallNextHookEx(mouseHook, nCode, wParam, info);
+        long startNanoTime = System.nanoTime();
+        if (nCode >= 0)
+            pendingMousePosition.set(packMousePosition(info.pt.x, info.pt.y));
+        WinDef.LRESULT result =
+                ExtendedUser32.INSTANCE.CallNextHookEx(mouseHook, nCode, wParam, info);
+        mouseHookLatency.record(System.nanoTime() - startNanoTime);
+        return result;
     }
 
     /**
      * mouseHookCallback is not called when we call the SetMousePos() API.
+     * Can be called from any thread.
      */
     public void mousePositionSet(WinDef.POINT mousePosition) {
-        WindowsOverlay.mouseMoved(mousePosition);
-        mousePositionListeners.forEach(
-                listener -> listener.mouseMoved(mousePosition.x, mousePosition.y));
+        pendingMousePosition.set(packMousePosition(mousePosition.x, mousePosition.y));
+    }
+
+    /**
+     * Must be called from the thread running update().
+     */
+    public void dispatchPendingMousePosition() {
+        long mousePosition = pendingMousePosition.getAndSet(noPendingMousePosition);
+        if (mousePosition == noPendingMousePosition)
+            return;
+        int x = (int) (mousePosition >> 32);
+        int y = (int) mousePosition;
+        WindowsOverlay.mouseMoved(new WinDef.POINT(x, y));
+        for (MousePositionListener listener : mousePositionListeners)
+            listener.mouseMoved(x, y);
+    }
+
+    private static long packMousePosition(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
     }
 
 }
@@ -0,0 +1,42 @@
+package mousemaster;
+
+import com.sun.jna.Memory;
+import com.sun.jna.platform.win32.GDI32;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinGDI;
+import com.sun.jna.platform.win32.WinNT;
+
+public class WindowsScreenCapture {
+
+    /**
+     * @return 0x00RRGGBB pixels, row by row.
+     */
+    public static int[] capture(Rectangle rectangle) {
+        int width = rectangle.width();
+        int height = rectangle.height();
+        WinDef.HDC screenDc = User32.INSTANCE.GetDC(null);
+        WinDef.HDC memDC = GDI32.INSTANCE.CreateCompatibleDC(screenDc);
+        WinDef.HBITMAP hBitmap =
+                GDI32.INSTANCE.CreateCompatibleBitmap(screenDc, width, height);
+        WinNT.HANDLE oldBitmap = GDI32.INSTANCE.SelectObject(memDC, hBitmap);
+        GDI32.INSTANCE.BitBlt(memDC, 0, 0, width, height, screenDc, rectangle.x(),
+                rectangle.y(), GDI32.SRCCOPY);
+        GDI32.INSTANCE.SelectObject(memDC, oldBitmap);
+        WinGDI.BITMAPINFO bitmapInfo = new WinGDI.BITMAPINFO();
+        bitmapInfo.bmiHeader.biWidth = width;
+        // Negative height: top-down rows.
+        bitmapInfo.bmiHeader.biHeight = -height;
+        bitmapInfo.bmiHeader.biPlanes = 1;
+        bitmapInfo.bmiHeader.biBitCount = 32;
+        bitmapInfo.bmiHeader.biCompression = WinGDI.BI_RGB;
+        Memory buffer = new Memory((long) width * height * 4);
+        GDI32.INSTANCE.GetDIBits(memDC, hBitmap, 0, height, buffer, bitmapInfo,
+                WinGDI.DIB_RGB_COLORS);
+        GDI32.INSTANCE.DeleteObject(hBitmap);
+        GDI32.INSTANCE.DeleteDC(memDC);
+        User32.INSTANCE.ReleaseDC(null, screenDc);
+        return buffer.getIntArray(0, width * height);
+    }
+
+}
@@ -1,5 +1,6 @@
 package mousemaster;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.User32;
 import com.sun.jna.platform.win32.WinDef;
 import org.slf4j.Logger;
@@ -393,8 +394,28 @@ public enum WindowsVirtualKey {
     public static final Map<WindowsVirtualKey, Key>
             keyboardLayoutIndependentKeyByVirtualKey = new HashMap<>();
 
-    public static final Map<Key, WindowsVirtualKey> keyboardLayoutDependentVirtualKeyByKey = new HashMap<>();
-    public static final Map<WindowsVirtualKey, Key> keyboardLayoutDependentKeyByVirtualKey = new HashMap<>();
+    private static final int extendedVirtualKeyIndexOffset = 256;
+
+    /**
+     * Replaced as a whole when the keys are mapped using a keyboard layout, so that the
+     * input thread always sees a complete table.
+     */
+    private static volatile KeyTranslationTable keyTranslationTable;
+    private static final int maxCachedKeyTranslationTableCount = 8;
+    /**
+     * Least recently used first.
+     */
+    private static final Map<WinDef.HKL, KeyTranslationTable>
+            keyTranslationTableByKeyboardLayoutHandle =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<WinDef.HKL, KeyTranslationTable> eldest) {
+                    return size() > maxCachedKeyTranslationTableCount;
+                }
+            };
+    private static WinDef.HKL activeKeyboardLayoutHandle;
+    private static Set<Key> mappedKeys = Set.of();
 
     private static final Logger logger = LoggerFactory.getLogger(WindowsVirtualKey.class);
 
@@ -415,16 +436,23 @@ public enum WindowsVirtualKey {
         for (Map.Entry<Key, WindowsVirtualKey> entry : keyboardLayoutIndependentVirtualKeyByKey.entrySet())
             keyboardLayoutIndependentKeyByVirtualKey.put(entry.getValue(),
                     entry.getKey());
+        keyTranslationTable = keyTranslationTable(Map.of());
     }
 
-    public static void mapKeysToVirtualKeysUsingLayout(Set<Key> keys, KeyboardLayout configurationKeyboardLayout) {
+    /**
+     * Builds the translation table of the keys without activating it, so that a key that
+     * cannot be mapped leaves the current mapping untouched.
+     * @return activates the new mapping.
+     */
+    public static Runnable mapKeysToVirtualKeysUsingLayout(Set<Key> keys, KeyboardLayout configurationKeyboardLayout) {
         WinDef.HKL keyboardLayoutHandle;
         KeyboardLayout keyboardLayout;
         KeyboardLayout activeKeyboardLayout = findActiveKeyboardLayoutName();
         if (configurationKeyboardLayout == null) {
             keyboardLayoutHandle = User32.INSTANCE.GetKeyboardLayout(0);
             // Active keyboard layout is the system-wide layout that was active when the app started.
-            // It does not change after that, even if the system-wide layout changes.
+            // It does not change after that, even if the system-wide layout changes:
+            // followForegroundKeyboardLayout() follows the layout of the foreground window.
             logger.info("Using active keyboard layout " + activeKeyboardLayout);
             keyboardLayout = activeKeyboardLayout;
         }
@@ -446,6 +474,86 @@ public enum WindowsVirtualKey {
                             activeKeyboardLayout);
             keyboardLayout = configurationKeyboardLayout;
         }
+        Set<Key> newMappedKeys = Set.copyOf(keys);
+        KeyTranslationTable newKeyTranslationTable =
+                keyTranslationTable(keyboardLayoutHandle, String.valueOf(keyboardLayout),
+                        newMappedKeys, true);
+        WinDef.HKL newKeyboardLayoutHandle = keyboardLayoutHandle;
+        return () -> {
+            mappedKeys = newMappedKeys;
+            keyTranslationTableByKeyboardLayoutHandle.clear();
+            activateKeyTranslationTable(newKeyboardLayoutHandle, newKeyTranslationTable);
+        };
+    }
+
+    /**
+     * Switches to the keyboard layout of the foreground window if it has changed. The
+     * table of a layout is built the first time the layout is used, and kept until the
+     * keys are mapped again. The combos are not affected: they are expressed in keys,
+     * only the translation from virtual keys changes.
+     */
+    public static void followForegroundKeyboardLayout() {
+        WinDef.HWND foregroundWindow = User32.INSTANCE.GetForegroundWindow();
+        if (foregroundWindow == null)
+            return;
+        WinDef.HKL keyboardLayoutHandle = User32.INSTANCE.GetKeyboardLayout(
+                User32.INSTANCE.GetWindowThreadProcessId(foregroundWindow, null));
+        if (keyboardLayoutHandle != null)
+            switchKeyboardLayout(keyboardLayoutHandle);
+    }
+
+    /**
+     * @return false if the keyboard layout is already the active one.
+     */
+    static boolean switchKeyboardLayout(WinDef.HKL keyboardLayoutHandle) {
+        if (keyboardLayoutHandle.equals(activeKeyboardLayoutHandle))
+            return false;
+        long switchBeginNanoTime = System.nanoTime();
+        String keyboardLayoutName = keyboardLayoutName(keyboardLayoutHandle);
+        KeyTranslationTable keyTranslationTable =
+                keyTranslationTableByKeyboardLayoutHandle.get(keyboardLayoutHandle);
+        boolean cached = keyTranslationTable != null;
+        if (!cached)
+            keyTranslationTable = keyTranslationTable(keyboardLayoutHandle,
+                    keyboardLayoutName, mappedKeys, false);
+        activateKeyTranslationTable(keyboardLayoutHandle, keyTranslationTable);
+        logger.info("Switched to foreground keyboard layout " + keyboardLayoutName +
+                    " in " + LatencyHistogram.formatNanos(
+                System.nanoTime() - switchBeginNanoTime) +
+                    (cached ? " (cached)" : ""));
+        return true;
+    }
+
+    private static void activateKeyTranslationTable(WinDef.HKL keyboardLayoutHandle,
+                                                    KeyTranslationTable keyTranslationTable) {
+        keyTranslationTableByKeyboardLayoutHandle.put(keyboardLayoutHandle,
+                keyTranslationTable);
+        activeKeyboardLayoutHandle = keyboardLayoutHandle;
+        WindowsVirtualKey.keyTranslationTable = keyTranslationTable;
+    }
+
+    /**
+     * The low word of a keyboard layout handle is the language identifier, which is
+     * also the identifier of the language's default layout.
+     */
+    private static String keyboardLayoutName(WinDef.HKL keyboardLayoutHandle) {
+        long handleValue = Pointer.nativeValue(keyboardLayoutHandle.getPointer());
+        KeyboardLayout keyboardLayout = KeyboardLayout.keyboardLayoutByIdentifier.get(
+                String.format("%08X", handleValue & 0xFFFF));
+        return keyboardLayout != null ? keyboardLayout.toString() :
+                Long.toHexString(handleValue);
+    }
+
+    /**
+     * @param keysMustExist if false, keys that cannot be typed with the layout are
+     *                      left unmapped instead of failing (the user has switched to
+     *                      a layout the configuration was not written for).
+     */
+    private static KeyTranslationTable keyTranslationTable(
+            WinDef.HKL keyboardLayoutHandle, String keyboardLayout, Set<Key> keys,
+            boolean keysMustExist) {
+        Map<WindowsVirtualKey, Key> keyboardLayoutDependentKeyByVirtualKey = new HashMap<>();
+        List<Key> unmappedKeys = new ArrayList<>();
         for (Key key : keys) {
             if (key.character() == null)
                 continue;
@@ -453,15 +561,17 @@ public enum WindowsVirtualKey {
                     User32.INSTANCE.VkKeyScanExW(key.character().charAt(0),
                             keyboardLayoutHandle);
             if (vkScanResult == -1) {
-                throw new IllegalStateException(
-                        "Unable to find the Windows virtual key corresponding to " + key +
-                        " in " + keyboardLayout);
+                if (keysMustExist)
+                    throw new IllegalStateException(
+                            "Unable to find the Windows virtual key corresponding to " +
+                            key + " in " + keyboardLayout);
+                unmappedKeys.add(key);
+                continue;
             }
             int virtualKeyCode = vkScanResult & 0xFF;
             int shiftState = (vkScanResult >> 8) & 0xFF;
             WindowsVirtualKey windowsVirtualKey = values.get(virtualKeyCode);
             keyboardLayoutDependentKeyByVirtualKey.put(windowsVirtualKey, key);
-            keyboardLayoutDependentVirtualKeyByKey.put(key, windowsVirtualKey);
         }
         Set<WindowsVirtualKey> otherWindowsVirtualKeys = values.stream()
                                                                .filter(Objects::nonNull)
@@ -499,10 +609,49 @@ public enum WindowsVirtualKey {
                 throw new IllegalStateException(characterString);
             Key key = Key.ofCharacter(characterString);
             keyboardLayoutDependentKeyByVirtualKey.put(otherWindowsVirtualKey, key);
-            keyboardLayoutDependentVirtualKeyByKey.put(key, otherWindowsVirtualKey);
         }
+        if (!unmappedKeys.isEmpty())
+            logger.info("Unable to find the Windows virtual keys corresponding to " +
+                        unmappedKeys + " in " + keyboardLayout);
+        KeyTranslationTable keyTranslationTable =
+                keyTranslationTable(keyboardLayoutDependentKeyByVirtualKey);
         logger.debug("Mapped keys to Windows virtual keys in " + keyboardLayout + ": " +
-                     keyboardLayoutDependentVirtualKeyByKey);
+                     keyTranslationTable.virtualKeyByKey());
+        return keyTranslationTable;
+    }
+
+    private static KeyTranslationTable keyTranslationTable(
+            Map<WindowsVirtualKey, Key> keyboardLayoutDependentKeyByVirtualKey) {
+        Key[] keyByVirtualKeyIndex = new Key[2 * extendedVirtualKeyIndexOffset];
+        Map<Key, WindowsVirtualKey> virtualKeyByKey = new HashMap<>();
+        // Layout independent keys take precedence.
+        for (Map<WindowsVirtualKey, Key> keyByVirtualKey : List.of(
+                keyboardLayoutDependentKeyByVirtualKey,
+                keyboardLayoutIndependentKeyByVirtualKey)) {
+            keyByVirtualKey.forEach((windowsVirtualKey, key) -> {
+                keyByVirtualKeyIndex[windowsVirtualKey.virtualKeyCode] = key;
+                keyByVirtualKeyIndex[extendedVirtualKeyIndexOffset +
+                                     windowsVirtualKey.virtualKeyCode] = key;
+                virtualKeyByKey.put(key, windowsVirtualKey);
+            });
+        }
+        // Generic modifier virtual keys: left or right depending on the extended flag.
+        putGenericModifier(keyByVirtualKeyIndex, VK_SHIFT, Key.leftshift, Key.rightshift);
+        putGenericModifier(keyByVirtualKeyIndex, VK_CONTROL, Key.leftctrl, Key.rightctrl);
+        putGenericModifier(keyByVirtualKeyIndex, VK_MENU, Key.leftalt, Key.rightalt);
+        return new KeyTranslationTable(keyByVirtualKeyIndex, Map.copyOf(virtualKeyByKey));
+    }
+
+    /**
+     * Generic modifier virtual keys (e.g. VK_SHIFT) are left or right depending on the
+     * extended flag.
+     */
+    private static void putGenericModifier(Key[] keyByVirtualKeyIndex,
+                                           WindowsVirtualKey windowsVirtualKey,
+                                           Key leftKey, Key rightKey) {
+        keyByVirtualKeyIndex[windowsVirtualKey.virtualKeyCode] = leftKey;
+        keyByVirtualKeyIndex[extendedVirtualKeyIndexOffset +
+                             windowsVirtualKey.virtualKeyCode] = rightKey;
     }
 
     private static KeyboardLayout findActiveKeyboardLayoutName() {
@@ -519,30 +668,27 @@ public enum WindowsVirtualKey {
                 new String(nameBuffer, 0, nameLength));
     }
 
-    public static Key keyFromWindowsEvent(WindowsVirtualKey windowsVirtualKey, int scanCode, int flags) {
-        Key key = switch (windowsVirtualKey) {
-            case VK_SHIFT -> (flags & 0x01000000) == 0 ? Key.leftshift : Key.rightshift;
-            case VK_CONTROL -> (flags & 0x01000000) == 0 ? Key.leftctrl : Key.rightctrl;
-            case VK_CTRL -> (flags & 0x01000000) == 0 ? Key.leftctrl : Key.rightctrl;
-            case VK_MENU -> (flags & 0x01000000) == 0 ? Key.leftalt : Key.rightalt;
-            case VK_ALT -> (flags & 0x01000000) == 0 ? Key.leftalt : Key.rightalt;
-            default -> null;
-        };
-        if (key != null)
-            return key;
-        key = keyboardLayoutIndependentKeyByVirtualKey.get(windowsVirtualKey);
-        if (key != null)
-            return key;
-        key = keyboardLayoutDependentKeyByVirtualKey.get(windowsVirtualKey);
-        return key;
+    /**
+     * @param flags the flags of the hook event: the extended flag tells left and right
+     *              generic modifiers (e.g. VK_SHIFT) apart.
+     * @return null if the virtual key is not mapped to a key.
+     */
+    public static Key keyFromWindowsEvent(int virtualKeyCode, int flags) {
+        return keyTranslationTable.keyByVirtualKeyIndex()[
+                (flags & 0x01000000) == 0 ? virtualKeyCode :
+                        extendedVirtualKeyIndexOffset + virtualKeyCode];
     }
 
     public static WindowsVirtualKey windowsVirtualKeyFromKey(Key key) {
-        WindowsVirtualKey windowsVirtualKey =
-                keyboardLayoutIndependentVirtualKeyByKey.get(key);
-        if (windowsVirtualKey != null)
-            return windowsVirtualKey;
-        return keyboardLayoutDependentVirtualKeyByKey.get(key);
+        return keyTranslationTable.virtualKeyByKey().get(key);
+    }
+
+    /**
+     * @param keyByVirtualKeyIndex indexed by the virtual key code, plus 256 if the
+     *                             extended flag is set.
+     */
+    private record KeyTranslationTable(Key[] keyByVirtualKeyIndex,
+                                       Map<Key, WindowsVirtualKey> virtualKeyByKey) {
     }
 
 }
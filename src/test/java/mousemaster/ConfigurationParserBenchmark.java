@@ -0,0 +1,73 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parse throughput of configurations made of copies of warpd.properties's normal-mode,
+ * from 1,000 to 100,000 lines.
+ */
+class ConfigurationParserBenchmark {
+
+    private static final Path configurationPath = Path.of("configuration/warpd.properties");
+
+    @Test
+    void parseThroughput(@TempDir Path directory) throws IOException {
+        Path warmUpPath = writeConfiguration(directory, 1_000);
+        for (int warmUpIndex = 0; warmUpIndex < 20; warmUpIndex++)
+            ConfigurationParser.parse(warmUpPath);
+        for (int lineCount : new int[]{1_000, 10_000, 100_000}) {
+            Path path = writeConfiguration(directory, lineCount);
+            int actualLineCount = Files.readAllLines(path).size();
+            long[] parseNanos = new long[5];
+            for (int runIndex = 0; runIndex < parseNanos.length; runIndex++) {
+                long parseBeginNanoTime = System.nanoTime();
+                Configuration configuration = ConfigurationParser.parse(path);
+                parseNanos[runIndex] = System.nanoTime() - parseBeginNanoTime;
+                assertTrue(configuration.modeMap().modes().size() > lineCount / 50);
+            }
+            Arrays.sort(parseNanos);
+            long medianParseNanos = parseNanos[parseNanos.length / 2];
+            System.out.printf("Parsed %,d lines in %.1fms (median of %d), %,.0f lines/s%n",
+                    actualLineCount, medianParseNanos / 1e6, parseNanos.length,
+                    actualLineCount / (medianParseNanos / 1e9));
+        }
+    }
+
+    /**
+     * warpd.properties followed by copies of its normal-mode (copy0-mode, copy1-mode...),
+     * each one switching to the next so that every mode is referenced.
+     */
+    private static Path writeConfiguration(Path directory, int lineCount)
+            throws IOException {
+        List<String> baseLines = Files.readAllLines(configurationPath);
+        List<String> normalModeLines = baseLines.stream()
+                                                .filter(line -> line.startsWith(
+                                                        "normal-mode."))
+                                                .toList();
+        List<String> lines = new ArrayList<>(baseLines);
+        lines.add("normal-mode.to.copy0-mode=+f");
+        int copyIndex = 0;
+        while (lines.size() < lineCount) {
+            for (String line : normalModeLines)
+                lines.add(line.replace("normal-mode.", "copy" + copyIndex + "-mode."));
+            lines.add("copy" + copyIndex + "-mode.to.copy" + (copyIndex + 1) +
+                      "-mode=+f");
+            copyIndex++;
+        }
+        lines.add("copy" + copyIndex + "-mode.to.idle-mode=+esc");
+        Path path = directory.resolve(lineCount + ".properties");
+        Files.write(path, lines);
+        return path;
+    }
+
+}
@@ -0,0 +1,54 @@
+package mousemaster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stand-in for WindowsFontProvider: fonts are plain objects, every call is recorded.
+ * A character is as wide as the font size.
+ */
+class FakeFontProvider implements FontProvider<FakeFontProvider.FakeFont> {
+
+    private final Set<String> fontFamilyNames;
+    int fontFamilyEnumerationCount;
+    int textSizeCount;
+    final List<FakeFont> createdFonts = new ArrayList<>();
+    final List<FakeFont> deletedFonts = new ArrayList<>();
+
+    FakeFontProvider(Set<String> fontFamilyNames) {
+        this.fontFamilyNames = fontFamilyNames;
+    }
+
+    @Override
+    public Set<String> fontFamilyNames() {
+        fontFamilyEnumerationCount++;
+        return fontFamilyNames;
+    }
+
+    @Override
+    public FakeFont createFont(FontCache.FontKey fontKey) {
+        FakeFont font = new FakeFont(fontKey, createdFonts.size());
+        createdFonts.add(font);
+        return font;
+    }
+
+    @Override
+    public FontCache.TextSize textSize(FakeFont font, String text) {
+        textSizeCount++;
+        return new FontCache.TextSize(text.length() * font.fontKey().size(),
+                font.fontKey().size());
+    }
+
+    @Override
+    public void deleteFont(FakeFont font) {
+        deletedFonts.add(font);
+    }
+
+    /**
+     * @param creationIndex tells apart two fonts created for the same key.
+     */
+    record FakeFont(FontCache.FontKey fontKey, int creationIndex) {
+    }
+
+}
@@ -0,0 +1,84 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FontCacheTest {
+
+    private static final FontCache.FontKey consolas10 =
+            new FontCache.FontKey("Consolas", 10, 96);
+    private static final FontCache.FontKey consolas20 =
+            new FontCache.FontKey("Consolas", 20, 96);
+    private static final FontCache.FontKey consolas10HighDpi =
+            new FontCache.FontKey("Consolas", 10, 144);
+
+    @Test
+    void fontFamiliesAreEnumeratedOnceWhenFirstNeeded() {
+        FakeFontProvider fontProvider = new FakeFontProvider(Set.of("arial", "consolas"));
+        FontCache<FakeFontProvider.FakeFont> fontCache = new FontCache<>(fontProvider, 2);
+        assertEquals(0, fontProvider.fontFamilyEnumerationCount);
+        assertTrue(fontCache.fontExists("Consolas"));
+        assertTrue(fontCache.fontExists("arial"));
+        assertFalse(fontCache.fontExists("Comic Sans MS"));
+        assertEquals(1, fontProvider.fontFamilyEnumerationCount);
+    }
+
+    @Test
+    void leastRecentlyUsedFontIsDeleted() {
+        FakeFontProvider fontProvider = new FakeFontProvider(Set.of());
+        FontCache<FakeFontProvider.FakeFont> fontCache = new FontCache<>(fontProvider, 2);
+        FakeFontProvider.FakeFont font10 = fontCache.font(consolas10);
+        FakeFontProvider.FakeFont font20 = fontCache.font(consolas20);
+        // consolas20 becomes the least recently used.
+        assertSame(font10, fontCache.font(consolas10));
+        FakeFontProvider.FakeFont font10HighDpi = fontCache.font(consolas10HighDpi);
+        assertEquals(List.of(font10, font20, font10HighDpi), fontProvider.createdFonts);
+        assertEquals(List.of(font20), fontProvider.deletedFonts);
+        assertSame(font10, fontCache.font(consolas10));
+        assertSame(font10HighDpi, fontCache.font(consolas10HighDpi));
+        // Created again.
+        assertNotSame(font20, fontCache.font(consolas20));
+        assertEquals(4, fontProvider.createdFonts.size());
+        assertEquals(List.of(font20, font10), fontProvider.deletedFonts);
+    }
+
+    @Test
+    void textSizesAreCachedWithTheirFont() {
+        FakeFontProvider fontProvider = new FakeFontProvider(Set.of());
+        FontCache<FakeFontProvider.FakeFont> fontCache = new FontCache<>(fontProvider, 1);
+        assertEquals(new FontCache.TextSize(20, 10), fontCache.textSize(consolas10, "ab"));
+        assertEquals(new FontCache.TextSize(20, 10), fontCache.textSize(consolas10, "ab"));
+        assertEquals(1, fontProvider.textSizeCount);
+        assertEquals(new FontCache.TextSize(30, 10), fontCache.textSize(consolas10, "abc"));
+        assertEquals(2, fontProvider.textSizeCount);
+        // Evicts consolas10 and its text sizes.
+        assertEquals(new FontCache.TextSize(40, 20), fontCache.textSize(consolas20, "ab"));
+        assertEquals(new FontCache.TextSize(20, 10), fontCache.textSize(consolas10, "ab"));
+        assertEquals(4, fontProvider.textSizeCount);
+    }
+
+    @Test
+    void invalidateDeletesEveryFont() {
+        FakeFontProvider fontProvider = new FakeFontProvider(Set.of("consolas"));
+        FontCache<FakeFontProvider.FakeFont> fontCache = new FontCache<>(fontProvider, 4);
+        assertTrue(fontCache.fontExists("Consolas"));
+        fontCache.font(consolas10);
+        fontCache.font(consolas20);
+        fontCache.textSize(consolas10, "ab");
+        fontCache.invalidate();
+        assertEquals(Set.copyOf(fontProvider.createdFonts),
+                Set.copyOf(fontProvider.deletedFonts));
+        assertEquals(2, fontProvider.deletedFonts.size());
+        // The installed fonts may have changed.
+        assertTrue(fontCache.fontExists("Consolas"));
+        assertEquals(2, fontProvider.fontFamilyEnumerationCount);
+        assertNotSame(fontProvider.createdFonts.get(0), fontCache.font(consolas10));
+        fontCache.textSize(consolas10, "ab");
+        assertEquals(2, fontProvider.textSizeCount);
+    }
+
+}
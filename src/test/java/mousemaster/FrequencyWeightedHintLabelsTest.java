@@ -0,0 +1,144 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencyWeightedHintLabelsTest {
+
+    private static final List<Key> keys =
+            List.of(Key.ofName("a"), Key.ofName("b"), Key.ofName("c"), Key.ofName("d"),
+                    Key.ofName("e"), Key.ofName("f"));
+
+    @Test
+    void labelsArePrefixFree() {
+        Random random = new Random(1);
+        for (int keyCount = 2; keyCount <= keys.size(); keyCount++) {
+            for (int hintCount = 1; hintCount <= 60; hintCount++) {
+                List<List<Key>> keySequences =
+                        FrequencyWeightedHintLabels.huffmanKeySequences(
+                                skewedWeights(random, hintCount), keys.subList(0, keyCount));
+                assertEquals(hintCount, keySequences.size());
+                for (int hintIndex = 0; hintIndex < hintCount; hintIndex++) {
+                    List<Key> keySequence = keySequences.get(hintIndex);
+                    assertFalse(keySequence.isEmpty());
+                    for (int otherHintIndex = 0; otherHintIndex < hintCount;
+                         otherHintIndex++) {
+                        if (otherHintIndex == hintIndex)
+                            continue;
+                        List<Key> otherKeySequence = keySequences.get(otherHintIndex);
+                        assertFalse(otherKeySequence.size() >= keySequence.size() &&
+                                    otherKeySequence.subList(0, keySequence.size())
+                                                    .equals(keySequence),
+                                keySequence + " is a prefix of " + otherKeySequence);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * With 4 hints and 3 keys, (4 - 1) % (3 - 1) != 0: one padding leaf is needed so that
+     * the root uses the 3 keys. Without it, the root would only have 2 children.
+     */
+    @Test
+    void paddingLeavesFillTheRoot() {
+        List<List<Key>> keySequences = FrequencyWeightedHintLabels.huffmanKeySequences(
+                new double[]{1, 1, 1, 1}, keys.subList(0, 3));
+        assertEquals(List.of(1, 1, 2, 2),
+                keySequences.stream().map(List::size).sorted().toList());
+        Random random = new Random(2);
+        for (int keyCount = 3; keyCount <= keys.size(); keyCount++) {
+            for (int hintCount = keyCount; hintCount <= 60; hintCount++) {
+                List<List<Key>> randomKeySequences =
+                        FrequencyWeightedHintLabels.huffmanKeySequences(
+                                skewedWeights(random, hintCount), keys.subList(0, keyCount));
+                Set<Key> firstKeys = new HashSet<>();
+                for (List<Key> keySequence : randomKeySequences)
+                    firstKeys.add(keySequence.getFirst());
+                assertEquals(keyCount, firstKeys.size(),
+                        hintCount + " hints, " + keyCount + " keys");
+                // Kraft sum: the padding leaves are the only unused labels.
+                int paddingLeafCount = (keyCount - 1 - (hintCount - 1) % (keyCount - 1)) %
+                                       (keyCount - 1);
+                assertTrue(kraftSum(randomKeySequences, keyCount) <= 1 + 1e-9);
+                assertTrue(paddingLeafCount > 0 ||
+                           Math.abs(kraftSum(randomKeySequences, keyCount) - 1) < 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Huffman codes are optimal: their average length is between the entropy (in base k)
+     * and the entropy + 1, and never above the fixed length.
+     */
+    @Test
+    void averageLengthIsBetweenTheEntropyAndTheFixedLength() {
+        Random random = new Random(3);
+        for (int keyCount = 2; keyCount <= keys.size(); keyCount++) {
+            for (int hintCount = 2; hintCount <= 200; hintCount += 7) {
+                double[] weights = skewedWeights(random, hintCount);
+                List<List<Key>> keySequences =
+                        FrequencyWeightedHintLabels.huffmanKeySequences(weights,
+                                keys.subList(0, keyCount));
+                double totalWeight = Arrays.stream(weights).sum();
+                double averageLength = 0;
+                double entropy = 0;
+                for (int hintIndex = 0; hintIndex < hintCount; hintIndex++) {
+                    double probability = weights[hintIndex] / totalWeight;
+                    averageLength += probability * keySequences.get(hintIndex).size();
+                    entropy -= probability * Math.log(probability) / Math.log(keyCount);
+                }
+                int fixedLength =
+                        (int) Math.ceil(Math.log(hintCount) / Math.log(keyCount) - 1e-9);
+                String message = hintCount + " hints, " + keyCount + " keys";
+                assertTrue(averageLength >= entropy - 1e-9, message);
+                assertTrue(averageLength < entropy + 1, message);
+                assertTrue(averageLength <= fixedLength + 1e-9, message);
+            }
+        }
+    }
+
+    @Test
+    void heavierHintsGetLabelsThatAreNotLonger() {
+        double[] weights = {0.5, 0.01, 0.2, 0.01, 0.1, 0.01, 0.05, 0.01};
+        List<List<Key>> keySequences = FrequencyWeightedHintLabels.huffmanKeySequences(
+                weights, keys.subList(0, 2));
+        for (int hintIndex = 0; hintIndex < weights.length; hintIndex++)
+            for (int otherHintIndex = 0; otherHintIndex < weights.length; otherHintIndex++)
+                if (weights[hintIndex] > weights[otherHintIndex])
+                    assertTrue(keySequences.get(hintIndex).size() <=
+                               keySequences.get(otherHintIndex).size());
+        // The heaviest child gets the first key.
+        assertEquals(List.of(keys.get(0)), keySequences.get(0));
+    }
+
+    @Test
+    void singleHintGetsTheFirstKey() {
+        assertEquals(List.of(List.of(keys.get(0))),
+                FrequencyWeightedHintLabels.huffmanKeySequences(new double[]{1},
+                        keys.subList(0, 3)));
+    }
+
+    /**
+     * A few hot hints and a long tail, like the weights of a heat map plus the base
+     * weight.
+     */
+    private static double[] skewedWeights(Random random, int hintCount) {
+        double[] weights = new double[hintCount];
+        for (int hintIndex = 0; hintIndex < hintCount; hintIndex++)
+            weights[hintIndex] = 0.2 / hintCount +
+                                 (random.nextInt(10) == 0 ? random.nextDouble() : 0);
+        return weights;
+    }
+
+    private static double kraftSum(List<List<Key>> keySequences, int keyCount) {
+        double kraftSum = 0;
+        for (List<Key> keySequence : keySequences)
+            kraftSum += Math.pow(keyCount, -keySequence.size());
+        return kraftSum;
+    }
+
+}
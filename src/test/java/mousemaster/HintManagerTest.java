@@ -0,0 +1,237 @@
+package mousemaster;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.CleanupMode;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hint meshes built by HintManager from the targets of a hint target source. The sources
+ * are stand-ins, and the overlay records the hint meshes instead of drawing them.
+ */
+class HintManagerTest {
+
+    private static final long timeoutMillis = TimeUnit.SECONDS.toMillis(10);
+    /**
+     * Labels of the 9 targets with 3 selection keys, in arrival order.
+     */
+    private static final List<String> labels =
+            List.of("aa", "ba", "ca", "ab", "bb", "cb", "ac", "bc", "cc");
+
+    /**
+     * A mapped position history file cannot be deleted on Windows until the mapping is
+     * garbage collected.
+     */
+    @TempDir(cleanup = CleanupMode.NEVER)
+    Path directory;
+    private ModeMap modeMap;
+    private RecordingOverlay overlay;
+    private HintManager hintManager;
+    private final List<HintTargetSource> openedSources = new ArrayList<>();
+
+    @BeforeEach
+    void createHintManager() throws IOException {
+        Path configurationPath = directory.resolve("mousemaster.properties");
+        Files.write(configurationPath, List.of(
+                "idle-mode.to.targets-mode=+t",
+                "targets-mode.hint.enabled=true",
+                "targets-mode.hint.type=external-targets",
+                "targets-mode.hint.external-targets-path=first.txt",
+                "targets-mode.hint.max-target-count=9",
+                "targets-mode.hint.selection-keys=a b c",
+                "targets-mode.to.idle-mode=+esc",
+                "targets-mode.to.other-targets-mode=+o",
+                "other-targets-mode.hint=targets-mode.hint",
+                "other-targets-mode.hint.external-targets-path=second.txt",
+                "other-targets-mode.to.idle-mode=+esc"));
+        modeMap = ConfigurationParser.parse(configurationPath).modeMap();
+        overlay = new RecordingOverlay();
+        StateStore stateStore = new StateStore();
+        ScreenManager screenManager = new ScreenManager();
+        hintManager = new HintManager(
+                new PositionHistory(directory.resolve("positions"), 10),
+                new FrequencyWeightedHintLabels(), screenManager,
+                new MouseController(screenManager, stateStore), stateStore, overlay);
+        hintManager.setHintTargetSourceFactory(hintTargetsType -> {
+            ManualHintTargetSource source = new ManualHintTargetSource();
+            openedSources.add(source);
+            return source;
+        });
+    }
+
+    @Test
+    void receivedTargetsAreAddedOnEachUpdate() {
+        hintManager.modeChanged(modeMap.get("targets-mode"));
+        assertEquals(List.of(), overlay.lastHintMesh().hints());
+        ManualHintTargetSource source = (ManualHintTargetSource) openedSources.getFirst();
+        source.send(new Point(10, 10), new Point(20, 20));
+        // Targets are only consumed on update.
+        assertEquals(1, overlay.hintMeshes().size());
+        hintManager.update(0.01);
+        assertEquals(List.of("aa", "ba"), labels(overlay.lastHintMesh()));
+        hintManager.update(0.01);
+        assertEquals(2, overlay.hintMeshes().size(), "no target was received");
+        source.send(new Point(30, 30), new Point(40, 40), new Point(50, 50));
+        hintManager.update(0.01);
+        assertEquals(3, overlay.hintMeshes().size());
+        assertEquals(List.of(new Point(10, 10), new Point(20, 20), new Point(30, 30),
+                new Point(40, 40), new Point(50, 50)), targets(overlay.lastHintMesh()));
+    }
+
+    /**
+     * The targets arrive one by one on the source's thread while the main loop updates:
+     * each hint mesh starts with the hints of the previous one.
+     */
+    @Test
+    void labelsFollowTheArrivalOrderAndDoNotChange() throws InterruptedException {
+        List<Point> targets = new ArrayList<>();
+        for (int targetIndex = 0; targetIndex < 9; targetIndex++)
+            targets.add(new Point(100 * (9 - targetIndex), targetIndex));
+        hintManager.setHintTargetSourceFactory(hintTargetsType -> {
+            ListHintTargetSource source =
+                    new ListHintTargetSource(targets, TimeUnit.MILLISECONDS.toNanos(5));
+            openedSources.add(source);
+            return source;
+        });
+        hintManager.modeChanged(modeMap.get("targets-mode"));
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (overlay.lastHintMesh().hints().size() < targets.size()) {
+            assertTrue(System.currentTimeMillis() < deadline,
+                    "received " + overlay.lastHintMesh().hints().size() + " targets");
+            hintManager.update(0.01);
+            Thread.sleep(1);
+        }
+        HintMesh lastHintMesh = overlay.lastHintMesh();
+        assertEquals(targets, targets(lastHintMesh));
+        assertEquals(labels, labels(lastHintMesh));
+        // Some updates received several targets, but at least two updates received some.
+        assertTrue(overlay.hintMeshes().size() > 2);
+        for (int meshIndex = 1; meshIndex < overlay.hintMeshes().size(); meshIndex++) {
+            List<Hint> previousHints = overlay.hintMeshes().get(meshIndex - 1).hints();
+            List<Hint> hints = overlay.hintMeshes().get(meshIndex).hints();
+            assertTrue(hints.size() > previousHints.size());
+            assertEquals(previousHints, hints.subList(0, previousHints.size()));
+        }
+        hintManager.closeHintTargetSource();
+        assertTrue(((ListHintTargetSource) openedSources.getFirst()).awaitTermination(
+                timeoutMillis, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void targetsBeyondTheMaxTargetCountAreIgnored() {
+        hintManager.modeChanged(modeMap.get("targets-mode"));
+        ManualHintTargetSource source = (ManualHintTargetSource) openedSources.getFirst();
+        for (int targetIndex = 0; targetIndex < 7; targetIndex++)
+            source.send(new Point(targetIndex, 0));
+        hintManager.update(0.01);
+        for (int targetIndex = 7; targetIndex < 12; targetIndex++)
+            source.send(new Point(targetIndex, 0));
+        hintManager.update(0.01);
+        assertEquals(labels, labels(overlay.lastHintMesh()));
+        assertEquals(new Point(8, 0), targets(overlay.lastHintMesh()).getLast());
+        int hintMeshCount = overlay.hintMeshes().size();
+        source.send(new Point(12, 0));
+        hintManager.update(0.01);
+        assertEquals(hintMeshCount, overlay.hintMeshes().size());
+    }
+
+    @Test
+    void lateTargetsAreIgnoredOnceTheHintMeshIsHidden() {
+        hintManager.modeChanged(modeMap.get("targets-mode"));
+        ManualHintTargetSource source = (ManualHintTargetSource) openedSources.getFirst();
+        source.send(new Point(1, 1));
+        hintManager.update(0.01);
+        hintManager.modeChanged(modeMap.get(Mode.IDLE_MODE_NAME));
+        assertTrue(source.closed);
+        assertTrue(overlay.hintMeshHidden());
+        // Found by the source just before it was closed.
+        source.send(new Point(2, 2));
+        int hintMeshCount = overlay.hintMeshes().size();
+        hintManager.update(0.01);
+        assertEquals(hintMeshCount, overlay.hintMeshes().size());
+        // Showing the hint mesh again opens a new source, starting from no target.
+        hintManager.modeChanged(modeMap.get("targets-mode"));
+        assertEquals(2, openedSources.size());
+        hintManager.update(0.01);
+        assertEquals(List.of(), overlay.lastHintMesh().hints());
+        ((ManualHintTargetSource) openedSources.getLast()).send(new Point(3, 3));
+        hintManager.update(0.01);
+        assertEquals(List.of(new Point(3, 3)), targets(overlay.lastHintMesh()));
+        assertEquals(List.of("aa"), labels(overlay.lastHintMesh()));
+    }
+
+    @Test
+    void lateTargetsAreIgnoredOnceTheHintMeshIsReplaced() {
+        hintManager.modeChanged(modeMap.get("targets-mode"));
+        ManualHintTargetSource firstSource =
+                (ManualHintTargetSource) openedSources.getFirst();
+        firstSource.send(new Point(1, 1));
+        hintManager.update(0.01);
+        // Different external targets path: the source is replaced.
+        hintManager.modeChanged(modeMap.get("other-targets-mode"));
+        assertTrue(firstSource.closed);
+        assertEquals(2, openedSources.size());
+        ManualHintTargetSource secondSource =
+                (ManualHintTargetSource) openedSources.getLast();
+        firstSource.send(new Point(2, 2));
+        secondSource.send(new Point(3, 3));
+        hintManager.update(0.01);
+        assertEquals(List.of(new Point(3, 3)), targets(overlay.lastHintMesh()));
+        assertEquals(List.of("aa"), labels(overlay.lastHintMesh()));
+    }
+
+    private static List<Point> targets(HintMesh hintMesh) {
+        return hintMesh.hints()
+                       .stream()
+                       .map(hint -> new Point(hint.centerX(), hint.centerY()))
+                       .toList();
+    }
+
+    private static List<String> labels(HintMesh hintMesh) {
+        return hintMesh.hints()
+                       .stream()
+                       .map(hint -> hint.keySequence()
+                                        .stream()
+                                        .map(Key::name)
+                                        .collect(Collectors.joining()))
+                       .toList();
+    }
+
+    /**
+     * Sends its targets when the test asks, from the test thread, even after it is closed
+     * (like a source that found a target just before being closed).
+     */
+    private static final class ManualHintTargetSource implements HintTargetSource {
+
+        private Consumer<Point> targetConsumer;
+        private boolean closed;
+
+        @Override
+        public void open(Consumer<Point> targetConsumer) {
+            this.targetConsumer = targetConsumer;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        void send(Point... targets) {
+            Arrays.stream(targets).forEach(targetConsumer);
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class HintTargetSourceTest {
+
+    private static final long timeoutMillis = TimeUnit.SECONDS.toMillis(10);
+
+    @Test
+    void externalTargetsAreReadFromAFileAndInvalidLinesAreIgnored(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        Path path = directory.resolve("targets.txt");
+        Files.writeString(path, "10 20\n\n  30\t40  \ninvalid\n1 2 3\n-50 60\n");
+        ExternalHintTargetSource source = new ExternalHintTargetSource(path);
+        Queue<Point> receivedTargets = new ConcurrentLinkedQueue<>();
+        source.open(receivedTargets::add);
+        awaitReceivedTargetCount(receivedTargets, 3);
+        assertEquals(List.of(new Point(10, 20), new Point(30, 40), new Point(-50, 60)),
+                List.copyOf(receivedTargets));
+        source.close();
+    }
+
+    /**
+     * The other program keeps the pipe open without writing: the read is blocked until
+     * the source is closed.
+     */
+    @Test
+    void closingTheExternalSourceEndsABlockedPipeRead(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        Path path = directory.resolve("targets.pipe");
+        assumeTrue(makeFifo(path), "named pipes (mkfifo) are not supported");
+        ExternalHintTargetSource source = new ExternalHintTargetSource(path);
+        Queue<Point> receivedTargets = new ConcurrentLinkedQueue<>();
+        source.open(receivedTargets::add);
+        try (OutputStream pipe = new FileOutputStream(path.toFile())) {
+            pipe.write("1 2\n".getBytes(StandardCharsets.UTF_8));
+            pipe.flush();
+            awaitReceivedTargetCount(receivedTargets, 1);
+            Thread readerThread = thread("hint-targets-" + path.getFileName());
+            assertNotNull(readerThread);
+            source.close();
+            readerThread.join(timeoutMillis);
+            assertFalse(readerThread.isAlive(), "the blocked read was not interrupted");
+        }
+        assertEquals(List.of(new Point(1, 2)), List.copyOf(receivedTargets));
+    }
+
+    private static boolean makeFifo(Path path) throws InterruptedException {
+        try {
+            return new ProcessBuilder("mkfifo", path.toString()).start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Thread thread(String name) {
+        return Thread.getAllStackTraces()
+                     .keySet()
+                     .stream()
+                     .filter(thread -> thread.getName().equals(name))
+                     .findFirst()
+                     .orElse(null);
+    }
+
+    private static void awaitReceivedTargetCount(Queue<Point> receivedTargets,
+                                                 int targetCount)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (receivedTargets.size() < targetCount) {
+            assertTrue(System.currentTimeMillis() < deadline,
+                    "received " + receivedTargets.size() + " targets");
+            Thread.sleep(1);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package mousemaster;
+
+import mousemaster.KeyEvent.PressKeyEvent;
+import mousemaster.KeyEvent.ReleaseKeyEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HookKeyEventQueueTest {
+
+    /**
+     * Default LowLevelHooksTimeout: Windows silently removes a hook whose callback takes
+     * longer (see WindowsPlatform#findLowLevelHooksTimeout).
+     */
+    private static final Duration lowLevelHooksTimeout = Duration.ofMillis(300);
+    private static final Key a = Key.ofName("a");
+    private static final Key b = Key.ofName("b");
+
+    @Test
+    void releaseIsEatenIfAndOnlyIfThePressWasEaten() {
+        HookKeyEventQueue queue = new HookKeyEventQueue(16, Thread.currentThread());
+        queue.setPressEatenKeys(Set.of(a));
+        assertTrue(queue.offer(press(a, 0)));
+        assertFalse(queue.offer(press(b, 1)));
+        // Published one tick late: the pressed keys keep their decision.
+        queue.setPressEatenKeys(Set.of(b));
+        assertTrue(queue.offer(press(a, 2)));
+        assertTrue(queue.offer(release(a, 3)));
+        assertFalse(queue.offer(release(b, 4)));
+        assertFalse(queue.offer(press(a, 5)));
+        assertEquals(new HookKeyEventQueue.HookKeyEvent(press(a, 0), true), queue.poll());
+        assertEquals(new HookKeyEventQueue.HookKeyEvent(press(b, 1), false), queue.poll());
+    }
+
+    @Test
+    void forgottenPressedKeysAreDecidedAgain() {
+        HookKeyEventQueue queue = new HookKeyEventQueue(16, Thread.currentThread());
+        queue.setPressEatenKeys(Set.of(a));
+        assertTrue(queue.offer(press(a, 0)));
+        queue.setPressEatenKeys(Set.of());
+        queue.forgetPressedKeys();
+        assertFalse(queue.offer(press(a, 1)));
+        assertFalse(queue.offer(release(a, 2)));
+    }
+
+    @Test
+    void eventsAreDroppedWhenFull() {
+        HookKeyEventQueue queue = new HookKeyEventQueue(4, Thread.currentThread());
+        queue.setPressEatenKeys(Set.of(a));
+        for (int eventIndex = 0; eventIndex < 6; eventIndex++)
+            // The eat decision does not depend on the queue having room.
+            assertTrue(queue.offer(eventIndex % 2 == 0 ? press(a, eventIndex) :
+                    release(a, eventIndex)));
+        assertEquals(2, queue.takeDroppedEventCount());
+        assertEquals(0, queue.takeDroppedEventCount());
+        for (int eventIndex = 0; eventIndex < 4; eventIndex++)
+            assertEquals(eventIndex, queue.poll().keyEvent().time().toEpochMilli());
+        assertNull(queue.poll());
+    }
+
+    /**
+     * The test thread is the logic thread: each of its ticks takes 50 to 200ms. Meanwhile,
+     * the input thread calls the hook's part of the keyboard hook callback (eat decision
+     * and offer) for a burst of key events. The callback must never wait for the logic
+     * thread: its worst case is compared with LowLevelHooksTimeout.
+     */
+    @Test
+    void hookCallbackDoesNotWaitForASlowLogicThread() throws InterruptedException {
+        int eventCount = 20_000;
+        List<Key> keys = List.of(a, b, Key.ofName("c"), Key.ofName("d"), Key.ofName("e"),
+                Key.ofName("f"));
+        List<Set<Key>> publishedPressEatenKeys =
+                List.of(Set.copyOf(keys.subList(0, 3)), Set.copyOf(keys.subList(2, 6)));
+        HookKeyEventQueue queue = new HookKeyEventQueue(1024, Thread.currentThread());
+        LatencyHistogram callbackLatency = new LatencyHistogram(
+                List.of(Duration.ofMillis(1), lowLevelHooksTimeout.dividedBy(2)));
+        Thread inputThread = new Thread(() -> {
+            for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+                Key key = keys.get(eventIndex / 2 % keys.size());
+                KeyEvent keyEvent = eventIndex % 2 == 0 ? press(key, eventIndex) :
+                        release(key, eventIndex);
+                long callbackBeginNanoTime = System.nanoTime();
+                queue.offer(keyEvent);
+                callbackLatency.record(System.nanoTime() - callbackBeginNanoTime);
+                // A key event storm, far above any typing speed.
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        }, "simulated-input-thread");
+        inputThread.setPriority(Thread.MAX_PRIORITY);
+        inputThread.start();
+        Random random = new Random(1);
+        Map<Long, Boolean> eatenByPressIndex = new HashMap<>();
+        long[] lastEventIndex = {-1};
+        int receivedEventCount = 0;
+        long droppedEventCount = 0;
+        for (int tickIndex = 0; inputThread.isAlive(); tickIndex++) {
+            receivedEventCount += drain(queue, eatenByPressIndex, lastEventIndex);
+            droppedEventCount += queue.takeDroppedEventCount();
+            queue.setPressEatenKeys(
+                    publishedPressEatenKeys.get(tickIndex % publishedPressEatenKeys.size()));
+            // Slow tick: unlike the main loop's park, unpark does not end it early.
+            Thread.sleep(50 + random.nextInt(151));
+        }
+        inputThread.join();
+        receivedEventCount += drain(queue, eatenByPressIndex, lastEventIndex);
+        droppedEventCount += queue.takeDroppedEventCount();
+        System.out.println(
+                "Hook callback with a slow logic thread: " + callbackLatency.summary() +
+                ", dropped " + droppedEventCount + " of " + eventCount + " events");
+        assertEquals(eventCount, receivedEventCount + droppedEventCount);
+        assertEquals(eventCount, callbackLatency.snapshot().count());
+        assertTrue(callbackLatency.max() < lowLevelHooksTimeout.toNanos() / 2,
+                "the hook callback took up to " +
+                LatencyHistogram.formatNanos(callbackLatency.max()) +
+                ", LowLevelHooksTimeout is " + lowLevelHooksTimeout.toMillis() + "ms");
+    }
+
+    /**
+     * Checks that the events are received in order, and that a release is eaten if and
+     * only if its press was.
+     * @return the number of received events.
+     */
+    private static int drain(HookKeyEventQueue queue, Map<Long, Boolean> eatenByPressIndex,
+                             long[] lastEventIndex) {
+        int receivedEventCount = 0;
+        HookKeyEventQueue.HookKeyEvent hookKeyEvent;
+        while ((hookKeyEvent = queue.poll()) != null) {
+            receivedEventCount++;
+            long eventIndex = hookKeyEvent.keyEvent().time().toEpochMilli();
+            assertTrue(eventIndex > lastEventIndex[0]);
+            lastEventIndex[0] = eventIndex;
+            if (hookKeyEvent.keyEvent().isPress())
+                eatenByPressIndex.put(eventIndex, hookKeyEvent.eaten());
+            else {
+                Boolean pressEaten = eatenByPressIndex.remove(eventIndex - 1);
+                // The press may have been dropped.
+                if (pressEaten != null)
+                    assertEquals(pressEaten, hookKeyEvent.eaten());
+            }
+        }
+        return receivedEventCount;
+    }
+
+    private static KeyEvent press(Key key, long eventIndex) {
+        return new PressKeyEvent(Instant.ofEpochMilli(eventIndex), key);
+    }
+
+    private static KeyEvent release(Key key, long eventIndex) {
+        return new ReleaseKeyEvent(Instant.ofEpochMilli(eventIndex), key);
+    }
+
+}
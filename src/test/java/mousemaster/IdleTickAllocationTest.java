@@ -0,0 +1,152 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.CleanupMode;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation regression test of the main loop: an idle tick should not allocate. The real
+ * subsystems are ticked, except for the grid manager. The overlay records what would be
+ * drawn, and the sanity check considers every key still pressed (instead of asking
+ * Windows).
+ */
+class IdleTickAllocationTest {
+
+    private static final Path configurationPath = Path.of("configuration/warpd.properties");
+    private static final int warmUpTickCount = 100_000;
+    private static final int tickCount = 1_000_000;
+    /**
+     * Leaves room for the occasional allocation of the JIT or of the test itself, but not
+     * for one allocation per tick.
+     */
+    private static final long allocatedBytesBudget = 64 * 1024;
+    private static final double delta = 0.01;
+
+    /**
+     * A mapped position history file cannot be deleted on Windows until the mapping is
+     * garbage collected.
+     */
+    @TempDir(cleanup = CleanupMode.NEVER)
+    Path directory;
+
+    @Test
+    void idleModeTicksDoNotAllocate() throws IOException {
+        assertIdleTicksDoNotAllocate(Mode.IDLE_MODE_NAME);
+    }
+
+    /**
+     * The indicator is shown in normal-mode.
+     */
+    @Test
+    void normalModeTicksDoNotAllocate() throws IOException {
+        assertIdleTicksDoNotAllocate("normal-mode");
+    }
+
+    private void assertIdleTicksDoNotAllocate(String modeName) throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean =
+                ManagementFactory.getThreadMXBean() instanceof
+                        com.sun.management.ThreadMXBean bean ? bean : null;
+        assumeTrue(threadMXBean != null && threadMXBean.isThreadAllocatedMemorySupported(),
+                "thread allocated bytes are not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        IdleLoop idleLoop = new IdleLoop(ConfigurationParser.parse(configurationPath),
+                directory.resolve("positions"));
+        idleLoop.modeController.switchMode(modeName);
+        for (int tickIndex = 0; tickIndex < warmUpTickCount; tickIndex++)
+            idleLoop.tick();
+        int indicatorChangeCount = idleLoop.overlay.indicatorChangeCount();
+        long allocatedBytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int tickIndex = 0; tickIndex < tickCount; tickIndex++)
+            idleLoop.tick();
+        long allocatedBytes =
+                threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytesBefore;
+        assertTrue(allocatedBytes <= allocatedBytesBudget,
+                tickCount + " idle ticks allocated " + allocatedBytes + " bytes, budget is " +
+                allocatedBytesBudget + " bytes");
+        assertEquals(indicatorChangeCount, idleLoop.overlay.indicatorChangeCount(),
+                "the indicator was redrawn on idle ticks");
+        assertEquals(modeName.equals("normal-mode"), idleLoop.overlay.indicator() != null);
+    }
+
+    /**
+     * Same wiring as Mousemaster#createComponents and Mousemaster#run, without the grid
+     * manager.
+     */
+    private static final class IdleLoop {
+
+        private final TickProfiler tickProfiler =
+                new TickProfiler(Duration.ofMillis(10), Duration.ofMillis(50));
+        private final StateStore stateStore = new StateStore();
+        private final RecordingOverlay overlay = new RecordingOverlay();
+        private final PressedKeySanityCheck pressedKeySanityCheck =
+                new PressedKeySanityCheck(key -> true);
+        private final MouseController mouseController;
+        private final KeyboardManager keyboardManager;
+        private final HintManager hintManager;
+        private final IndicatorManager indicatorManager;
+        private final ModeController modeController;
+        private final Set<Key> pressEatenKeyCandidates;
+
+        private IdleLoop(Configuration configuration, Path positionHistoryPath) {
+            ModeMap modeMap = configuration.modeMap();
+            ScreenManager screenManager = new ScreenManager();
+            mouseController = new MouseController(screenManager, stateStore);
+            hintManager = new HintManager(
+                    new PositionHistory(positionHistoryPath,
+                            configuration.maxPositionHistorySize()),
+                    new FrequencyWeightedHintLabels(), screenManager, mouseController,
+                    stateStore, overlay);
+            CommandRunner commandRunner =
+                    new CommandRunner(mouseController, null, hintManager);
+            ComboWatcher comboWatcher = new ComboWatcher(commandRunner,
+                    Mousemaster.mustRemainUnpressedComboPreconditionKeys(modeMap),
+                    Mousemaster.mustRemainPressedComboPreconditionKeys(modeMap));
+            keyboardManager = new KeyboardManager(comboWatcher, hintManager, stateStore);
+            indicatorManager = new IndicatorManager(stateStore, overlay);
+            modeController = new ModeController(modeMap, mouseController, stateStore,
+                    List.of(comboWatcher, mouseController, hintManager));
+            commandRunner.setModeController(modeController);
+            hintManager.setModeController(modeController);
+            hintManager.setPositionHistoryListener(List.of(modeController));
+            modeController.switchMode(Mode.IDLE_MODE_NAME);
+            pressEatenKeyCandidates = modeMap.pressEatenKeyCandidates();
+        }
+
+        private void tick() {
+            long nanoTime = tickProfiler.tickBegan();
+            // Same as WindowsPlatform#update with --input-thread.
+            pressedKeySanityCheck.update(delta);
+            keyboardManager.currentKeysWhosePressWouldBeEaten(pressEatenKeyCandidates);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.PLATFORM,
+                    nanoTime);
+            modeController.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.MODE_CONTROLLER,
+                    nanoTime);
+            mouseController.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.MOUSE_CONTROLLER,
+                    nanoTime);
+            keyboardManager.update(delta);
+            nanoTime =
+                    tickProfiler.subsystemUpdated(TickProfiler.Subsystem.KEYBOARD_MANAGER,
+                            nanoTime);
+            hintManager.update(delta);
+            nanoTime = tickProfiler.subsystemUpdated(TickProfiler.Subsystem.HINT_MANAGER,
+                    nanoTime);
+            indicatorManager.update(delta);
+            tickProfiler.subsystemUpdated(TickProfiler.Subsystem.INDICATOR_MANAGER, nanoTime);
+            tickProfiler.tickEnded();
+        }
+
+    }
+
+}
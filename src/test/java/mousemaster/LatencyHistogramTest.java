@@ -0,0 +1,88 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveTheirOwnBucket() {
+        for (long nanos = 0; nanos < 8; nanos++) {
+            assertEquals(nanos, LatencyHistogram.bucketIndex(nanos));
+            assertEquals(nanos, LatencyHistogram.bucketUpperBound((int) nanos));
+        }
+    }
+
+    @Test
+    void eachValueFallsBetweenTheUpperBoundsOfTwoConsecutiveBuckets() {
+        long[] values = {8, 9, 15, 16, 17, 31, 32, 1000, 1023, 1024, 1025, 999_999,
+                1_000_000, 123_456_789, Long.MAX_VALUE / 2, Long.MAX_VALUE};
+        for (long nanos : values) {
+            int bucketIndex = LatencyHistogram.bucketIndex(nanos);
+            assertTrue(nanos <= LatencyHistogram.bucketUpperBound(bucketIndex),
+                    "nanos = " + nanos);
+            assertTrue(nanos > LatencyHistogram.bucketUpperBound(bucketIndex - 1),
+                    "nanos = " + nanos);
+        }
+    }
+
+    @Test
+    void bucketBoundariesArePowersOf2SplitIn8() {
+        // 16 to 31 is split into 8 buckets of 2.
+        assertEquals(LatencyHistogram.bucketIndex(16), LatencyHistogram.bucketIndex(17));
+        assertEquals(LatencyHistogram.bucketIndex(16) + 1,
+                LatencyHistogram.bucketIndex(18));
+        assertEquals(17, LatencyHistogram.bucketUpperBound(
+                LatencyHistogram.bucketIndex(16)));
+        assertEquals(31, LatencyHistogram.bucketUpperBound(
+                LatencyHistogram.bucketIndex(31)));
+        assertEquals(LatencyHistogram.bucketIndex(31) + 1,
+                LatencyHistogram.bucketIndex(32));
+    }
+
+    @Test
+    void upperBoundIsWithinOneEighthOfTheValue() {
+        for (long nanos = 8; nanos < 1L << 40; nanos = nanos * 3 / 2 + 1) {
+            long upperBound =
+                    LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(nanos));
+            assertTrue(upperBound - nanos <= nanos / 8, "nanos = " + nanos);
+        }
+    }
+
+    @Test
+    void percentilesCountsAndThresholds() {
+        LatencyHistogram histogram =
+                new LatencyHistogram(List.of(Duration.ofNanos(100), Duration.ofNanos(1000)));
+        for (long nanos = 1; nanos <= 1000; nanos++)
+            histogram.record(nanos);
+        histogram.record(-5);
+        assertEquals(1001, histogram.snapshot().count());
+        assertEquals(1000, histogram.max());
+        long p50 = histogram.valueAtPercentile(50);
+        assertTrue(p50 >= 500 && p50 <= 500 * 9 / 8, "p50 = " + p50);
+        // Capped by the max.
+        assertEquals(1000, histogram.valueAtPercentile(100));
+        // Strictly over the threshold.
+        assertEquals(900, histogram.overThresholdCount(0));
+        assertEquals(0, histogram.overThresholdCount(1));
+    }
+
+    @Test
+    void snapshotDifferenceOnlyContainsTheValuesRecordedInBetween() {
+        LatencyHistogram histogram = new LatencyHistogram(List.of());
+        for (int index = 0; index < 100; index++)
+            histogram.record(10);
+        LatencyHistogram.Snapshot before = histogram.snapshot();
+        for (int index = 0; index < 10; index++)
+            histogram.record(1_000_000);
+        LatencyHistogram.Snapshot difference = histogram.snapshot().minus(before);
+        assertEquals(10, difference.count());
+        assertTrue(difference.valueAtPercentile(1) >= 1_000_000);
+        assertEquals(0, new LatencyHistogram(List.of()).snapshot().valueAtPercentile(99));
+    }
+
+}
@@ -0,0 +1,52 @@
+package mousemaster;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in for the sources that need a screen or another program: supplies a fixed list
+ * of targets on a new thread, one every targetIntervalNanos, like a source that finds
+ * its targets one after the other.
+ */
+class ListHintTargetSource implements HintTargetSource {
+
+    private final List<Point> targets;
+    private final long targetIntervalNanos;
+    private Thread thread;
+    private volatile boolean closed;
+
+    ListHintTargetSource(List<Point> targets, long targetIntervalNanos) {
+        this.targets = targets;
+        this.targetIntervalNanos = targetIntervalNanos;
+    }
+
+    @Override
+    public void open(Consumer<Point> targetConsumer) {
+        thread = new Thread(() -> {
+            for (Point target : targets) {
+                if (targetIntervalNanos != 0)
+                    LockSupport.parkNanos(targetIntervalNanos);
+                if (closed)
+                    return;
+                targetConsumer.accept(target);
+            }
+        }, "hint-targets-list");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        thread.join(unit.toMillis(timeout));
+        return !thread.isAlive();
+    }
+
+}
@@ -0,0 +1,90 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Time of PositionGridIndex#nearest using the grid compared with a linear scan over the
+ * same positions, for 10, 100 (the max position history size), 1,000 and 10,000
+ * positions, and around where the grid starts being faster.
+ */
+class PositionGridIndexBenchmark {
+
+    private static final int queryCount = 200_000;
+
+    @Test
+    void nearestVersusLinearScan() {
+        // Warm up both implementations.
+        for (int warmUpIndex = 0; warmUpIndex < 5; warmUpIndex++)
+            for (int positionCount : new int[]{10, 100, 300, 500, 1_000, 10_000})
+                run(positionCount, 20_000, false);
+        for (int positionCount : new int[]{10, 100, 300, 500, 1_000, 10_000})
+            run(positionCount, positionCount >= 1_000 ? queryCount / 20 : queryCount,
+                    true);
+    }
+
+    private static void run(int positionCount, int queryCount, boolean print) {
+        Random random = new Random(positionCount);
+        PositionGridIndex index = new PositionGridIndex(0);
+        List<Point> positions = new ArrayList<>();
+        for (int positionIndex = 0; positionIndex < positionCount; positionIndex++) {
+            Point position = new Point(random.nextInt(-1920, 3840),
+                    random.nextInt(-1080, 2160));
+            positions.add(position);
+            index.add(position);
+        }
+        int[] xs = new int[queryCount];
+        int[] ys = new int[queryCount];
+        for (int queryIndex = 0; queryIndex < queryCount; queryIndex++) {
+            xs[queryIndex] = random.nextInt(-1920, 3840);
+            ys[queryIndex] = random.nextInt(-1080, 2160);
+        }
+        // Sums of the x of the found positions, so that the JIT cannot drop the calls.
+        long indexSum = 0;
+        long indexBeginNanoTime = System.nanoTime();
+        for (int queryIndex = 0; queryIndex < queryCount; queryIndex++) {
+            Point nearest = index.nearest(xs[queryIndex], ys[queryIndex],
+                    queryIndex % 2 == 0, queryIndex % 4 < 2);
+            if (nearest != null)
+                indexSum += nearest.x();
+        }
+        long indexNanos = System.nanoTime() - indexBeginNanoTime;
+        long scanSum = 0;
+        long scanBeginNanoTime = System.nanoTime();
+        for (int queryIndex = 0; queryIndex < queryCount; queryIndex++) {
+            Point nearest = linearScanNearest(positions, xs[queryIndex], ys[queryIndex],
+                    queryIndex % 2 == 0, queryIndex % 4 < 2);
+            if (nearest != null)
+                scanSum += nearest.x();
+        }
+        long scanNanos = System.nanoTime() - scanBeginNanoTime;
+        if (!print)
+            return;
+        System.out.printf(
+                "%,d positions: grid index %.0fns, linear scan %.0fns per nearest (%,d queries, sums %d/%d)%n",
+                positionCount, (double) indexNanos / queryCount,
+                (double) scanNanos / queryCount, queryCount, indexSum, scanSum);
+    }
+
+    private static Point linearScanNearest(List<Point> positions, int x, int y,
+                                           boolean horizontal, boolean forward) {
+        Point nearest = null;
+        long nearestScore = Long.MAX_VALUE;
+        for (Point position : positions) {
+            long along = horizontal ? position.x() - x : position.y() - y;
+            long across = horizontal ? position.y() - y : position.x() - x;
+            if (forward ? along <= 0 : along >= 0)
+                continue;
+            long score = along * along + 4 * across * across;
+            if (score < nearestScore) {
+                nearest = position;
+                nearestScore = score;
+            }
+        }
+        return nearest;
+    }
+
+}
@@ -0,0 +1,127 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionGridIndexTest {
+
+    @Test
+    void nearestMatchesALinearScanWith10Positions() {
+        assertNearestMatchesALinearScan(new PositionGridIndex(0), 10, 1);
+    }
+
+    @Test
+    void nearestMatchesALinearScanWith100Positions() {
+        assertNearestMatchesALinearScan(new PositionGridIndex(0), 100, 2);
+    }
+
+    @Test
+    void nearestMatchesALinearScanWith10000Positions() {
+        assertNearestMatchesALinearScan(new PositionGridIndex(0), 10_000, 3);
+    }
+
+    @Test
+    void linearScanBelowTheGridThresholdMatchesALinearScan() {
+        assertNearestMatchesALinearScan(new PositionGridIndex(), 100, 4);
+    }
+
+    @Test
+    void nearestIsStrictlyInTheDirection() {
+        PositionGridIndex index = new PositionGridIndex(0);
+        assertNull(index.nearest(0, 0, true, true));
+        index.add(new Point(100, 100));
+        assertNull(index.nearest(100, 100, true, true));
+        assertNull(index.nearest(100, 100, false, false));
+        assertEquals(new Point(100, 100), index.nearest(0, 100, true, true));
+        assertNull(index.nearest(0, 100, true, false));
+        // Aligned but further is preferred over closer but off to the side.
+        index.add(new Point(100, 2000));
+        index.add(new Point(1000, 1000));
+        assertEquals(new Point(100, 2000), index.nearest(100, 900, false, true));
+    }
+
+    @Test
+    void removedPositionsAreNotFound() {
+        PositionGridIndex index = new PositionGridIndex(0);
+        index.add(new Point(10, 10));
+        index.add(new Point(5000, 10));
+        index.remove(new Point(10, 10));
+        assertEquals(new Point(5000, 10), index.nearest(0, 10, true, true));
+        index.clear();
+        assertNull(index.nearest(0, 10, true, true));
+    }
+
+    /**
+     * Positions span several screens, including negative coordinates (screens left of or
+     * above the primary screen). Ties can be broken differently, so the scores are compared
+     * instead of the positions.
+     */
+    private static void assertNearestMatchesALinearScan(PositionGridIndex index,
+                                                        int positionCount, long seed) {
+        Random random = new Random(seed);
+        List<Point> positions = new ArrayList<>();
+        for (int positionIndex = 0; positionIndex < positionCount; positionIndex++) {
+            Point position = randomPoint(random);
+            positions.add(position);
+            index.add(position);
+        }
+        for (int originIndex = 0; originIndex < 1000; originIndex++) {
+            // Some origins are outside of the bounds of the positions.
+            Point origin = originIndex % 10 == 0 ?
+                    new Point(random.nextInt(-20_000, 20_000),
+                            random.nextInt(-20_000, 20_000)) :
+                    randomPoint(random);
+            for (boolean horizontal : new boolean[]{true, false}) {
+                for (boolean forward : new boolean[]{true, false}) {
+                    Point expected = linearScanNearest(positions, origin, horizontal,
+                            forward);
+                    Point nearest = index.nearest(origin.x(), origin.y(), horizontal,
+                            forward);
+                    String message = "origin = " + origin + ", horizontal = " +
+                                     horizontal + ", forward = " + forward +
+                                     ", expected = " + expected + ", nearest = " + nearest;
+                    if (expected == null)
+                        assertNull(nearest, message);
+                    else {
+                        assertNotNull(nearest, message);
+                        assertEquals(score(expected, origin, horizontal, forward),
+                                score(nearest, origin, horizontal, forward), message);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Point randomPoint(Random random) {
+        return new Point(random.nextInt(-1920, 3840), random.nextInt(-1080, 2160));
+    }
+
+    private static Point linearScanNearest(List<Point> positions, Point origin,
+                                           boolean horizontal, boolean forward) {
+        Point nearest = null;
+        long nearestScore = Long.MAX_VALUE;
+        for (Point position : positions) {
+            long score = score(position, origin, horizontal, forward);
+            if (score < nearestScore) {
+                nearest = position;
+                nearestScore = score;
+            }
+        }
+        return nearest;
+    }
+
+    private static long score(Point position, Point origin, boolean horizontal,
+                              boolean forward) {
+        long along = horizontal ? position.x() - origin.x() : position.y() - origin.y();
+        long across = horizontal ? position.y() - origin.y() : position.x() - origin.x();
+        if (forward ? along <= 0 : along >= 0)
+            return Long.MAX_VALUE;
+        return along * along + 4 * across * across;
+    }
+
+}
@@ -0,0 +1,213 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.CleanupMode;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionHistoryTest {
+
+    /**
+     * A mapped file cannot be deleted on Windows until the mapping is garbage collected.
+     */
+    @TempDir(cleanup = CleanupMode.NEVER)
+    Path directory;
+
+    @Test
+    void positionsAreReloadedAfterARestart() {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        for (int index = 0; index < 15; index++)
+            history.add(new Point(index, 10 * index));
+        PositionHistory reloadedHistory = new PositionHistory(path, 10);
+        assertEquals(10, reloadedHistory.size());
+        for (int index = 0; index < 10; index++) {
+            assertEquals(new Point(index + 5, 10 * (index + 5)), reloadedHistory.get(index));
+            assertEquals(index + 5, reloadedHistory.id(index));
+            assertEquals(index, reloadedHistory.indexOf(reloadedHistory.get(index)));
+        }
+        assertEquals(new Point(14, 140), reloadedHistory.nearest(0, 140, true, true));
+        // Ids keep increasing after the restart.
+        reloadedHistory.add(new Point(-1, -1));
+        assertEquals(15, reloadedHistory.id(9));
+    }
+
+    @Test
+    void smallerMaxSizeForgetsTheOldestPositionsOnReload() {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        for (int index = 0; index < 10; index++)
+            history.add(new Point(index, 0));
+        PositionHistory reloadedHistory = new PositionHistory(path, 3);
+        assertEquals(3, reloadedHistory.size());
+        assertEquals(new Point(7, 0), reloadedHistory.get(0));
+        assertEquals(3, new PositionHistory(path, 10).size());
+    }
+
+    @Test
+    void evictedPositionsAreForgotten() {
+        PositionHistory history = new PositionHistory(directory.resolve("positions"), 5);
+        for (int index = 0; index < 10_000; index++) {
+            Point point = new Point(index, index);
+            assertTrue(history.add(point));
+            assertEquals(Math.min(index + 1, 5), history.size());
+            assertEquals(history.size() - 1, history.indexOf(point));
+            if (index >= 5) {
+                // The evicted position's slot is now used by a newer position.
+                Point evictedPoint = new Point(index - 5, index - 5);
+                assertEquals(-1, history.indexOf(evictedPoint));
+                assertNull(history.nearest(index - 4, index - 5, true, false));
+            }
+        }
+        // A stale slot index would make the evicted position look already saved.
+        assertTrue(history.add(new Point(0, 0)));
+        assertEquals(4, history.indexOf(new Point(0, 0)));
+        assertEquals(-1, history.indexOf(new Point(9_995, 9_995)));
+        assertFalse(history.add(new Point(9_999, 9_999)));
+    }
+
+    @Test
+    void corruptHeaderResetsTheHistory() throws IOException {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        history.add(new Point(1, 1));
+        history.add(new Point(2, 2));
+        // Head slot out of the ring buffer.
+        writeInt(path, 2 * Integer.BYTES, 1_000);
+        PositionHistory resetHistory = new PositionHistory(path, 10);
+        assertTrue(resetHistory.isEmpty());
+        assertEquals(-1, resetHistory.indexOf(new Point(1, 1)));
+        resetHistory.add(new Point(3, 3));
+        assertEquals(0, resetHistory.id(0));
+        // The header was rewritten: the next restart reloads the new position.
+        PositionHistory reloadedHistory = new PositionHistory(path, 10);
+        assertEquals(1, reloadedHistory.size());
+        assertEquals(new Point(3, 3), reloadedHistory.get(0));
+    }
+
+    @Test
+    void unknownFileIsOverwritten() throws IOException {
+        Path path = directory.resolve("positions");
+        new PositionHistory(path, 10).add(new Point(1, 1));
+        writeInt(path, 0, 0xCAFEBABE);
+        assertTrue(new PositionHistory(path, 10).isEmpty());
+        assertEquals(0x4D4D5048, readInt(path, 0));
+    }
+
+    @Test
+    void historyIsKeptInMemoryIfTheFileCannotBeMapped() {
+        // A directory cannot be mapped.
+        PositionHistory history = new PositionHistory(directory, 2);
+        history.add(new Point(1, 1));
+        history.add(new Point(2, 2));
+        history.add(new Point(3, 3));
+        assertEquals(2, history.size());
+        assertEquals(new Point(2, 2), history.get(0));
+    }
+
+    @Test
+    void registersAreWrittenInTheV2Format() throws IOException {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        history.add(new Point(1, 1));
+        history.saveToRegister("a", new Point(3, 4));
+        history.saveToRegister("bc", new Point(5, 6));
+        assertEquals(2, readInt(path, Integer.BYTES));
+        // Header (5 ints) and 100 slots (3 ints each).
+        int registersOffset = 5 * Integer.BYTES + 100 * 3 * Integer.BYTES;
+        int registerByteCount = Integer.BYTES + 32 + 3 * Integer.BYTES;
+        assertEquals(1, readInt(path, registersOffset));
+        assertEquals('a', readInt(path, registersOffset + Integer.BYTES) >>> 24);
+        int pointOffset = registersOffset + Integer.BYTES + 32;
+        assertEquals(3, readInt(path, pointOffset));
+        assertEquals(4, readInt(path, pointOffset + Integer.BYTES));
+        assertEquals(0, readInt(path, pointOffset + 2 * Integer.BYTES));
+        assertEquals(2, readInt(path, registersOffset + registerByteCount));
+        assertEquals(1, readInt(path, pointOffset + registerByteCount + 2 * Integer.BYTES));
+        PositionHistory reloadedHistory = new PositionHistory(path, 10);
+        assertEquals(new Point(3, 4), reloadedHistory.register("a"));
+        assertEquals(new Point(5, 6), reloadedHistory.register("bc"));
+        assertNull(reloadedHistory.register("b"));
+        assertEquals(new Point(1, 1), reloadedHistory.get(0));
+    }
+
+    @Test
+    void version1FileIsReset() throws IOException {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        history.add(new Point(1, 1));
+        history.saveToRegister("a", new Point(3, 4));
+        writeInt(path, Integer.BYTES, 1);
+        PositionHistory resetHistory = new PositionHistory(path, 10);
+        assertTrue(resetHistory.isEmpty());
+        assertEquals(2, readInt(path, Integer.BYTES));
+    }
+
+    @Test
+    void leastRecentlySavedRegisterIsReused() {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        for (int registerIndex = 0; registerIndex < 64; registerIndex++)
+            history.saveToRegister("r" + registerIndex, new Point(registerIndex, 0));
+        history.saveToRegister("r0", new Point(-1, 0));
+        history.saveToRegister("r64", new Point(64, 0));
+        assertNull(history.register("r1"));
+        assertEquals(new Point(-1, 0), history.register("r0"));
+        assertEquals(new Point(64, 0), history.register("r64"));
+        // Save numbers survive the restart: r2 is now the least recently saved.
+        PositionHistory reloadedHistory = new PositionHistory(path, 10);
+        reloadedHistory.saveToRegister("r65", new Point(65, 0));
+        assertNull(reloadedHistory.register("r2"));
+        for (int registerIndex = 3; registerIndex < 64; registerIndex++)
+            assertEquals(new Point(registerIndex, 0),
+                    reloadedHistory.register("r" + registerIndex));
+        assertEquals(new Point(-1, 0), reloadedHistory.register("r0"));
+        assertEquals(new Point(64, 0), reloadedHistory.register("r64"));
+        assertEquals(new Point(65, 0), reloadedHistory.register("r65"));
+    }
+
+    @Test
+    void registerNamesAreLimitedTo32Bytes() {
+        Path path = directory.resolve("positions");
+        PositionHistory history = new PositionHistory(path, 10);
+        // 16 two-byte characters.
+        String longestName = "\u00e9".repeat(16);
+        history.saveToRegister(longestName, new Point(1, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> history.saveToRegister(longestName + "a", new Point(3, 4)));
+        assertThrows(IllegalArgumentException.class,
+                () -> history.saveToRegister("a".repeat(33), new Point(3, 4)));
+        for (int registerIndex = 0; registerIndex < 63; registerIndex++)
+            history.saveToRegister("r" + registerIndex, new Point(registerIndex, 0));
+        // Reuses the register of the longest name: its name bytes are not all overwritten.
+        history.saveToRegister("b", new Point(5, 6));
+        PositionHistory reloadedHistory = new PositionHistory(path, 10);
+        assertNull(reloadedHistory.register(longestName));
+        assertEquals(new Point(5, 6), reloadedHistory.register("b"));
+        reloadedHistory.saveToRegister(longestName, new Point(7, 8));
+        assertEquals(new Point(7, 8),
+                new PositionHistory(path, 10).register(longestName));
+    }
+
+    private static int readInt(Path path, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(buffer, offset);
+            return buffer.flip().getInt();
+        }
+    }
+
+    private static void writeInt(Path path, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(value).flip(), offset);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package mousemaster;
+
+import mousemaster.KeyEvent.PressKeyEvent;
+import mousemaster.KeyEvent.ReleaseKeyEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PressedKeySanityCheckTest {
+
+    private static final Key a = Key.ofName("a");
+    private static final Key b = Key.ofName("b");
+
+    private final Set<Key> stillPressedKeys = new HashSet<>();
+    private final PressedKeySanityCheck sanityCheck =
+            new PressedKeySanityCheck(stillPressedKeys::contains);
+
+    @Test
+    void keysNotPressedAnymoreAfter10sAreForgotten() {
+        sanityCheck.keyEvent(new PressKeyEvent(Instant.now(), a), false);
+        sanityCheck.keyEvent(new PressKeyEvent(Instant.now(), b), false);
+        stillPressedKeys.add(b);
+        assertNull(sanityCheck.update(9));
+        assertEquals(Set.of(a), sanityCheck.update(1));
+        // All the pressed keys are forgotten, including the ones still pressed.
+        assertNull(sanityCheck.update(10));
+    }
+
+    @Test
+    void releasedAndEatenKeysAreNotChecked() {
+        sanityCheck.keyEvent(new PressKeyEvent(Instant.now(), a), false);
+        sanityCheck.keyEvent(new ReleaseKeyEvent(Instant.now(), a), false);
+        sanityCheck.keyEvent(new PressKeyEvent(Instant.now(), b), true);
+        assertNull(sanityCheck.update(10));
+    }
+
+    @Test
+    void keysStillPressedAfter10sAreCheckedAgain10sLater() {
+        sanityCheck.keyEvent(new PressKeyEvent(Instant.now(), a), false);
+        stillPressedKeys.add(a);
+        assertNull(sanityCheck.update(10));
+        stillPressedKeys.clear();
+        assertNull(sanityCheck.update(9));
+        assertEquals(Set.of(a), sanityCheck.update(1));
+    }
+
+}
@@ -0,0 +1,63 @@
+package mousemaster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for WindowsOverlay: records what would be drawn. Recording an indicator does
+ * not allocate, so that it can be used on idle ticks.
+ */
+class RecordingOverlay implements Overlay {
+
+    private final List<HintMesh> hintMeshes = new ArrayList<>();
+    private boolean hintMeshHidden;
+    private Indicator indicator;
+    private int indicatorChangeCount;
+
+    @Override
+    public void setHintMesh(HintMesh hintMesh) {
+        hintMeshes.add(hintMesh);
+        hintMeshHidden = false;
+    }
+
+    @Override
+    public void hideHintMesh() {
+        hintMeshHidden = true;
+    }
+
+    @Override
+    public void setIndicator(Indicator indicator) {
+        this.indicator = indicator;
+        indicatorChangeCount++;
+    }
+
+    @Override
+    public void hideIndicator() {
+        indicator = null;
+        indicatorChangeCount++;
+    }
+
+    List<HintMesh> hintMeshes() {
+        return hintMeshes;
+    }
+
+    HintMesh lastHintMesh() {
+        return hintMeshes.getLast();
+    }
+
+    boolean hintMeshHidden() {
+        return hintMeshHidden;
+    }
+
+    /**
+     * @return null if the indicator is hidden.
+     */
+    Indicator indicator() {
+        return indicator;
+    }
+
+    int indicatorChangeCount() {
+        return indicatorChangeCount;
+    }
+
+}
@@ -0,0 +1,90 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenEdgeMapCacheTest {
+
+    private static final Rectangle screenRectangle = new Rectangle(100, 50, 320, 200);
+
+    @Test
+    void screenIsNeverCapturedOnTheCallingThread() throws InterruptedException {
+        Set<Thread> captureThreads = ConcurrentHashMap.newKeySet();
+        ScreenEdgeMapCache cache = new ScreenEdgeMapCache(rectangle -> {
+            captureThreads.add(Thread.currentThread());
+            return stepScreen(rectangle, 200);
+        });
+        assertNull(cache.edgeMap(screenRectangle));
+        ScreenEdgeMap edgeMap = awaitEdgeMap(cache);
+        assertFalse(captureThreads.isEmpty());
+        assertFalse(captureThreads.contains(Thread.currentThread()));
+        assertNotNull(edgeMap.nextEdge(110, 100, true, true));
+    }
+
+    @Test
+    void refreshedEdgeMapFollowsTheScreen() throws InterruptedException {
+        int[] stepX = {200};
+        ScreenEdgeMapCache cache = new ScreenEdgeMapCache(
+                rectangle -> stepScreen(rectangle, stepX[0]));
+        cache.refresh(screenRectangle);
+        ScreenEdgeMap edgeMap = awaitEdgeMap(cache);
+        Point edge = edgeMap.nextEdge(110, 100, true, true);
+        assertNotNull(edge);
+        assertEquals(200, edge.x(), 1);
+        assertEquals(100, edge.y());
+        stepX[0] = 300;
+        cache.refresh(screenRectangle);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.edgeMap(screenRectangle) == edgeMap) {
+            assertTrue(System.nanoTime() < deadline, "the edge map was not refreshed");
+            Thread.sleep(1);
+        }
+        edge = cache.edgeMap(screenRectangle).nextEdge(110, 100, true, true);
+        assertNotNull(edge);
+        assertEquals(300, edge.x(), 1);
+    }
+
+    @Test
+    void nextEdgeLeavesTheStartEdgeAndStopsAtTheBorder() {
+        ScreenEdgeMap edgeMap =
+                ScreenEdgeMap.of(screenRectangle, stepScreen(screenRectangle, 200));
+        Point edge = edgeMap.nextEdge(110, 100, true, true);
+        assertNotNull(edge);
+        // Starting on the edge: there is no other edge until the border.
+        assertNull(edgeMap.nextEdge(edge.x(), edge.y(), true, true));
+        assertNull(edgeMap.nextEdge(110, 100, true, false));
+        assertNull(edgeMap.nextEdge(110, 100, false, true));
+        // Outside of the screen.
+        assertNull(edgeMap.nextEdge(0, 0, true, true));
+    }
+
+    private static ScreenEdgeMap awaitEdgeMap(ScreenEdgeMapCache cache)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        ScreenEdgeMap edgeMap;
+        while ((edgeMap = cache.edgeMap(screenRectangle)) == null) {
+            assertTrue(System.nanoTime() < deadline, "the edge map was not computed");
+            Thread.sleep(1);
+        }
+        return edgeMap;
+    }
+
+    /**
+     * Black screen that is white from the given screen x: a single vertical edge.
+     */
+    private static int[] stepScreen(Rectangle rectangle, int stepX) {
+        int[] pixels = new int[rectangle.width() * rectangle.height()];
+        int localX = stepX - rectangle.x();
+        for (int y = 0; y < rectangle.height(); y++)
+            Arrays.fill(pixels, y * rectangle.width() + localX, (y + 1) * rectangle.width(),
+                    0xFFFFFF);
+        return pixels;
+    }
+
+}
@@ -0,0 +1,28 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpscRingBufferTest {
+
+    @Test
+    void capacityMustBeAPowerOf2() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(100));
+    }
+
+    @Test
+    void offerFailsWhenFullAndPollReturnsElementsInOrder() {
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+        for (int element = 0; element < 4; element++)
+            assertTrue(buffer.offer(element));
+        assertFalse(buffer.offer(4));
+        for (int element = 0; element < 4; element++)
+            assertEquals(element, buffer.poll());
+        assertNull(buffer.poll());
+        // Wraps around.
+        assertTrue(buffer.offer(5));
+        assertEquals(5, buffer.poll());
+    }
+
+}
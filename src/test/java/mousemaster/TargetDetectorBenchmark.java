@@ -0,0 +1,93 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Time of TargetDetector#detect on a synthetic 4K frame (buttons and lines of words on a
+ * gradient), with 1, 2 and 4 fork-join threads and with all the available processors.
+ * The target is about 30ms with 4 cores.
+ */
+class TargetDetectorBenchmark {
+
+    private static final int width = 3840;
+    private static final int height = 2160;
+    private static final int runCount = 15;
+
+    @Test
+    void detect4KFrame() throws InterruptedException, ExecutionException {
+        int[] pixels = syntheticFrame(new Random(1));
+        int availableProcessors = Runtime.getRuntime().availableProcessors();
+        System.out.println("Available processors: " + availableProcessors);
+        for (int parallelism : new int[]{1, 2, 4, availableProcessors}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                // Parallel streams run in the pool of the task that uses them.
+                long medianNanos = pool.submit(() -> medianDetectNanos(pixels)).get();
+                System.out.printf("%d thread(s): %.1fms per 4K frame (median of %d)%n",
+                        parallelism, medianNanos / 1e6, runCount);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long medianDetectNanos(int[] pixels) {
+        for (int warmUpIndex = 0; warmUpIndex < 10; warmUpIndex++)
+            TargetDetector.detect(pixels, width, height);
+        long[] detectNanos = new long[runCount];
+        for (int runIndex = 0; runIndex < runCount; runIndex++) {
+            long detectBeginNanoTime = System.nanoTime();
+            List<Point> targets = TargetDetector.detect(pixels, width, height);
+            detectNanos[runIndex] = System.nanoTime() - detectBeginNanoTime;
+            assertTrue(targets.size() > 50, "targets = " + targets.size());
+        }
+        Arrays.sort(detectNanos);
+        return detectNanos[runCount / 2];
+    }
+
+    private static int[] syntheticFrame(Random random) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int shade = 0xE0 + y * 0x1F / height;
+            Arrays.fill(pixels, y * width, (y + 1) * width,
+                    shade << 16 | shade << 8 | shade);
+        }
+        // Rows of buttons.
+        for (int buttonIndex = 0; buttonIndex < 400; buttonIndex++) {
+            int x = random.nextInt(width - 200);
+            int y = random.nextInt(height - 60);
+            fillRectangle(pixels, x, y, 80 + random.nextInt(120), 24 + random.nextInt(36),
+                    0x3060A0);
+        }
+        // Lines of words: glyphs are 2px wide strokes, 1 to 3 pixels apart.
+        for (int lineIndex = 0; lineIndex < 300; lineIndex++) {
+            int x = random.nextInt(width - 600);
+            int y = random.nextInt(height - 20);
+            int endX = x + 200 + random.nextInt(400);
+            while (x < endX) {
+                int wordEndX = x + 20 + random.nextInt(60);
+                for (; x < wordEndX; x += 3 + random.nextInt(3))
+                    fillRectangle(pixels, x, y + random.nextInt(4), 2,
+                            8 + random.nextInt(6), 0x202020);
+                x += 12;
+            }
+        }
+        return pixels;
+    }
+
+    private static void fillRectangle(int[] pixels, int x, int y, int rectangleWidth,
+                                      int rectangleHeight, int color) {
+        for (int rowY = y; rowY < Math.min(height, y + rectangleHeight); rowY++)
+            Arrays.fill(pixels, rowY * width + x,
+                    Math.min((rowY + 1) * width, rowY * width + x + rectangleWidth), color);
+    }
+
+}
@@ -0,0 +1,77 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TargetDetectorTest {
+
+    /**
+     * Tolerance of the target centers, in screenshot pixels: edges are a few pixels wider
+     * than the borders they are detected at.
+     */
+    private static final int tolerance = 4;
+
+    /**
+     * Three buttons (the band border at y = 128 goes through them), a panel that is too
+     * large to be a target with a button inside, and a word of 5 letters.
+     */
+    @Test
+    void dialogButtonsAndWordsAreTargets() throws IOException {
+        List<Point> targets = detect("dialog.png");
+        assertTargets(List.of(new Point(150, 115), new Point(350, 115),
+                new Point(550, 115), new Point(400, 365), new Point(119, 485)), targets);
+    }
+
+    /**
+     * Screenshots wider than 1920 pixels are downscaled, the targets are still in
+     * screenshot coordinates.
+     */
+    @Test
+    void targetsOfADownscaledScreenshotAreInScreenshotCoordinates() throws IOException {
+        List<Point> targets = detect("wide-screen.png");
+        // Row by row.
+        assertTargets(List.of(new Point(3100, 120), new Point(300, 220)), targets);
+    }
+
+    @Test
+    void uniformOrTinyScreenshotsHaveNoTargets() {
+        assertEquals(List.of(), TargetDetector.detect(new int[640 * 480], 640, 480));
+        assertEquals(List.of(), TargetDetector.detect(new int[]{0xFFFFFF, 0, 0, 0xFFFFFF},
+                2, 2));
+    }
+
+    private static void assertTargets(List<Point> expectedTargets, List<Point> targets) {
+        assertEquals(expectedTargets.size(), targets.size(), "targets = " + targets);
+        for (int targetIndex = 0; targetIndex < targets.size(); targetIndex++) {
+            Point expectedTarget = expectedTargets.get(targetIndex);
+            Point target = targets.get(targetIndex);
+            assertTrue(Math.abs(target.x() - expectedTarget.x()) <= tolerance &&
+                       Math.abs(target.y() - expectedTarget.y()) <= tolerance,
+                    "expected " + expectedTarget + ", got " + target);
+        }
+    }
+
+    private static List<Point> detect(String fixtureName) throws IOException {
+        BufferedImage image;
+        try (InputStream inputStream = TargetDetectorTest.class.getResourceAsStream(
+                "/target-detector/" + fixtureName)) {
+            assertNotNull(inputStream, fixtureName);
+            image = ImageIO.read(inputStream);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        // Same format as WindowsScreenCapture: no alpha.
+        for (int pixelIndex = 0; pixelIndex < pixels.length; pixelIndex++)
+            pixels[pixelIndex] &= 0xFFFFFF;
+        return TargetDetector.detect(pixels, width, height);
+    }
+
+}
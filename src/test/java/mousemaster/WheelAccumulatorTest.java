@@ -0,0 +1,91 @@
+package mousemaster;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WheelAccumulatorTest {
+
+    private static final double emitInterval = 1d / 60;
+    private static final Wheel noMomentumWheel = new Wheel(1000, 1000, 0, false, 0);
+    private static final Wheel momentumWheel = new Wheel(1000, 1000, 0, true, 5);
+
+    @Test
+    void noDistanceIsLostAtHighTickRates() {
+        WheelAccumulator accumulator = new WheelAccumulator(emitInterval);
+        // 0.03 units per tick: truncating each tick would never send anything.
+        int distance = drive(accumulator, 30, noMomentumWheel, 0.001, 1000);
+        assertTrue(distance >= 29 && distance <= 30, "distance = " + distance);
+    }
+
+    @Test
+    void distanceDoesNotDependOnTheTickRate() {
+        WheelAccumulator slowTickAccumulator = new WheelAccumulator(emitInterval);
+        int slowTickDistance =
+                drive(slowTickAccumulator, 1500, noMomentumWheel, 0.02, 50) +
+                slowTickAccumulator.update(0, noMomentumWheel, 0.02);
+        WheelAccumulator fastTickAccumulator = new WheelAccumulator(emitInterval);
+        // The distance of the last ticks is sent on release.
+        int fastTickDistance =
+                drive(fastTickAccumulator, 1500, noMomentumWheel, 0.001, 1000) +
+                fastTickAccumulator.update(0, noMomentumWheel, 0.001);
+        assertEquals(1500, slowTickDistance, 1);
+        assertEquals(1500, fastTickDistance, 1);
+    }
+
+    @Test
+    void negativeVelocityWheelsTheOtherWay() {
+        int distance = drive(new WheelAccumulator(emitInterval), -1500, noMomentumWheel,
+                0.01, 100);
+        assertEquals(-1500, distance, 1);
+    }
+
+    @Test
+    void deltasAreEmittedAtMostOncePerEmitInterval() {
+        WheelAccumulator accumulator = new WheelAccumulator(emitInterval);
+        int emissionCount = 0;
+        for (int tick = 0; tick < 1000; tick++) {
+            if (accumulator.update(6000, noMomentumWheel, 0.001) != 0)
+                emissionCount++;
+        }
+        assertTrue(emissionCount <= 60, "emissionCount = " + emissionCount);
+        assertTrue(emissionCount >= 50, "emissionCount = " + emissionCount);
+    }
+
+    @Test
+    void wheelStopsRightAwayWithoutMomentum() {
+        WheelAccumulator accumulator = new WheelAccumulator(emitInterval);
+        drive(accumulator, 1000, noMomentumWheel, 0.01, 50);
+        // The remaining whole units are flushed on release, then nothing.
+        accumulator.update(0, noMomentumWheel, 0.01);
+        assertEquals(0, drive(accumulator, 0, noMomentumWheel, 0.01, 100));
+    }
+
+    @Test
+    void momentumDecaysExponentiallyThenStops() {
+        WheelAccumulator accumulator = new WheelAccumulator(emitInterval);
+        drive(accumulator, 1200, momentumWheel, 0.01, 50);
+        int momentumDistance = drive(accumulator, 0, momentumWheel, 0.01, 500);
+        // The integral of 1200 * e^(-5t) is 240, minus the tail below the stop velocity.
+        assertTrue(momentumDistance > 220 && momentumDistance <= 240,
+                "momentumDistance = " + momentumDistance);
+        assertEquals(0, drive(accumulator, 0, momentumWheel, 0.01, 100));
+    }
+
+    @Test
+    void resetDropsMomentumAndRemainingDistance() {
+        WheelAccumulator accumulator = new WheelAccumulator(emitInterval);
+        drive(accumulator, 1234, momentumWheel, 0.01, 50);
+        accumulator.reset();
+        assertEquals(0, drive(accumulator, 0, momentumWheel, 0.01, 100));
+    }
+
+    private static int drive(WheelAccumulator accumulator, double velocity, Wheel wheel,
+                             double delta, int tickCount) {
+        int distance = 0;
+        for (int tick = 0; tick < tickCount; tick++)
+            distance += accumulator.update(velocity, wheel, delta);
+        return distance;
+    }
+
+}
@@ -0,0 +1,85 @@
+package mousemaster;
+
+import com.sun.jna.platform.win32.WinDef;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Cost of following the foreground keyboard layout: polling it (every 200ms), switching
+ * to a layout for the first time (its translation table is built) and switching back to
+ * a layout whose table is cached. Needs Windows and its keyboard layouts.
+ */
+class WindowsVirtualKeyBenchmark {
+
+    private static final Path configurationPath = Path.of("configuration/warpd.properties");
+    /**
+     * US, French, German and Italian.
+     */
+    private static final List<String> keyboardLayoutIdentifiers =
+            List.of("00000409", "0000040C", "00000407", "00000410");
+    /**
+     * KLF_NOTELLSHELL: loading a layout for the benchmark does not notify the shell.
+     */
+    private static final int loadKeyboardLayoutFlags = 0x00000080;
+    private static final int cachedSwitchCount = 100;
+    private static final int pollCount = 10_000;
+
+    @Test
+    void keyboardLayoutSwitchCost() throws IOException {
+        assumeTrue(System.getProperty("os.name").startsWith("Windows"),
+                "keyboard layouts need Windows");
+        WindowsVirtualKey.mapKeysToVirtualKeysUsingLayout(
+                ConfigurationParser.parse(configurationPath).modeMap().comboKeys(), null).run();
+        List<WinDef.HKL> keyboardLayoutHandles = new ArrayList<>();
+        for (String keyboardLayoutIdentifier : keyboardLayoutIdentifiers) {
+            WinDef.HKL keyboardLayoutHandle = ExtendedUser32.INSTANCE.LoadKeyboardLayoutA(
+                    keyboardLayoutIdentifier, loadKeyboardLayoutFlags);
+            assertNotNull(keyboardLayoutHandle, keyboardLayoutIdentifier);
+            keyboardLayoutHandles.add(keyboardLayoutHandle);
+        }
+        long pollBeginNanoTime = System.nanoTime();
+        for (int pollIndex = 0; pollIndex < pollCount; pollIndex++)
+            WindowsVirtualKey.followForegroundKeyboardLayout();
+        long pollNanos = (System.nanoTime() - pollBeginNanoTime) / pollCount;
+        // Cold: the table of a layout other than the startup one is built on first use.
+        List<Long> coldSwitchNanos = new ArrayList<>();
+        List<WinDef.HKL> switchedKeyboardLayoutHandles = new ArrayList<>();
+        for (WinDef.HKL keyboardLayoutHandle : keyboardLayoutHandles) {
+            long switchBeginNanoTime = System.nanoTime();
+            if (!WindowsVirtualKey.switchKeyboardLayout(keyboardLayoutHandle))
+                continue;
+            coldSwitchNanos.add(System.nanoTime() - switchBeginNanoTime);
+            switchedKeyboardLayoutHandles.add(keyboardLayoutHandle);
+        }
+        assertTrue(switchedKeyboardLayoutHandles.size() >= 2);
+        long[] cachedSwitchNanos = new long[cachedSwitchCount];
+        for (int switchIndex = 0; switchIndex < cachedSwitchCount; switchIndex++) {
+            WinDef.HKL keyboardLayoutHandle = switchedKeyboardLayoutHandles.get(
+                    switchIndex % switchedKeyboardLayoutHandles.size());
+            long switchBeginNanoTime = System.nanoTime();
+            assertTrue(WindowsVirtualKey.switchKeyboardLayout(keyboardLayoutHandle));
+            cachedSwitchNanos[switchIndex] = System.nanoTime() - switchBeginNanoTime;
+        }
+        Arrays.sort(cachedSwitchNanos);
+        System.out.println("Foreground keyboard layout poll: " +
+                           LatencyHistogram.formatNanos(pollNanos) + " (mean of " +
+                           pollCount + ")");
+        System.out.println("Cold switches (table built): " +
+                           coldSwitchNanos.stream()
+                                          .map(LatencyHistogram::formatNanos)
+                                          .collect(Collectors.joining(", ")));
+        System.out.println("Cached switches: median " + LatencyHistogram.formatNanos(
+                cachedSwitchNanos[cachedSwitchCount / 2]) + ", max " +
+                           LatencyHistogram.formatNanos(
+                                   cachedSwitchNanos[cachedSwitchCount - 1]) +
+                           " (" + cachedSwitchCount + " switches)");
+    }
+
+}